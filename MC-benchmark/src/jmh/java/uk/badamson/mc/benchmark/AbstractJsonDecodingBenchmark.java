@@ -0,0 +1,101 @@
+package uk.badamson.mc.benchmark;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Benchmark of decoding MC-REST DTOs from JSON.
+ * </p>
+ * <p>
+ * Compares calling a shared {@link ObjectMapper} for each value
+ * with using an {@link ObjectReader} created once for the type of the value;
+ * and compares decoding from a {@link String} with decoding directly from the bytes
+ * received over HTTP.
+ * </p>
+ * <p>
+ * The concrete subclasses provide the DTOs to benchmark.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class AbstractJsonDecodingBenchmark {
+
+    @Param({"PLAIN", "AFTERBURNER", "BLACKBIRD"})
+    public MapperConfiguration configuration;
+
+    private ObjectMapper mapper;
+    private ObjectReader reader;
+    private JavaType type;
+    private String json;
+    private byte[] jsonBytes;
+
+    @Nonnull
+    abstract Dto getDto();
+
+    /**
+     * <p>
+     * The number of users of a game, characters of a scenario, or identifiers in a list.
+     * </p>
+     */
+    abstract int getSize();
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = configuration.createMapper();
+        type = getDto().getType(mapper);
+        reader = mapper.readerFor(type);
+        jsonBytes = MapperConfiguration.PLAIN.createMapper().writeValueAsBytes(getDto().create(getSize()));
+        json = new String(jsonBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object sharedMapperFromString() throws IOException {
+        return mapper.readValue(json, type);
+    }
+
+    @Benchmark
+    public Object sharedMapperFromBytes() throws IOException {
+        return mapper.readValue(jsonBytes, type);
+    }
+
+    @Benchmark
+    public Object cachedReaderFromString() throws IOException {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public Object cachedReaderFromBytes() throws IOException {
+        return reader.readValue(jsonBytes);
+    }
+}
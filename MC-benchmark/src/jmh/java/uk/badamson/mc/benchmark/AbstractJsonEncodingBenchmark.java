@@ -0,0 +1,96 @@
+package uk.badamson.mc.benchmark;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Benchmark of encoding MC-REST DTOs as JSON.
+ * </p>
+ * <p>
+ * Compares calling a shared {@link ObjectMapper} for each value,
+ * as the back-end and the integration tests do,
+ * with using an {@link ObjectWriter} created once for the type of the value;
+ * and compares encoding as a {@link String} with encoding directly as bytes,
+ * which is what is sent over HTTP.
+ * </p>
+ * <p>
+ * The concrete subclasses provide the DTOs to benchmark.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class AbstractJsonEncodingBenchmark {
+
+    @Param({"PLAIN", "AFTERBURNER", "BLACKBIRD"})
+    public MapperConfiguration configuration;
+
+    private ObjectMapper mapper;
+    private ObjectWriter writer;
+    private Object value;
+
+    @Nonnull
+    abstract Dto getDto();
+
+    /**
+     * <p>
+     * The number of users of a game, characters of a scenario, or identifiers in a list.
+     * </p>
+     */
+    abstract int getSize();
+
+    @Setup
+    public void setUp() {
+        mapper = configuration.createMapper();
+        writer = mapper.writerFor(getDto().getType(mapper));
+        value = getDto().create(getSize());
+    }
+
+    @Benchmark
+    public String sharedMapperToString() throws JsonProcessingException {
+        return mapper.writeValueAsString(value);
+    }
+
+    @Benchmark
+    public byte[] sharedMapperToBytes() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public String cachedWriterToString() throws JsonProcessingException {
+        return writer.writeValueAsString(value);
+    }
+
+    @Benchmark
+    public byte[] cachedWriterToBytes() throws JsonProcessingException {
+        return writer.writeValueAsBytes(value);
+    }
+}
@@ -0,0 +1,145 @@
+package uk.badamson.mc.benchmark;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.badamson.mc.Authority;
+import uk.badamson.mc.BasicUserDetails;
+import uk.badamson.mc.Game;
+import uk.badamson.mc.NamedUUID;
+import uk.badamson.mc.Scenario;
+import uk.badamson.mc.User;
+import uk.badamson.mc.rest.GameResponse;
+import uk.badamson.mc.rest.ScenarioResponse;
+import uk.badamson.mc.rest.UserResponse;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * <p>
+ * The MC-REST DTOs whose JSON encoding and decoding is benchmarked,
+ * with content of a given size.
+ * </p>
+ * <p>
+ * The content is deterministic for a given size, so results of different runs are comparable.
+ * </p>
+ */
+public enum Dto {
+    /**
+     * <p>
+     * A {@link GameResponse} having the given number of {@linkplain GameResponse#getUsers() users}.
+     * </p>
+     */
+    GAME {
+        @Nonnull
+        @Override
+        Object create(@Nonnegative final int size) {
+            final Map<UUID, UUID> users = new HashMap<>();
+            for (int u = 0; u < size; ++u) {
+                users.put(createId(2, u), createId(3, u));
+            }
+            final var game = new Game(CREATED, Game.RunState.RUNNING, true, users);
+            return GameResponse.convertToResponse(createId(0, 0), createId(1, 0), game);
+        }
+    },
+    /**
+     * <p>
+     * A {@link ScenarioResponse} having the given number of characters.
+     * </p>
+     */
+    SCENARIO {
+        @Nonnull
+        @Override
+        Object create(@Nonnegative final int size) {
+            final List<NamedUUID> characters = new ArrayList<>(size);
+            for (int c = 0; c < size; ++c) {
+                characters.add(new NamedUUID(createId(2, c), "Character " + c));
+            }
+            final var scenario = new Scenario("Section assault",
+                    "Basic fire and movement tactics for a section of infantry", characters);
+            return ScenarioResponse.convertToResponse(createId(1, 0), scenario);
+        }
+    },
+    /**
+     * <p>
+     * A {@link UserResponse}, which has a fixed size.
+     * </p>
+     */
+    USER {
+        @Nonnull
+        @Override
+        Object create(@Nonnegative final int size) {
+            final var details = new BasicUserDetails("Benchmark user", "password",
+                    Authority.ALL, true, true, true, true);
+            return UserResponse.convertToResponse(new User(createId(3, 0), details));
+        }
+    },
+    /**
+     * <p>
+     * A list of the given number of {@link uk.badamson.mc.rest.NamedUUID} identifiers,
+     * as returned when listing scenarios or games.
+     * </p>
+     */
+    NAMED_UUIDS {
+        @Nonnull
+        @Override
+        Object create(@Nonnegative final int size) {
+            final List<uk.badamson.mc.rest.NamedUUID> ids = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                ids.add(new uk.badamson.mc.rest.NamedUUID(createId(0, i), CREATED.plusSeconds(i).toString()));
+            }
+            return ids;
+        }
+
+        @Nonnull
+        @Override
+        JavaType getType(@Nonnull final ObjectMapper mapper) {
+            return mapper.getTypeFactory().constructCollectionType(List.class, uk.badamson.mc.rest.NamedUUID.class);
+        }
+    };
+
+    private static final Instant CREATED = Instant.parse("2023-05-01T12:00:00Z");
+
+    @Nonnull
+    private static UUID createId(final long kind, final long index) {
+        return new UUID(kind, index);
+    }
+
+    @Nonnull
+    abstract Object create(@Nonnegative int size);
+
+    /**
+     * <p>
+     * The type to decode the JSON encoding of the DTO as.
+     * </p>
+     */
+    @Nonnull
+    JavaType getType(@Nonnull final ObjectMapper mapper) {
+        return mapper.constructType(create(0).getClass());
+    }
+}
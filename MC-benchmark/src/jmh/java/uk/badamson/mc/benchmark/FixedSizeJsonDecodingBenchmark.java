@@ -0,0 +1,51 @@
+package uk.badamson.mc.benchmark;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.openjdk.jmh.annotations.Param;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <p>
+ * Benchmark of decoding MC-REST DTOs from JSON,
+ * for DTOs that have a fixed size.
+ * </p>
+ * <p>
+ * These are benchmarked separately from the {@linkplain JsonDecodingBenchmark variable size DTOs},
+ * so they are not measured repeatedly for sizes that they ignore.
+ * </p>
+ */
+public class FixedSizeJsonDecodingBenchmark extends AbstractJsonDecodingBenchmark {
+
+    @Param({"USER"})
+    public Dto dto;
+
+    @Nonnull
+    @Override
+    Dto getDto() {
+        return dto;
+    }
+
+    @Override
+    int getSize() {
+        return 0;
+    }
+}
@@ -0,0 +1,71 @@
+package uk.badamson.mc.benchmark;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <p>
+ * The configurations of {@link ObjectMapper} compared by the JSON benchmarks.
+ * </p>
+ * <p>
+ * All configurations register the {@link JavaTimeModule}, as the back-end does,
+ * because the DTOs include time-stamps.
+ * </p>
+ */
+public enum MapperConfiguration {
+    /**
+     * <p>
+     * Reflective (de)serialisation, as used by the back-end and the integration tests.
+     * </p>
+     */
+    PLAIN,
+    /**
+     * <p>
+     * Byte-code generation of property accessors, using the {@link AfterburnerModule}.
+     * </p>
+     */
+    AFTERBURNER,
+    /**
+     * <p>
+     * Property accessors created using {@link java.lang.invoke.LambdaMetafactory},
+     * using the {@link BlackbirdModule}, the successor of Afterburner for modern Java versions.
+     * </p>
+     */
+    BLACKBIRD;
+
+    @Nonnull
+    public ObjectMapper createMapper() {
+        final var mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        switch (this) {
+            case AFTERBURNER -> mapper.registerModule(new AfterburnerModule());
+            case BLACKBIRD -> mapper.registerModule(new BlackbirdModule());
+            case PLAIN -> {
+            }
+        }
+        return mapper;
+    }
+}
@@ -0,0 +1,106 @@
+package uk.badamson.mc
+
+import spock.lang.Specification
+import spock.lang.TempDir
+import uk.badamson.mc.rest.Paths
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Exchanges with the back-end recorded by the {@link BackEndRecorder}
+ * can be replayed as a {@link BackEndFixture} by the {@link MockMcBackEndContainer}.
+ *
+ * The mock back-end stands in for the real back-end while recording,
+ * so this needs no containers.
+ */
+class BackEndFixtureSpec extends Specification {
+
+    private static final def SCENARIO_ID = UUID.randomUUID()
+    private static final def GAME_ID = UUID.randomUUID()
+    private static final def EXPECTATIONS = ExpectationBundle.builder('recorded back-end')
+            .getAllScenarios(Set.of(new NamedUUID(SCENARIO_ID, 'Section assault')))
+            .currentGame(GAME_ID)
+            .mayJoinGame(GAME_ID, true)
+            .build()
+    private static final def PATHS = [
+            Paths.SCENARIOS_PATH,
+            Paths.CURRENT_GAME_PATH,
+            Paths.createPathForGame(GAME_ID) + '?mayJoin'
+    ]
+    private static final def CLIENT = HttpClient.newHttpClient()
+
+    @TempDir
+    Path directory
+
+    private MockMcBackEndContainer backEnd = new MockMcBackEndContainer()
+    private MockMcBackEndContainer replayer = new MockMcBackEndContainer()
+    private BackEndRecorder recorder = new BackEndRecorder({ URI.create("http://localhost:${backEnd.port}/") })
+
+    void setup() {
+        backEnd.start()
+        replayer.start()
+        recorder.start()
+    }
+
+    void cleanup() {
+        recorder.stop()
+        replayer.stop()
+        backEnd.stop()
+    }
+
+    /*
+     * The significant parts of a response, with JSON bodies parsed,
+     * because a replayed JSON body need not have the same layout as the recorded body.
+     */
+    private static List<Object> get(int port, String path) {
+        def request = HttpRequest.newBuilder(URI.create("http://localhost:${port}${path}")).GET().build()
+        def response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString())
+        def body = response.body().empty ? null : MockMcBackEndContainer.decodeJson(response.body()) ?: response.body()
+        [response.statusCode(), response.headers().firstValue('Location').orElse(null), body]
+    }
+
+    def "Replay responses recorded from the back-end"() {
+        given: "the front-end exchanged messages with the back-end while recording"
+        backEnd.apply(EXPECTATIONS)
+        recorder.beginRecording()
+        def recorded = PATHS.collect { get(recorder.port, it) }
+        def fixture = directory.resolve('round-trip.json')
+        recorder.endRecording(fixture)
+
+        when: "replaying the recording"
+        Files.newInputStream(fixture).withCloseable { replayer.apply(BackEndFixture.read('round-trip', it)) }
+        def replayed = PATHS.collect { get(replayer.port, it) }
+
+        then: "the replay gives the same responses as the back-end did"
+        replayed == recorded
+
+        and: "the recorded responses succeeded"
+        recorded*.get(0) == [200, 302, 200]
+
+        and: "the replay repeats the last response of each request"
+        PATHS.collect { get(replayer.port, it) } == recorded
+    }
+}
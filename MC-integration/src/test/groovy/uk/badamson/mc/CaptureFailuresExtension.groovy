@@ -0,0 +1,42 @@
+package uk.badamson.mc
+
+import org.spockframework.runtime.extension.IAnnotationDrivenExtension
+import org.spockframework.runtime.extension.IMethodInvocation
+import org.spockframework.runtime.model.SpecInfo
+
+/**
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+class CaptureFailuresExtension implements IAnnotationDrivenExtension<CaptureFailures> {
+
+    @Override
+    void visitSpecAnnotation(CaptureFailures annotation, SpecInfo spec) {
+        /* The annotation is typically on an abstract base specification, so intercept the features of the concrete one. */
+        spec.bottomSpec.allFeatures.each { feature ->
+            feature.featureMethod.addInterceptor { IMethodInvocation invocation ->
+                try {
+                    invocation.proceed()
+                } catch (Throwable e) {
+                    invocation.instance.featureFailed(e)
+                    throw e
+                }
+            }
+        }
+    }
+}
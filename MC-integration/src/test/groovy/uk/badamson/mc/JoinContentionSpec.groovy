@@ -0,0 +1,81 @@
+package uk.badamson.mc
+
+import spock.lang.Requires
+
+/**
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Many players can try to join the same newly recruiting game at the same moment.
+ *
+ * This is a stress test, so is run only if the {@code mc.stress} system property is {@code true}.
+ * The number of players is given by the {@code mc.stress.users} system property.
+ * It uses a dedicated stack of containers, so other specifications do not disturb the measurements.
+ */
+@Requires({ sys['mc.stress'] == 'true' })
+class JoinContentionSpec extends UnmockedSpecification {
+
+    private static final int N_USERS = Integer.getInteger('mc.stress.users', 300)
+    private static final int MAX_JOIN_ATTEMPTS = 5
+
+    void setupSpec() {
+        specificationName = 'JoinContentionSpec'
+    }
+
+    @Override
+    protected boolean usesSharedContainers() {
+        false
+    }
+
+    def "Many players join a game at the same moment"() {
+        given: "a game is recruiting players"
+        def scenario = world.scenarios.findFirst().orElseThrow().id
+        def game = world.createGame(scenario)
+
+        and: "many users with the player role not playing any games"
+        def users = world.createUsers(N_USERS, Set.of(Authority.ROLE_PLAYER)).requireNoFailures().created.toList()
+
+        when: "all the users try to join the game at the same moment"
+        def result = world.joinGameConcurrently(game, users, MAX_JOIN_ATTEMPTS)
+
+        then: "every refusal was because the game was full"
+        result.failures.empty
+
+        and: "users were refused only when the game had no free character for them"
+        result.unresolvedConflicts.empty
+
+        and: "each character of the scenario was assigned exactly once, until there were no more users"
+        def characters = world.getScenarioCharacters(scenario)
+        def gameUsers = world.getGameUsers(game)
+        characters.containsAll(gameUsers.keySet())
+        gameUsers.size() == Math.min(N_USERS, characters.size())
+
+        and: "each user plays at most one character"
+        gameUsers.values().toSet().size() == gameUsers.size()
+
+        and: "the users playing the game are exactly the users that joined it"
+        gameUsers.values().toSet() == result.joinedUsers
+
+        and: "the current game of every user that joined is the game"
+        users.findAll { result.joinedUsers.contains(it.id) }.every { world.getCurrentGame(it) == Optional.of(game) }
+
+        and: "users that did not join have no current game"
+        users.findAll { !result.joinedUsers.contains(it.id) }.every { world.getCurrentGame(it).empty }
+    }
+}
@@ -4,8 +4,10 @@ import org.testcontainers.lifecycle.TestDescription
 import org.testcontainers.spock.Testcontainers
 import spock.lang.Shared
 import spock.lang.Specification
+import uk.badamson.mc.presentation.PageTimings
 
 import java.nio.file.Path
+import java.util.concurrent.atomic.AtomicInteger
 /**
  * © Copyright Benedict Adamson 2019-22.
  *
@@ -25,47 +27,96 @@ import java.nio.file.Path
  * along with MC.  If not, see <https://www.gnu.org/licenses/>.
  */
 
+/*
+ * Features (and specifications) may run concurrently, using one stack of containers and one database.
+ * The features are not serialised, and the database is not reset between them.
+ * Instead, each feature creates its own users and games, and does not change or depend on
+ * any other data, except the scenarios, which are read only.
+ * Features must therefore not reset the database, and must not assert anything about all the users or games.
+ * The database is reset only when a world is the sole user of the stack.
+ */
+@CaptureFailures
 @Testcontainers
 abstract class UnmockedSpecification extends Specification {
 
     private static final Path FAILURE_RECORDING_DIRECTORY = Path.of(".", "target", "test-logs")
+    private static final Path PAGE_TIMINGS_DIRECTORY = Path.of(".", "target", "page-timings")
 
-    private static int testIndex = 0
+    /*
+     * Features may run concurrently, so the index and name are shared by the features of the specification,
+     * and each feature has its own description.
+     */
+    @Shared
+    private AtomicInteger testIndex = new AtomicInteger(0)
 
-    protected static String specificationName = getClass().simpleName
+    @Shared
+    protected String specificationName = getClass().simpleName
 
-    private TestDescription description = new TestDescription() {
-        @Override
-        String getTestId() {
-            specificationName + '-' + testIndex
-        }
+    private TestDescription description
 
-        @Override
-        String getFilesystemFriendlyName() {
-            getTestId()
-        }
-    }
+    private Throwable failure
+
+    /**
+     * The durations of the page operations of the features of this specification.
+     */
+    @Shared
+    protected PageTimings timings = new PageTimings()
 
     @Shared
     protected World world
 
+    /**
+     * Whether this specification can use the stack of containers shared by all specifications.
+     * Specifications that need a fresh stack should override this to return false.
+     */
+    protected boolean usesSharedContainers() {
+        BaseWorld.SHARE_CONTAINERS_BY_DEFAULT
+    }
+
     void setupSpec() {
-        testIndex = 0
-        world = new World(FAILURE_RECORDING_DIRECTORY)
+        testIndex.set(0)
+        world = new World(FAILURE_RECORDING_DIRECTORY, usesSharedContainers())
         world.start()
     }
 
     void setup() {
-        ++testIndex
+        final testId = specificationName + '-' + testIndex.incrementAndGet()
+        description = new TestDescription() {
+            @Override
+            String getTestId() {
+                testId
+            }
+
+            @Override
+            String getFilesystemFriendlyName() {
+                testId
+            }
+        }
+        PageTimings.setCurrent(timings)
         world.beforeTest(description)
     }
 
     void cleanup() {
-        world.afterTest(description, Optional.empty())
+        world.afterTest(description, Optional.ofNullable(failure))
+        PageTimings.setCurrent(null)
+        if (failure == null) {
+            world.containers.assertThatNoErrorMessagesLoggedDuring(description.filesystemFriendlyName)
+        }
+    }
+
+    /**
+     * Called by the {@link CaptureFailures} extension if a feature fails.
+     */
+    void featureFailed(Throwable failure) {
+        this.failure = failure
     }
 
     void cleanupSpec() {
-        world.close()
-        world = null
+        try {
+            world.close()
+        } finally {
+            world = null
+            timings.writeReport(PAGE_TIMINGS_DIRECTORY.resolve(specificationName + '.json'))
+        }
     }
 }
\ No newline at end of file
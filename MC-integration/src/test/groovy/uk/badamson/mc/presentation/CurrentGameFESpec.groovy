@@ -1,6 +1,7 @@
 package uk.badamson.mc.presentation
 
 import uk.badamson.mc.Authority
+import uk.badamson.mc.ExpectationBundle
 import uk.badamson.mc.Game
 import uk.badamson.mc.NamedUUID
 import uk.badamson.mc.Scenario
@@ -43,6 +44,16 @@ class CurrentGameFESpec extends MockedBeSpecification {
   static {
     GAME_WAITING_TO_START.setScenario(SCENARIO)
   }
+  private static final def A_SCENARIO = ExpectationBundle.builder('a scenario')
+          .getAllScenarios(Set.of(new NamedUUID(SCENARIO_ID, SCENARIO_TITLE)))
+          .getScenario(SCENARIO_ID, SCENARIO)
+          .build()
+  private static final def A_GAME_WAITING_TO_START = ExpectationBundle.builder('a scenario with one game waiting to start')
+          .getAllScenarios(Set.of(new NamedUUID(SCENARIO_ID, SCENARIO_TITLE)))
+          .getScenario(SCENARIO_ID, SCENARIO)
+          .getGameIDs(SCENARIO_ID, Set.of(NAMED_GAME_ID))
+          .getGame(GAME_ID, SCENARIO_ID, GAME_WAITING_TO_START)
+          .build()
 
   @Override
   protected String getSpecificationName() {
@@ -65,8 +76,7 @@ class CurrentGameFESpec extends MockedBeSpecification {
 
   def "Examine current game"() {
     given: "has a game that the user is playing"
-    world.backEnd.mockGetAllScenarios(Set.of(new NamedUUID(SCENARIO_ID, SCENARIO_TITLE)))
-    world.backEnd.mockGetScenario(SCENARIO_ID, SCENARIO)
+    world.backEnd.apply(A_SCENARIO)
     def user = world.createUserWithRole(Authority.ROLE_PLAYER)
     def game = new Game(GAME_CREATION_TIME, Game.RunState.WAITING_TO_START, true, Map.of(CHARACTER_ID, user.id))
     game.setScenario(SCENARIO)
@@ -89,10 +99,7 @@ class CurrentGameFESpec extends MockedBeSpecification {
   }
 
   private void hasAGame() {
-    world.backEnd.mockGetAllScenarios(Set.of(new NamedUUID(SCENARIO_ID, SCENARIO_TITLE)))
-    world.backEnd.mockGetScenario(SCENARIO_ID, SCENARIO)
-    world.backEnd.mockGetGameIDs(SCENARIO_ID, Set.of(NAMED_GAME_ID))
-    world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, GAME_WAITING_TO_START)
+    world.backEnd.apply(A_GAME_WAITING_TO_START)
   }
 
 
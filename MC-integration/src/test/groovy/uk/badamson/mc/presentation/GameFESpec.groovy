@@ -1,10 +1,12 @@
 package uk.badamson.mc.presentation
 
-import org.mockserver.matchers.Times
 import uk.badamson.mc.Authority
+import uk.badamson.mc.ExpectationBundle
 import uk.badamson.mc.Game
 import uk.badamson.mc.NamedUUID
 import uk.badamson.mc.Scenario
+import uk.badamson.mc.SimulatedMcBackEnd
+import uk.badamson.mc.Times
 
 import java.time.Instant
 /**
@@ -48,6 +50,21 @@ class GameFESpec extends MockedBeSpecification {
     static {
         GAME_WAITING_TO_START.setScenario(SCENARIO)
     }
+    private static final def A_SCENARIO = ExpectationBundle.builder('a scenario')
+            .getAllScenarios(Set.of(new NamedUUID(SCENARIO_ID, SCENARIO_TITLE)))
+            .getScenario(SCENARIO_ID, SCENARIO)
+            .build()
+    private static final def A_SCENARIO_WITHOUT_GAMES = ExpectationBundle.builder('a scenario without any games')
+            .getAllScenarios(Set.of(new NamedUUID(SCENARIO_ID, SCENARIO_TITLE)))
+            .getScenario(SCENARIO_ID, SCENARIO)
+            .getGameIDs(SCENARIO_ID, Set.of(), Times.once())
+            .build()
+    private static final def A_GAME_WAITING_TO_START = ExpectationBundle.builder('a scenario with one game waiting to start')
+            .getAllScenarios(Set.of(new NamedUUID(SCENARIO_ID, SCENARIO_TITLE)))
+            .getScenario(SCENARIO_ID, SCENARIO)
+            .getGameIDs(SCENARIO_ID, Set.of(NAMED_GAME_ID))
+            .getGame(GAME_ID, SCENARIO_ID, GAME_WAITING_TO_START)
+            .build()
 
     @Override
     protected final String getSpecificationName() {
@@ -142,8 +159,7 @@ class GameFESpec extends MockedBeSpecification {
 
     def "Add game"() {
         given: "has a scenario without any games"
-        hasAScenario()
-        world.backEnd.mockGetGameIDs(SCENARIO_ID, Set.of(), Times.once())
+        world.backEnd.apply(A_SCENARIO_WITHOUT_GAMES)
 
         and: "logged in as a user with the manage games role"
         def user = world.createUserWithRole(Authority.ROLE_MANAGE_GAMES)
@@ -183,8 +199,7 @@ class GameFESpec extends MockedBeSpecification {
 
     def "Only a game manager may add a game"() {
         given: "has a scenario without any games"
-        hasAScenario()
-        world.backEnd.mockGetGameIDs(SCENARIO_ID, Set.of(), Times.once())
+        world.backEnd.apply(A_SCENARIO_WITHOUT_GAMES)
 
         and: "logged in as a user without the manage games role"
         def homePage = world.logInAsUserWithoutTheRole(Authority.ROLE_MANAGE_GAMES)
@@ -199,21 +214,13 @@ class GameFESpec extends MockedBeSpecification {
 
     def "End game recruitment"() {
         given: "a game is initially recruiting players"
-        hasAScenario()
-        def game = new Game(GAME_CREATION_TIME, Game.RunState.WAITING_TO_START, true, NO_USERS)
-        game.setScenario(SCENARIO)
-        world.backEnd.mockGetGameIDs(SCENARIO_ID, Set.of(NAMED_GAME_ID))
-        world.backEnd.mockMayJoinGame(GAME_ID, false)
-        world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, game, Times.once())
+        def backEnd = hasASimulatedGame(Game.RunState.WAITING_TO_START)
 
         and: "logged in as a user with the manage games role"
-        def homePage = world.logInAsUserWithTheRole(Authority.ROLE_MANAGE_GAMES)
+        def homePage = world.logInAsSimulatedUserWithTheRole(Authority.ROLE_MANAGE_GAMES)
 
         when: "user ends recruitment for the game"
         def gamePage = examineGame(homePage)
-        world.backEnd.mockEndRecruitment(GAME_ID)
-        game.endRecruitment()
-        world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, game, Times.unlimited())
         gamePage.endRecruitement()
 
         then: "the game accepts ending recruitment"
@@ -222,6 +229,9 @@ class GameFESpec extends MockedBeSpecification {
 
         and: "the game indicates that it is not recruiting players"
         gamePage.assertIndicatesIsNotRecruitingPlayers()
+
+        and: "the game is no longer recruiting players"
+        !backEnd.getGame(GAME_ID).get().isRecruiting()
     }
 
     def "Only a game manager may end recruitment for a game"() {
@@ -262,26 +272,16 @@ class GameFESpec extends MockedBeSpecification {
 
     def "Join a game"() {
         given: "a game is recruiting players"
-        hasAScenario()
-        def game = new Game(GAME_CREATION_TIME, Game.RunState.WAITING_TO_START, true, NO_USERS)
-        game.setScenario(SCENARIO)
-        world.backEnd.mockGetGameIDs(SCENARIO_ID, Set.of(NAMED_GAME_ID))
-        world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, game, Times.once())
-        world.backEnd.mockMayJoinGame(GAME_ID, true)
+        def backEnd = hasASimulatedGame(Game.RunState.WAITING_TO_START)
 
         and: "logged in as a user with the player role who is not playing any game"
-        world.backEnd.mockNoCurrentGame()
-        world.backEnd.mockMayJoinGame(GAME_ID, true)
         def user = world.createUserWithRole(Authority.ROLE_PLAYER)
-        def homePage = world.logInAsUser(user)
+        def homePage = world.logInAsSimulatedUser(user)
 
         and: "examining the game"
         def gamePage = examineGame(homePage)
 
         when: "the user joins the game"
-        world.backEnd.mockJoinGame(GAME_ID)
-        game.addUser(CHARACTER_ID, user.id)
-        world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, game, Times.unlimited())
         gamePage.joinGame()
 
         then: "the game accepts joining"
@@ -293,6 +293,10 @@ class GameFESpec extends MockedBeSpecification {
 
         and: "the game indicates which character the user is playing"
         gamePage.assertIndicatesWhichCharacterUserIsPlaying()
+
+        and: "the user is playing the character"
+        backEnd.getGame(GAME_ID).get().getUsers() == Map.of(CHARACTER_ID, user.id)
+        backEnd.getCurrentGameOfUser(user.id) == Optional.of(GAME_ID)
     }
 
     def "Only a player may join a game"() {
@@ -315,22 +319,15 @@ class GameFESpec extends MockedBeSpecification {
 
     def "Start game"() {
         given: "a game is waiting to start"
-        hasAScenario()
-        world.backEnd.mockGetGameIDs(SCENARIO_ID, Set.of(NAMED_GAME_ID))
-        def game = new Game(GAME_CREATION_TIME, Game.RunState.WAITING_TO_START, true, NO_USERS)
-        game.setScenario(SCENARIO)
-        world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, game, Times.once())
+        def backEnd = hasASimulatedGame(Game.RunState.WAITING_TO_START)
 
         and: "logged in as a user with the manage games role"
-        def homePage = world.logInAsUserWithTheRole(Authority.ROLE_MANAGE_GAMES)
+        def homePage = world.logInAsSimulatedUserWithTheRole(Authority.ROLE_MANAGE_GAMES)
 
         and: "examining the game"
         def gamePage = examineGame(homePage)
 
         when: "user starts the game"
-        world.backEnd.mockStartGame(GAME_ID)
-        game.setRunState(Game.RunState.RUNNING)
-        world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, game)
         gamePage.startGame()
 
         then: "the game accepts starting"
@@ -339,6 +336,9 @@ class GameFESpec extends MockedBeSpecification {
 
         and: "the game indicates that it is running"
         gamePage.assertIndicatesRunning()
+
+        and: "the game is running"
+        backEnd.getGame(GAME_ID).get().getRunState() == Game.RunState.RUNNING
     }
 
     def "Only a game manager may start a game"() {
@@ -357,22 +357,15 @@ class GameFESpec extends MockedBeSpecification {
 
     def "Stop game"() {
         given: "a game is running"
-        hasAScenario()
-        world.backEnd.mockGetGameIDs(SCENARIO_ID, Set.of(NAMED_GAME_ID))
-        def game = new Game(GAME_CREATION_TIME, Game.RunState.RUNNING, true, NO_USERS)
-        game.setScenario(SCENARIO)
-        world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, game, Times.once())
+        def backEnd = hasASimulatedGame(Game.RunState.RUNNING)
 
         and: "logged in as a user with the manage games role"
-        def homePage = world.logInAsUserWithTheRole(Authority.ROLE_MANAGE_GAMES)
+        def homePage = world.logInAsSimulatedUserWithTheRole(Authority.ROLE_MANAGE_GAMES)
 
         and: "examine the game"
         def gamePage = examineGame(homePage)
 
         when: "user stops the game"
-        world.backEnd.mockStopGame(GAME_ID)
-        game.setRunState(Game.RunState.STOPPED)
-        world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, game)
         gamePage.stopGame()
 
         then: "the game accepts stopping"
@@ -381,6 +374,9 @@ class GameFESpec extends MockedBeSpecification {
 
         and: "the game indicates that it is not running"
         gamePage.assertIndicatesNotRunning()
+
+        and: "the game is stopped"
+        backEnd.getGame(GAME_ID).get().getRunState() == Game.RunState.STOPPED
     }
 
     def "Only a game manager may stop a game"() {
@@ -406,15 +402,18 @@ class GameFESpec extends MockedBeSpecification {
     }
 
     private void hasAGameWaitingToStart() {
-        hasAScenario()
-        world.backEnd.mockGetGameIDs(SCENARIO_ID, Set.of(NAMED_GAME_ID))
-        world.backEnd.mockGetGame(GAME_ID, SCENARIO_ID, GAME_WAITING_TO_START)
+        world.backEnd.apply(A_GAME_WAITING_TO_START)
     }
 
+    private SimulatedMcBackEnd hasASimulatedGame(final Game.RunState runState) {
+        def backEnd = world.backEnd.simulate()
+        backEnd.addScenario(SCENARIO_ID, SCENARIO)
+        backEnd.addGame(GAME_ID, SCENARIO_ID, new Game(GAME_CREATION_TIME, runState, true, NO_USERS))
+        backEnd
+    }
 
     private void hasAScenario() {
-        world.backEnd.mockGetAllScenarios(Set.of(new NamedUUID(SCENARIO_ID, SCENARIO_TITLE)))
-        world.backEnd.mockGetScenario(SCENARIO_ID, SCENARIO)
+        world.backEnd.apply(A_SCENARIO)
     }
 
     private GamePage examineGame(final HomePage homePage) {
@@ -1,7 +1,11 @@
 package uk.badamson.mc.presentation
 
 
+import uk.badamson.mc.ExpectationBundle
+import uk.badamson.mc.LatencyProfile
 import uk.badamson.mc.NamedUUID
+
+import java.time.Duration
 /**
  * © Copyright Benedict Adamson 2019-23.
  *
@@ -23,9 +27,19 @@ import uk.badamson.mc.NamedUUID
 
 /**
  * It should be easy for users to access the home-page of an MC server, and know they have got the right page.
+ *
+ * The latency budget of the home page, and the number of samples used to check it, can be changed
+ * using the {@code mc.budget.home-page-ms} and {@code mc.budget.samples} system properties.
  */
 class HomePageFESpec extends MockedBeSpecification {
 
+    private static final Duration HOME_PAGE_BUDGET = Duration.ofMillis(Long.getLong('mc.budget.home-page-ms', 2000L))
+
+    /*
+     * Enough samples for the 95th percentile not to be simply the slowest sample.
+     */
+    private static final int N_BUDGET_SAMPLES = Integer.getInteger('mc.budget.samples', 40)
+
     @Override
     protected final String getSpecificationName() {
         'HomePageFESpec'
@@ -58,4 +72,39 @@ class HomePageFESpec extends MockedBeSpecification {
         and: "it does not indicate that the user has a current game"
         !homePage.doesIndicateUserHasCurrentGame()
     }
-}
\ No newline at end of file
+
+    def "Potential user accesses an MC server when the back-end is slow"() {
+        given: "the back-end is slow to report that the user is not logged in"
+        world.backEnd.apply(ExpectationBundle.builder('slow self')
+                .getSelfUnauthenticated().withLatency(latency)
+                .build())
+        Page.setLatencyProfile('/api/self ' + latency.name)
+        and: "the back-end knows some scenarios"
+        world.backEnd.mockGetAllScenarios(Set.of(new NamedUUID(UUID.randomUUID(), 'Squad assault')))
+        when: "the potential user gives the URL of the server to a web browser"
+        def homePage = world.navigateToHomePage()
+        then: "MC serves the home page"
+        homePage.assertInvariants()
+        and: "MC allows logging in"
+        homePage.isLoginEnabled()
+        cleanup:
+        Page.setLatencyProfile(null)
+        where:
+        latency << [
+                LatencyProfile.fixed(Duration.ofMillis(500)),
+                LatencyProfile.uniform(Duration.ofMillis(100), Duration.ofMillis(1500)),
+                LatencyProfile.longTailed(Duration.ofMillis(100), Duration.ofSeconds(3))
+        ]
+    }
+
+    def "Potential user gets the home page quickly"() {
+        given: "not logged in"
+        world.notLoggedIn()
+        and: "the back-end knows some scenarios"
+        world.backEnd.mockGetAllScenarios(Set.of(new NamedUUID(UUID.randomUUID(), 'Squad assault')))
+        expect: "MC repeatedly serves the home page within the latency budget"
+        timings.withBudget('navigateTo HomePage', 95.0, HOME_PAGE_BUDGET, N_BUDGET_SAMPLES) {
+            world.navigateToHomePage()
+        }.met
+    }
+}
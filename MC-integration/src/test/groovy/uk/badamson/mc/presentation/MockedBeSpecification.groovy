@@ -1,11 +1,19 @@
 package uk.badamson.mc.presentation
 
 import org.testcontainers.lifecycle.TestDescription
+import org.spockframework.runtime.model.parallel.ExecutionMode
 import org.testcontainers.spock.Testcontainers
+import spock.lang.Execution
+import spock.lang.ResourceLock
 import spock.lang.Shared
 import spock.lang.Specification
+import uk.badamson.mc.BaseWorld
+import uk.badamson.mc.CaptureFailures
 import uk.badamson.mc.MockedBeWorld
 
+import java.nio.file.Path
+import java.util.concurrent.atomic.AtomicInteger
+
 /**
  * © Copyright Benedict Adamson 2019-23.
  *
@@ -25,43 +33,88 @@ import uk.badamson.mc.MockedBeWorld
  * along with MC.  If not, see <https://www.gnu.org/licenses/>.
  */
 
+/*
+ * The mocked back-end is shared and reset before each feature, and features set up expectations on it,
+ * so features using it can not run concurrently, even in different specifications.
+ */
+@CaptureFailures
 @Testcontainers
+@Execution(ExecutionMode.SAME_THREAD)
+@ResourceLock('uk.badamson.mc.MockMcBackEnd')
 abstract class MockedBeSpecification extends Specification {
 
-    private static int testIndex = 0
+    private static final Path PAGE_TIMINGS_DIRECTORY = Path.of('.', 'target', 'page-timings')
 
-    private TestDescription description = new TestDescription() {
-        @Override
-        String getTestId() {
-            getSpecificationName() + '-' + testIndex
-        }
+    @Shared
+    private AtomicInteger testIndex = new AtomicInteger(0)
 
-        @Override
-        String getFilesystemFriendlyName() {
-            getTestId()
-        }
-    }
+    private TestDescription description
+
+    private Throwable failure
+
+    /**
+     * The durations of the page operations of the features of this specification.
+     */
+    @Shared
+    protected PageTimings timings = new PageTimings()
 
     @Shared
-    protected final MockedBeWorld world = new MockedBeWorld()
+    protected MockedBeWorld world
+
+    /**
+     * Whether this specification can use the stack of containers shared by all specifications.
+     * Specifications that need a fresh stack should override this to return false.
+     */
+    protected boolean usesSharedContainers() {
+        BaseWorld.SHARE_CONTAINERS_BY_DEFAULT
+    }
 
     void setupSpec() {
-        testIndex = 0
+        testIndex.set(0)
+        world = new MockedBeWorld(usesSharedContainers())
         world.start()
     }
 
     void setup() {
-        ++testIndex
+        final testId = getSpecificationName() + '-' + testIndex.incrementAndGet()
+        description = new TestDescription() {
+            @Override
+            String getTestId() {
+                testId
+            }
+
+            @Override
+            String getFilesystemFriendlyName() {
+                testId
+            }
+        }
+        PageTimings.setCurrent(timings)
         world.beforeTest(description)
     }
 
     void cleanup() {
-        world.afterTest(description, Optional.empty())
+        world.afterTest(description, Optional.ofNullable(failure))
+        PageTimings.setCurrent(null)
+        if (failure == null) {
+            world.containers.assertThatNoErrorMessagesLoggedDuring(description.filesystemFriendlyName)
+        }
+    }
+
+    /**
+     * Called by the {@link CaptureFailures} extension if a feature fails.
+     */
+    void featureFailed(Throwable failure) {
+        this.failure = failure
     }
 
     void cleanupSpec() {
-        world.stop()
-        world.close()
+        try {
+            world.stop()
+            world.close()
+        } finally {
+            world = null
+            timings.writeReport(PAGE_TIMINGS_DIRECTORY.resolve(getSpecificationName() + '.json'))
+        }
     }
 
     protected abstract String getSpecificationName()
@@ -1,8 +1,8 @@
 package uk.badamson.mc.presentation
 
-import org.mockserver.matchers.Times
 import uk.badamson.mc.Authority
 import uk.badamson.mc.BasicUserDetails
+import uk.badamson.mc.Times
 import uk.badamson.mc.User
 
 /**
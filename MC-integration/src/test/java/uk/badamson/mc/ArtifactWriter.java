@@ -0,0 +1,206 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Writes the records of failed tests (screenshots and log files) in the background,
+ * so tests do not wait for the writing to finish.
+ * </p>
+ * <p>
+ * The writing is completed when the JVM shuts down, at the end of the test suite,
+ * or when {@link #drain()} is called.
+ * The class also keeps account of how much time the records cost, and how much time was saved
+ * by writing in the background and by not making records of tests that passed,
+ * and reports that when it has finished writing.
+ * </p>
+ */
+final class ArtifactWriter {
+
+    /**
+     * <p>
+     * A task that writes a record.
+     * </p>
+     */
+    @FunctionalInterface
+    interface Task {
+        void write() throws Exception;
+    }
+
+    /**
+     * <p>
+     * An account of the time spent, and saved, making records of tests.
+     * </p>
+     *
+     * @param failedTests     The number of tests for which records were made.
+     * @param passedTests     The number of tests for which records were not made, because they passed.
+     * @param foreground      The total time test threads spent capturing records.
+     * @param background      The total time spent writing records in the background.
+     */
+    record Report(
+            @Nonnegative int failedTests,
+            @Nonnegative int passedTests,
+            @Nonnull Duration foreground,
+            @Nonnull Duration background) {
+
+        /**
+         * <p>
+         * The time test threads would have spent had every test captured and written its records synchronously,
+         * less the time they actually spent.
+         * </p>
+         * <p>
+         * The cost of the records of a passed test is estimated from the mean cost of the records of the failed tests,
+         * so this is zero if no tests failed.
+         * </p>
+         */
+        @Nonnull
+        Duration getTimeSaved() {
+            if (failedTests == 0) {
+                return Duration.ZERO;
+            }
+            final var meanCost = foreground.plus(background).dividedBy(failedTests);
+            return background.plus(meanCost.multipliedBy(passedTests));
+        }
+
+        @Override
+        public String toString() {
+            return "records of " + failedTests + " failed tests, "
+                    + foreground.toMillis() + " ms capturing and "
+                    + background.toMillis() + " ms writing in the background; "
+                    + passedTests + " passed tests not recorded; about "
+                    + getTimeSaved().toMillis() + " ms saved";
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactWriter.class);
+    private static final int N_WRITERS = 2;
+    private static final AtomicInteger N_THREADS = new AtomicInteger(0);
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(N_WRITERS, runnable -> {
+        final var thread = new Thread(runnable, "ArtifactWriter-" + N_THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Queue<Future<?>> PENDING = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger FAILED_TESTS = new AtomicInteger(0);
+    private static final AtomicInteger PASSED_TESTS = new AtomicInteger(0);
+    private static final AtomicLong FOREGROUND_NANOS = new AtomicLong(0);
+    private static final AtomicLong BACKGROUND_NANOS = new AtomicLong(0);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ArtifactWriter::drain, "ArtifactWriter-drain"));
+    }
+
+    private ArtifactWriter() {
+        throw new AssertionError("Class should not be instantiated");
+    }
+
+    /**
+     * <p>
+     * Write a record in the background.
+     * </p>
+     * <p>
+     * A failure to write the record is logged, rather than failing a test.
+     * </p>
+     *
+     * @param description A description of the record, for logging failures.
+     */
+    static void submit(@Nonnull final String description, @Nonnull final Task task) {
+        Objects.requireNonNull(description, "description");
+        Objects.requireNonNull(task, "task");
+        PENDING.add(EXECUTOR.submit(() -> {
+            final long start = System.nanoTime();
+            try {
+                task.write();
+            } catch (final Exception e) {
+                LOGGER.warn("Unable to write {}", description, e);
+            } finally {
+                BACKGROUND_NANOS.addAndGet(System.nanoTime() - start);
+            }
+        }));
+    }
+
+    /**
+     * <p>
+     * Record that the records of a failed test were captured,
+     * and how long the test thread spent capturing them.
+     * </p>
+     */
+    static void recordFailedTest(@Nonnull final Duration foreground) {
+        FAILED_TESTS.incrementAndGet();
+        FOREGROUND_NANOS.addAndGet(foreground.toNanos());
+    }
+
+    /**
+     * <p>
+     * Record that a test passed, so no records were made of it.
+     * </p>
+     */
+    static void recordPassedTest() {
+        PASSED_TESTS.incrementAndGet();
+    }
+
+    /**
+     * <p>
+     * Wait until all the records {@linkplain #submit(String, Task) submitted} so far have been written,
+     * then log the {@linkplain #getReport() report}.
+     * </p>
+     */
+    static void drain() {
+        boolean drained = false;
+        for (var future = PENDING.poll(); future != null; future = PENDING.poll()) {
+            drained = true;
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.warn("Interrupted while writing test records");
+                return;
+            } catch (final ExecutionException e) {
+                // The task logs its own failures
+            }
+        }
+        if (drained || 0 < PASSED_TESTS.get()) {
+            LOGGER.info("Test records: {}", getReport());
+        }
+    }
+
+    @Nonnull
+    static Report getReport() {
+        return new Report(FAILED_TESTS.get(), PASSED_TESTS.get(),
+                Duration.ofNanos(FOREGROUND_NANOS.get()), Duration.ofNanos(BACKGROUND_NANOS.get()));
+    }
+}
@@ -0,0 +1,257 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import uk.badamson.mc.MockMcBackEndContainer.MockResponse;
+import uk.badamson.mc.MockMcBackEndContainer.RouteKey;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Fixture files holding exchanges with the real back-end,
+ * {@linkplain BackEndRecorder recorded} while running a flow against the real back-end,
+ * which can be replayed by the {@linkplain MockMcBackEndContainer mock back-end}.
+ * </p>
+ * <p>
+ * A fixture file is a JSON object with an {@code exchanges} array.
+ * Each exchange has a {@code route} (such as {@code "POST /api/game/...?join"}),
+ * the {@code status} of the response, and, if they are not empty,
+ * the significant {@code headers} of the response and its {@code body}.
+ * JSON bodies are stored as JSON, rather than as strings, so the files are compact and readable.
+ * Consecutive identical exchanges are stored once, with a {@code times} count.
+ * </p>
+ * <p>
+ * When a fixture is {@linkplain #load(String) loaded}, each route responds with its recorded responses in order,
+ * and then repeats its last response indefinitely, so a replay tolerates the front-end
+ * polling or reloading more often than it did while being recorded.
+ * </p>
+ */
+final class BackEndFixture {
+
+    /**
+     * <p>
+     * The resource directory holding the fixtures that can be {@linkplain #load(String) loaded}.
+     * </p>
+     */
+    static final String RESOURCE_DIRECTORY = "fixtures";
+
+    /**
+     * <p>
+     * The response headers that are recorded; the others describe the transfer or the server,
+     * and do not affect the front-end.
+     * </p>
+     */
+    private static final Set<String> RECORDED_HEADERS = Set.of("content-type", "location", "set-cookie");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<String, ExpectationBundle> LOADED = new ConcurrentHashMap<>();
+
+    private BackEndFixture() {
+        throw new AssertionError("Class should not be instantiated");
+    }
+
+    /**
+     * <p>
+     * One request to the back-end, and its response.
+     * </p>
+     */
+    @Immutable
+    @SuppressFBWarnings(value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"}, justification = "body never modified")
+    record Exchange(
+            @Nonnull RouteKey route,
+            @Nonnegative int status,
+            @Nonnull List<Map.Entry<String, String>> headers,
+            @Nonnull byte[] body) {
+
+        Exchange {
+            Objects.requireNonNull(route, "route");
+            headers = headers.stream()
+                    .filter(header -> RECORDED_HEADERS.contains(header.getKey().toLowerCase()))
+                    .map(header -> Map.entry(header.getKey(), header.getValue()))
+                    .toList();
+            Objects.requireNonNull(body, "body");
+        }
+
+        private boolean isSameAs(@Nonnull final Exchange that) {
+            return route.equals(that.route) && status == that.status
+                    && headers.equals(that.headers) && Arrays.equals(body, that.body);
+        }
+    }
+
+    /**
+     * <p>
+     * Write a fixture file.
+     * </p>
+     *
+     * @throws UncheckedIOException If the file could not be written.
+     */
+    static void write(@Nonnull final List<Exchange> exchanges, @Nonnull final Path file) {
+        final var root = JsonNodeFactory.instance.objectNode();
+        final var array = root.putArray("exchanges");
+        Exchange previous = null;
+        ObjectNode previousNode = null;
+        int times = 0;
+        for (final var exchange : exchanges) {
+            if (previous != null && previous.isSameAs(exchange)) {
+                ++times;
+                previousNode.put("times", times);
+            } else {
+                previous = exchange;
+                previousNode = encode(exchange, array.addObject());
+                times = 1;
+            }
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), root);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Nonnull
+    private static ObjectNode encode(@Nonnull final Exchange exchange, @Nonnull final ObjectNode node) {
+        node.put("route", exchange.route().toString());
+        node.put("status", exchange.status());
+        if (!exchange.headers().isEmpty()) {
+            final ArrayNode headers = node.putArray("headers");
+            exchange.headers().forEach(header -> headers.addArray().add(header.getKey()).add(header.getValue()));
+        }
+        if (0 < exchange.body().length) {
+            final var text = new String(exchange.body(), StandardCharsets.UTF_8);
+            final var json = MockMcBackEndContainer.decodeJson(text);
+            /* Store only objects and arrays as JSON, so a string body is always the text of the body. */
+            if (json == null || !json.isContainerNode()) {
+                node.put("body", text);
+            } else {
+                node.set("body", json);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * <p>
+     * Load a fixture from the {@linkplain #RESOURCE_DIRECTORY fixture resources},
+     * as a bundle of expectations for the mock back-end.
+     * </p>
+     * <p>
+     * Each fixture is read and encoded only once, however often it is loaded.
+     * </p>
+     *
+     * @param name The name of the fixture; the name of its file, without the {@code .json} extension.
+     * @throws IllegalArgumentException If there is no such fixture, or it is not a valid fixture.
+     */
+    @Nonnull
+    static ExpectationBundle load(@Nonnull final String name) {
+        Objects.requireNonNull(name, "name");
+        return LOADED.computeIfAbsent(name, n -> {
+            final var resource = RESOURCE_DIRECTORY + "/" + n + ".json";
+            try (InputStream input = BackEndFixture.class.getClassLoader().getResourceAsStream(resource)) {
+                if (input == null) {
+                    throw new IllegalArgumentException("No fixture " + n);
+                }
+                return read(n, input);
+            } catch (final IOException e) {
+                throw new IllegalArgumentException("Unable to read fixture " + n, e);
+            }
+        });
+    }
+
+    @Nonnull
+    static ExpectationBundle read(@Nonnull final String name, @Nonnull final InputStream input) throws IOException {
+        final var exchanges = MAPPER.readTree(input).path("exchanges");
+        if (!exchanges.isArray()) {
+            throw new IllegalArgumentException("Not a fixture");
+        }
+        /* Group by route, so the last response of each route can be repeated. */
+        final Map<RouteKey, List<JsonNode>> byRoute = new LinkedHashMap<>();
+        for (final var exchange : exchanges) {
+            byRoute.computeIfAbsent(parseRoute(exchange.path("route").asText()), r -> new ArrayList<>()).add(exchange);
+        }
+        final var builder = ExpectationBundle.builder(name);
+        byRoute.forEach((route, routeExchanges) -> {
+            for (int e = 0; e < routeExchanges.size(); ++e) {
+                final var exchange = routeExchanges.get(e);
+                final var times = e + 1 < routeExchanges.size()
+                        ? Times.exactly(exchange.path("times").asInt(1))
+                        : Times.unlimited();
+                builder.expect(route, times, decodeResponse(exchange));
+            }
+        });
+        return builder.build();
+    }
+
+    @Nonnull
+    private static RouteKey parseRoute(@Nonnull final String route) {
+        final int space = route.indexOf(' ');
+        if (space <= 0) {
+            throw new IllegalArgumentException("Invalid route " + route);
+        }
+        final var target = route.substring(space + 1);
+        final int question = target.indexOf('?');
+        return question < 0
+                ? new RouteKey(route.substring(0, space), target, "")
+                : new RouteKey(route.substring(0, space), target.substring(0, question), target.substring(question + 1));
+    }
+
+    @Nonnull
+    private static MockResponse decodeResponse(@Nonnull final JsonNode exchange) {
+        final var status = HttpResponseStatus.valueOf(exchange.path("status").asInt());
+        final List<Map.Entry<CharSequence, String>> headers = new ArrayList<>();
+        for (final var header : exchange.path("headers")) {
+            headers.add(Map.entry(header.path(0).asText(), header.path(1).asText()));
+        }
+        final var body = exchange.path("body");
+        final byte[] bytes;
+        if (body.isMissingNode()) {
+            bytes = new byte[0];
+        } else if (body.isTextual()) {
+            bytes = body.asText().getBytes(StandardCharsets.UTF_8);
+        } else {
+            bytes = MockMcBackEndContainer.encodeAsJson(body);
+        }
+        return new MockResponse(status, List.copyOf(headers), bytes);
+    }
+}
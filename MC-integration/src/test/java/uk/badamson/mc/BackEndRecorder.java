@@ -0,0 +1,184 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.reactivestreams.Publisher;
+import org.testcontainers.lifecycle.Startable;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import uk.badamson.mc.BackEndFixture.Exchange;
+import uk.badamson.mc.MockMcBackEndContainer.RouteKey;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A reverse proxy, running within this JVM, that forwards requests to the real back-end,
+ * and records the exchanges as {@linkplain BackEndFixture fixtures} for the mock back-end.
+ * </p>
+ * <p>
+ * It is placed between the ingress and the back-end,
+ * in the same way as the {@linkplain MockMcBackEndContainer mock back-end},
+ * so it records exactly the exchanges of the front-end with the back-end.
+ * Exchanges are recorded only between {@link #beginRecording()} and {@link #endRecording(Path)}.
+ * Exchanges of concurrent tests would be recorded together,
+ * so recording should be done with only one browser.
+ * </p>
+ */
+final class BackEndRecorder implements Startable {
+
+    private final Supplier<URI> backEnd;
+    private final HttpClient client = HttpClient.create();
+    @Nullable
+    private DisposableServer server;
+    @Nullable
+    private List<Exchange> recording;
+
+    /**
+     * @param backEnd Provides the base URI of the back-end, when requests are forwarded to it.
+     */
+    BackEndRecorder(@Nonnull final Supplier<URI> backEnd) {
+        this.backEnd = Objects.requireNonNull(backEnd, "backEnd");
+    }
+
+    @Override
+    public synchronized void start() {
+        if (server == null) {
+            server = HttpServer.create()
+                    .host("0.0.0.0")
+                    .port(0)
+                    .handle(this::handle)
+                    .bindNow();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+
+    /**
+     * <p>
+     * The host port on which the proxy is listening.
+     * </p>
+     *
+     * @throws IllegalStateException If the proxy has not been {@linkplain #start() started}.
+     */
+    synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("not started");
+        }
+        return server.port();
+    }
+
+    /**
+     * <p>
+     * Start recording exchanges, discarding any exchanges already recorded.
+     * </p>
+     */
+    synchronized void beginRecording() {
+        recording = new ArrayList<>();
+    }
+
+    /**
+     * <p>
+     * Stop recording exchanges, and write the exchanges recorded to a fixture file.
+     * </p>
+     * <p>
+     * Does nothing if no exchanges were recorded.
+     * </p>
+     */
+    void endRecording(@Nonnull final Path file) {
+        Objects.requireNonNull(file, "file");
+        final List<Exchange> exchanges;
+        synchronized (this) {
+            exchanges = recording;
+            recording = null;
+        }
+        if (exchanges != null && !exchanges.isEmpty()) {
+            BackEndFixture.write(exchanges, file);
+        }
+    }
+
+    private synchronized void record(@Nonnull final Exchange exchange) {
+        if (recording != null) {
+            recording.add(exchange);
+        }
+    }
+
+    private Publisher<Void> handle(
+            @Nonnull final HttpServerRequest request,
+            @Nonnull final HttpServerResponse response) {
+        final var uri = new QueryStringDecoder(request.uri());
+        final var route = new RouteKey(request.method().name(), uri.path(),
+                RouteKey.createQuery(uri.parameters().keySet()));
+        final HttpHeaders requestHeaders = request.requestHeaders().copy().remove(HttpHeaderNames.HOST);
+        return request.receive().aggregate().asByteArray()
+                .defaultIfEmpty(new byte[0])
+                .flatMap(body -> client
+                        .headers(headers -> headers.set(requestHeaders))
+                        .request(request.method())
+                        .uri(backEnd.get().resolve(request.uri()).toString())
+                        .send(body.length == 0 ? Mono.empty() : ByteBufFlux.fromInbound(Mono.just(body)))
+                        .responseSingle((backEndResponse, content) -> content.asByteArray()
+                                .defaultIfEmpty(new byte[0])
+                                .map(responseBody -> {
+                                    final HttpHeaders responseHeaders = backEndResponse.responseHeaders().copy()
+                                            .remove(HttpHeaderNames.TRANSFER_ENCODING)
+                                            .remove(HttpHeaderNames.CONNECTION)
+                                            .set(HttpHeaderNames.CONTENT_LENGTH, responseBody.length);
+                                    final List<Map.Entry<String, String>> headers = responseHeaders.entries();
+                                    record(new Exchange(route, backEndResponse.status().code(), headers, responseBody));
+                                    return new Forwarded(backEndResponse.status(), responseHeaders, responseBody);
+                                })))
+                .flatMap(forwarded -> forwarded.send(response));
+    }
+
+    @SuppressFBWarnings(value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"}, justification = "body never modified")
+    private record Forwarded(@Nonnull HttpResponseStatus status, @Nonnull HttpHeaders headers, @Nonnull byte[] body) {
+
+        Mono<Void> send(@Nonnull final HttpServerResponse response) {
+            response.status(status);
+            response.headers(headers);
+            return response.sendByteArray(Mono.just(body)).then();
+        }
+    }
+}
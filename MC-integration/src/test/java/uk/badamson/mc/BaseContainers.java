@@ -4,38 +4,131 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.remote.RemoteWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.BrowserWebDriverContainer;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.Network;
+import org.testcontainers.containers.SeleniumUtils;
+import org.testcontainers.containers.output.FrameConsumerResultCallback;
+import org.testcontainers.containers.output.OutputFrame;
 import org.testcontainers.lifecycle.Startable;
 import org.testcontainers.lifecycle.TestDescription;
 import org.testcontainers.lifecycle.TestLifecycleAware;
+import org.testcontainers.utility.DockerImageName;
 import uk.badamson.mc.presentation.McFrontEndContainer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.OverridingMethodsMustInvokeSuper;
 import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
 
 @SuppressFBWarnings(value="NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification="SpotBugs itself buggy")
 abstract class BaseContainers implements Startable, TestLifecycleAware {
     private static final String FE_HOST = "fe";
     private static final Capabilities CAPABILITIES = new FirefoxOptions().addPreference("security.insecure_field_warning.contextual.enabled", false);
 
+    /**
+     * <p>
+     * The number of browsers in the pool; the maximum number of tests that can use the containers concurrently.
+     * Set by the {@code mc.browsers} system property.
+     * </p>
+     */
+    static final int N_BROWSERS = Math.max(1, Integer.getInteger("mc.browsers", 1));
+
+    private static final Duration LEASE_BROWSER_TIMEOUT = Duration.ofMinutes(10);
+
+    /**
+     * <p>
+     * The image of the browser containers: the one Testcontainers would choose for Firefox
+     * and the version of Selenium we use.
+     * </p>
+     */
+    static final DockerImageName BROWSER_IMAGE = DockerImageName.parse("selenium/standalone-firefox")
+            .withTag(SeleniumUtils.determineClasspathSeleniumVersion());
+
+    private static final AtomicInteger N_STACKS = new AtomicInteger(0);
+
+    /**
+     * <p>
+     * The label holding the {@linkplain #BaseContainers(Path, String) fingerprint}
+     * of reusable containers.
+     * Stale reusable containers can be removed using
+     * {@code docker rm -f $(docker ps -aq --filter label=uk.badamson.mc.fingerprint)}.
+     * </p>
+     */
+    static final String FINGERPRINT_LABEL = "uk.badamson.mc.fingerprint";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BaseContainers.class);
+    private static final Duration HEALTH_CHECK_TIMEOUT = Duration.ofSeconds(5);
+    private static final HttpClient HEALTH_CHECK_CLIENT = HttpClient.newBuilder()
+            .connectTimeout(HEALTH_CHECK_TIMEOUT)
+            .build();
+
     @Nullable
     private final Path failureRecordingDirectory;
-    private final Network network = Network.newNetwork();
+    @Nullable
+    private final String reuseFingerprint;
+    private final Network network;
     private final McFrontEndContainer frontEnd;
-    private final BrowserWebDriverContainer<?> browser;
+    private final List<BrowserLease> browsers;
+    private final BlockingQueue<BrowserLease> availableBrowsers = new LinkedBlockingQueue<>();
+    private volatile Map<String, Duration> startupDurations = Map.of();
+    private final int stackId = N_STACKS.incrementAndGet();
+    private final Map<String, ContainerLogRecorder> logRecorders = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Long>> testLogMarks = new ConcurrentHashMap<>();
+    private final LogAnalyzer logAnalyzer = new LogAnalyzer();
+    private final Instant runStart = Instant.now();
+    private final Map<GenericContainer<?>, Consumer<OutputFrame>> reusableLogAnalysis =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+    private final List<FrameConsumerResultCallback> logFollowers = new CopyOnWriteArrayList<>();
 
     protected BaseContainers(@Nullable Path failureRecordingDirectory) {
+        this(failureRecordingDirectory, null);
+    }
+
+    /**
+     * @param reuseFingerprint A fingerprint of the images, configuration and credentials of the containers,
+     *                         if containers {@linkplain #makeReusable(GenericContainer) made reusable}
+     *                         are to be kept running for use by later test runs (JVMs),
+     *                         or {@code null} if the containers are not to be reused.
+     *                         Containers are reused only by stacks having the same fingerprint.
+     */
+    protected BaseContainers(@Nullable Path failureRecordingDirectory, @Nullable final String reuseFingerprint) {
         this.failureRecordingDirectory = failureRecordingDirectory;
+        this.reuseFingerprint = reuseFingerprint;
+        network = reuseFingerprint == null
+                ? Network.newNetwork()
+                : new ReusableNetwork("mc-web-" + reuseFingerprint.substring(0, Math.min(16, reuseFingerprint.length())));
+        ImagePrefetch.start();
         if (failureRecordingDirectory != null) {
             try {
                 Files.createDirectories(failureRecordingDirectory);
@@ -46,70 +139,311 @@ abstract class BaseContainers implements Startable, TestLifecycleAware {
         frontEnd = new McFrontEndContainer();
         frontEnd.withNetwork(getNetwork());
         frontEnd.withNetworkAliases(FE_HOST);
-        browser = createBrowserContainer(network, failureRecordingDirectory);
+        makeReusable(frontEnd);
+        recordLogs(FE_HOST, frontEnd);
+        final List<BrowserLease> browsers = new ArrayList<>(N_BROWSERS);
+        for (int b = 0; b < N_BROWSERS; ++b) {
+            final var browser = createBrowserContainer(network, failureRecordingDirectory);
+            browser.withLogConsumer(logAnalyzer.createConsumer(getBrowserName(b)));
+            browsers.add(new BrowserLease(b, browser));
+        }
+        this.browsers = List.copyOf(browsers);
+        availableBrowsers.addAll(browsers);
     }
 
     @Nonnull
     private static BrowserWebDriverContainer<?> createBrowserContainer(
             @Nonnull Network network,
             @Nullable final Path failureRecordingDirectory) {
-        final var browser = new BrowserWebDriverContainer<>();
+        final var browser = new BrowserWebDriverContainer<>(BROWSER_IMAGE);
         browser.withCreateContainerCmdModifier(cmd -> Objects.requireNonNull(Objects.requireNonNull(cmd).getHostConfig())
                 .withCpuCount(2L));
         browser.withCapabilities(CAPABILITIES);
         browser.withNetwork(network);
         if (failureRecordingDirectory != null) {
-            browser.withRecordingMode(BrowserWebDriverContainer.VncRecordingMode.RECORD_ALL, failureRecordingDirectory.toFile());
+            browser.withRecordingMode(BrowserWebDriverContainer.VncRecordingMode.RECORD_FAILING, failureRecordingDirectory.toFile());
         }
         return browser;
     }
 
+    /**
+     * <p>
+     * Write a log file {@linkplain ArtifactWriter in the background}.
+     * </p>
+     */
     protected static void retainLogFile(
             @Nonnull final Path directory,
             @Nonnull final String baseFileName,
             @Nonnull final String host,
-            @Nonnull final GenericContainer<?> container) {
+            @Nonnull final String logs) {
         final String leafName = baseFileName + "-" + host + ".log";
         final Path path = directory.resolve(leafName);
+        ArtifactWriter.submit(leafName, () -> Files.writeString(path, logs, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * <p>
+     * Scan the output of a container for error messages as it is produced, and
+     * stream it to a log file,
+     * so {@linkplain #retainLogFiles(String) the log files of each test} can be made cheaply.
+     * </p>
+     * <p>
+     * The output is written to a file only if these containers make records of failures.
+     * Must be called before the container is started,
+     * and after it has been {@linkplain #makeReusable(GenericContainer) made reusable}, if it is reusable.
+     * </p>
+     * <p>
+     * A reused container has output from earlier runs, which is not scanned for error messages.
+     * Its output is therefore scanned only once it has been {@linkplain #startReusable(GenericContainer, BooleanSupplier) started},
+     * and only from the start of this run.
+     * </p>
+     */
+    protected final void recordLogs(@Nonnull final String host, @Nonnull final GenericContainer<?> container) {
+        final var analyzer = logAnalyzer.createConsumer(host);
+        if (reuseFingerprint != null && container.isShouldBeReused()) {
+            reusableLogAnalysis.put(container, analyzer);
+        } else {
+            container.withLogConsumer(analyzer);
+        }
+        if (failureRecordingDirectory != null) {
+            final var recorder = new ContainerLogRecorder(
+                    failureRecordingDirectory.resolve("stack" + stackId + "-" + host + ".log"));
+            logRecorders.put(host, recorder);
+            container.withLogConsumer(recorder);
+        }
+    }
+
+    /**
+     * <p>
+     * Whether containers {@linkplain #makeReusable(GenericContainer) made reusable}
+     * are kept running for use by later test runs.
+     * </p>
+     */
+    protected final boolean isReusingContainers() {
+        return reuseFingerprint != null;
+    }
+
+    /**
+     * <p>
+     * Make a container one that is kept running for use by later test runs,
+     * if these containers are {@linkplain #isReusingContainers() reusing containers}.
+     * </p>
+     * <p>
+     * A reusable container must not be stopped or closed while reusing containers.
+     * Must be called before the container is started.
+     * </p>
+     */
+    protected final void makeReusable(@Nonnull final GenericContainer<?> container) {
+        if (reuseFingerprint != null) {
+            container.withReuse(true);
+            container.withLabel(FINGERPRINT_LABEL, reuseFingerprint);
+        }
+    }
+
+    /**
+     * <p>
+     * Start a container that might be {@linkplain #makeReusable(GenericContainer) reusable},
+     * replacing it if it is not healthy.
+     * </p>
+     * <p>
+     * A container reused from an earlier test run might have been left in a bad state,
+     * so it is checked before use.
+     * </p>
+     */
+    protected final void startReusable(@Nonnull final GenericContainer<?> container, @Nonnull final BooleanSupplier isHealthy) {
+        container.start();
+        if (reuseFingerprint != null && !isHealthy.getAsBoolean()) {
+            LOGGER.warn("Replacing unhealthy reused container {}", container.getContainerName());
+            container.stop();
+            container.start();
+        }
+        final var analyzer = reusableLogAnalysis.get(container);
+        if (analyzer != null) {
+            analyzeLogsSinceRunStart(container, analyzer);
+        }
+    }
+
+    private void analyzeLogsSinceRunStart(
+            @Nonnull final GenericContainer<?> container, @Nonnull final Consumer<OutputFrame> analyzer) {
+        final var callback = new FrameConsumerResultCallback();
+        callback.addConsumer(OutputFrame.OutputType.STDOUT, analyzer);
+        callback.addConsumer(OutputFrame.OutputType.STDERR, analyzer);
+        container.getDockerClient().logContainerCmd(container.getContainerId())
+                .withStdOut(true).withStdErr(true)
+                .withFollowStream(true)
+                .withSince((int) runStart.getEpochSecond())
+                .exec(callback);
+        logFollowers.add(callback);
+    }
+
+    /**
+     * <p>
+     * Whether an HTTP server responds to a GET request for a URI without a server error,
+     * for checking the health of a container.
+     * </p>
+     */
+    protected static boolean respondsWithoutServerError(@Nonnull final URI uri) {
+        final var request = HttpRequest.newBuilder(uri).timeout(HEALTH_CHECK_TIMEOUT).GET().build();
         try {
-            Files.writeString(path, container.getLogs(), StandardCharsets.UTF_8);
+            return HEALTH_CHECK_CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 500;
         } catch (final IOException e) {
-            throw new RuntimeException(e);
+            return false;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
-    protected static void startInParallel(@Nonnull GenericContainer<?>... containers) {
-        Stream.of(containers).parallel().forEach(GenericContainer::start);
+    /**
+     * <p>
+     * Create a scheduler for starting these containers,
+     * which already has the tasks for starting the front-end and browser containers.
+     * Those containers depend on no other containers.
+     * </p>
+     */
+    @Nonnull
+    protected final StartupScheduler createStartupScheduler() {
+        final var scheduler = new StartupScheduler();
+        scheduler.add(FE_HOST, () -> startReusable(frontEnd, () -> respondsWithoutServerError(
+                URI.create("http://" + frontEnd.getHost() + ":" + frontEnd.getFirstMappedPort() + "/"))));
+        for (final var browser : browsers) {
+            scheduler.add(getBrowserName(browser.getIndex()), browser.getContainer()::start);
+        }
+        return scheduler;
+    }
+
+    /**
+     * <p>
+     * Run a start-up schedule, and record how long each container took to start.
+     * </p>
+     */
+    protected final void start(@Nonnull final StartupScheduler scheduler) {
+        try {
+            scheduler.run();
+        } finally {
+            startupDurations = scheduler.getDurations();
+        }
+    }
+
+    /**
+     * <p>
+     * How long each container took to start, the last time these containers were started.
+     * </p>
+     */
+    @Nonnull
+    public final Map<String, Duration> getStartupDurations() {
+        return startupDurations;
+    }
+
+    @Nonnull
+    private static String getBrowserName(final int index) {
+        return "browser" + index;
+    }
+
+    /**
+     * <p>
+     * Stop all the browser containers, ending their web driver sessions first.
+     * </p>
+     */
+    protected final void stopBrowsers() {
+        browsers.forEach(BrowserLease::quit);
+        getBrowsers().forEach(GenericContainer::stop);
     }
 
     @OverridingMethodsMustInvokeSuper
     @Override
     public void close() {
-        browser.close();
-        frontEnd.close();
+        browsers.forEach(BrowserLease::quit);
+        getBrowsers().forEach(GenericContainer::close);
+        if (!isReusingContainers()) {
+            frontEnd.close();
+        }
         network.close();
+        logRecorders.values().forEach(ContainerLogRecorder::close);
+        for (final var follower : logFollowers) {
+            try {
+                follower.close();
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to stop following logs", e);
+            }
+        }
+        logFollowers.clear();
     }
 
+    /**
+     * <p>
+     * Prepare for a test.
+     * </p>
+     * <p>
+     * The browser used by the test is prepared separately, by its {@link BrowserLease}.
+     * </p>
+     */
     @OverridingMethodsMustInvokeSuper
     @Override
     public void beforeTest(final TestDescription description) {
-        getBrowser().beforeTest(description);
+        logAnalyzer.beginTest(description.getFilesystemFriendlyName());
+        if (failureRecordingDirectory != null) {
+            final Map<String, Long> marks = new HashMap<>();
+            logRecorders.forEach((host, recorder) -> marks.put(host, recorder.mark()));
+            testLogMarks.put(description.getFilesystemFriendlyName(), marks);
+        }
     }
 
     @OverridingMethodsMustInvokeSuper
     @Override
     public void afterTest(final TestDescription description, final Optional<Throwable> throwable) {
-        getBrowser().afterTest(description, throwable);
-        if (getFailureRecordingDirectory() != null) {
-            final var prefix = description.getFilesystemFriendlyName();
+        final var prefix = description.getFilesystemFriendlyName();
+        logAnalyzer.endTest(prefix);
+        if (getFailureRecordingDirectory() != null && throwable.isPresent()) {
             retainLogFiles(prefix);
+        } else {
+            testLogMarks.remove(prefix);
         }
     }
 
+    /**
+     * <p>
+     * Write the log files of a failed test, holding only the output the containers produced during the test.
+     * </p>
+     * <p>
+     * The files are written {@linkplain ArtifactWriter in the background},
+     * but hold only the output produced before this method was called.
+     * </p>
+     */
     @OverridingMethodsMustInvokeSuper
     protected void retainLogFiles(final String prefix) {
-        assert getFailureRecordingDirectory() != null;
-        retainLogFile(getFailureRecordingDirectory(), prefix, FE_HOST, frontEnd);
+        assert failureRecordingDirectory != null;
+        final var marks = Objects.requireNonNullElse(testLogMarks.remove(prefix), Map.<String, Long>of());
+        logRecorders.forEach((host, recorder) -> {
+            final long start = marks.getOrDefault(host, 0L);
+            final long end = recorder.mark();
+            final var leafName = prefix + "-" + host + ".log";
+            final var destination = failureRecordingDirectory.resolve(leafName);
+            ArtifactWriter.submit(leafName, () -> recorder.copy(start, end, destination));
+        });
+    }
+
+    /**
+     * <p>
+     * Assert that none of the containers has logged an error message since the start of this run.
+     * </p>
+     */
+    public final void assertThatNoErrorMessagesLogged() {
+        logAnalyzer.getCounts().forEach((container, counts) ->
+                assertThat(container + " logs no errors " + logAnalyzer.getExampleErrors(container),
+                        counts.errors(), is(0L)));
+    }
+
+    /**
+     * <p>
+     * Assert that none of the containers logged an error message during a test that has ended.
+     * </p>
+     *
+     * @param test The {@linkplain TestDescription#getFilesystemFriendlyName() name} of the test.
+     */
+    public final void assertThatNoErrorMessagesLoggedDuring(@Nonnull final String test) {
+        logAnalyzer.getCountsByTest().getOrDefault(test, Map.of()).forEach((container, counts) ->
+                assertThat(container + " logs no errors during " + test, counts.errors(), is(0L)));
     }
 
     @Nullable
@@ -117,14 +451,40 @@ abstract class BaseContainers implements Startable, TestLifecycleAware {
         return failureRecordingDirectory;
     }
 
+    /**
+     * <p>
+     * Take exclusive use of one of the browsers in the pool, waiting until one is available.
+     * </p>
+     * <p>
+     * The caller must {@linkplain #returnBrowser(BrowserLease) return} the browser when finished with it.
+     * </p>
+     */
     @Nonnull
-    public final RemoteWebDriver createWebDriver() {
-        return new RemoteWebDriver(getBrowser().getSeleniumAddress(), CAPABILITIES);
+    final BrowserLease leaseBrowser() {
+        final BrowserLease lease;
+        try {
+            lease = availableBrowsers.poll(LEASE_BROWSER_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser", e);
+        }
+        if (lease == null) {
+            throw new IllegalStateException("No browser became available");
+        }
+        return lease;
+    }
+
+    final void returnBrowser(@Nonnull final BrowserLease lease) {
+        Objects.requireNonNull(lease, "lease");
+        if (!browsers.contains(lease)) {
+            throw new IllegalArgumentException("Not a browser of these containers");
+        }
+        availableBrowsers.add(lease);
     }
 
     @Nonnull
-    protected final BrowserWebDriverContainer<?> getBrowser() {
-        return browser;
+    protected final List<BrowserWebDriverContainer<?>> getBrowsers() {
+        return browsers.stream().<BrowserWebDriverContainer<?>>map(BrowserLease::getContainer).toList();
     }
 
     @Nonnull
@@ -136,4 +496,59 @@ abstract class BaseContainers implements Startable, TestLifecycleAware {
     protected final Network getNetwork() {
         return network;
     }
+
+    /**
+     * <p>
+     * One of the browsers in the pool, and its web driver session.
+     * </p>
+     * <p>
+     * The web driver session is created when first needed, and is reused by all the tests that lease the browser.
+     * </p>
+     */
+    static final class BrowserLease {
+        private final int index;
+        @Nonnull
+        private final BrowserWebDriverContainer<?> container;
+        @Nullable
+        private RemoteWebDriver webDriver;
+
+        private BrowserLease(final int index, @Nonnull final BrowserWebDriverContainer<?> container) {
+            this.index = index;
+            this.container = container;
+        }
+
+        /**
+         * <p>
+         * The position of this browser in the pool, counting from 0.
+         * </p>
+         */
+        int getIndex() {
+            return index;
+        }
+
+        @Nonnull
+        BrowserWebDriverContainer<?> getContainer() {
+            return container;
+        }
+
+        @Nonnull
+        synchronized RemoteWebDriver getWebDriver() {
+            if (webDriver == null) {
+                webDriver = new RemoteWebDriver(container.getSeleniumAddress(), CAPABILITIES);
+            }
+            return webDriver;
+        }
+
+        private synchronized void quit() {
+            if (webDriver != null) {
+                try {
+                    webDriver.quit();
+                } catch (final RuntimeException e) {
+                    // The browser container may already have stopped; the session is gone anyway
+                } finally {
+                    webDriver = null;
+                }
+            }
+        }
+    }
 }
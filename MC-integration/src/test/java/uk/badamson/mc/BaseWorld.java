@@ -20,104 +20,270 @@ package uk.badamson.mc;
 
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.remote.RemoteWebDriver;
 import org.testcontainers.lifecycle.Startable;
 import org.testcontainers.lifecycle.TestDescription;
 import org.testcontainers.lifecycle.TestLifecycleAware;
 import uk.badamson.mc.presentation.HomePage;
+import uk.badamson.mc.presentation.PageTimings;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 public abstract class BaseWorld implements Startable, TestLifecycleAware {
     protected static final Path DEFAULT_FAILURE_RECORDING_DIRECTORY = Path.of(".", "target", "test-logs");
 
+    /**
+     * <p>
+     * The number of users, having each role, to create before they are needed.
+     * </p>
+     */
+    private static final int USER_POOL_RESERVE = 4;
+    private static final int USER_POOL_CONCURRENCY = 4;
+
+    /**
+     * <p>
+     * Whether worlds should use the {@linkplain SharedContainers shared} stack of containers
+     * unless they explicitly request a dedicated stack.
+     * Set the {@code mc.containers.shared} system property to {@code false} to have every world
+     * use its own stack.
+     * </p>
+     */
+    public static final boolean SHARE_CONTAINERS_BY_DEFAULT = Boolean.parseBoolean(
+            System.getProperty("mc.containers.shared", "true"));
+
+    /*
+     * JVM-wide, so users created through different worlds using a shared stack have unique names.
+     */
+    private static final AtomicInteger N_USERS = new AtomicInteger(0);
+
     private final Path failureRecordingDirectory;
-    @Nullable
-    private RemoteWebDriver webDriver;
-    private int nUsers;
+    private final boolean sharedContainers;
+    private final UserPool userPool = new UserPool(this::createUserNow, USER_POOL_RESERVE, USER_POOL_CONCURRENCY);
+    /*
+     * The browser leased by the test running on each thread, so several tests can run concurrently.
+     */
+    private final ThreadLocal<BaseContainers.BrowserLease> browserLease = new ThreadLocal<>();
+    private volatile boolean running;
+    private boolean released;
 
-    protected BaseWorld(@Nullable final Path failureRecordingDirectory) {
+    /**
+     * @param failureRecordingDirectory The location of a directory in which to store files holding
+     *                                  verbose information about failed test cases. Or {@code null} if
+     *                                  no such records are to be made.
+     * @param sharedContainers          Whether the {@linkplain #getContainers() containers} are a
+     *                                  {@linkplain SharedContainers shared} stack, which this world
+     *                                  must not stop or close.
+     */
+    protected BaseWorld(@Nullable final Path failureRecordingDirectory, final boolean sharedContainers) {
         this.failureRecordingDirectory = failureRecordingDirectory;
+        this.sharedContainers = sharedContainers;
+    }
+
+    protected BaseWorld(@Nullable final Path failureRecordingDirectory) {
+        this(failureRecordingDirectory, false);
     }
 
     @Override
     public final void start() {
-        var containers = getContainers();
-        containers.start();
-        webDriver = containers.createWebDriver();
+        startContainers();
+        running = true;
+        prepareContainers();
+        userPool.warm(getAuthoritySetsToPreProvision());
+    }
+
+    /**
+     * <p>
+     * Put the started {@linkplain #getContainers() containers} into a suitable state for use by this world.
+     * </p>
+     * <p>
+     * Called before any users are created in advance.
+     * The provided implementation does nothing.
+     * </p>
+     */
+    protected void prepareContainers() {
+        // Do nothing
+    }
+
+    private void startContainers() {
+        if (sharedContainers) {
+            SharedContainers.ensureStarted(getContainers());
+        } else {
+            getContainers().start();
+        }
     }
 
     @Override
     public final void stop() {
-        getContainers().stop();
+        userPool.clear();
+        if (running) {
+            running = false;
+            if (!sharedContainers) {
+                getContainers().stop();
+            }
+        }
     }
 
+    /**
+     * <p>
+     * Whether this world uses a {@linkplain SharedContainers shared} stack of containers.
+     * </p>
+     */
+    public final boolean isUsingSharedContainers() {
+        return sharedContainers;
+    }
+
+    /**
+     * <p>
+     * Prepare for a test run by the current thread.
+     * </p>
+     * <p>
+     * The test is given exclusive use of one of the browsers of the {@linkplain #getContainers() containers},
+     * until {@link #afterTest(TestDescription, Optional)} is called on the same thread.
+     * Tests may therefore be run concurrently, on different threads.
+     * </p>
+     */
     @Override
     public final void beforeTest(final TestDescription description) {
-        if (webDriver == null) {
+        if (!running) {
             throw new IllegalStateException("not started");
         }
-        webDriver.manage().deleteAllCookies();
+        if (browserLease.get() != null) {
+            throw new IllegalStateException("test already in progress on this thread");
+        }
+        final var lease = getContainers().leaseBrowser();
+        browserLease.set(lease);
+        lease.getWebDriver().manage().deleteAllCookies();
+        lease.getContainer().beforeTest(description);
         getContainers().beforeTest(description);
     }
 
     @Override
     public final void afterTest(final TestDescription description, final Optional<Throwable> throwable) {
-        getContainers().afterTest(description, throwable);
-        if (failureRecordingDirectory != null) {
-            String baseFileName = description.getFilesystemFriendlyName();
-            retainScreenshot(baseFileName);
+        final var lease = getBrowserLease();
+        final long start = System.nanoTime();
+        try {
+            lease.getContainer().afterTest(description, throwable);
+            getContainers().afterTest(description, throwable);
+            if (failureRecordingDirectory != null) {
+                if (throwable.isPresent()) {
+                    retainScreenshot(lease, createBaseFileName(description, lease));
+                    ArtifactWriter.recordFailedTest(Duration.ofNanos(System.nanoTime() - start));
+                } else {
+                    ArtifactWriter.recordPassedTest();
+                }
+            }
+        } finally {
+            browserLease.remove();
+            getContainers().returnBrowser(lease);
         }
     }
 
+    @Nonnull
+    private static String createBaseFileName(
+            @Nonnull final TestDescription description,
+            @Nonnull final BaseContainers.BrowserLease lease
+    ) {
+        final var name = description.getFilesystemFriendlyName();
+        /* Identify the browser only if there could be several, so the names are unchanged otherwise. */
+        return BaseContainers.N_BROWSERS == 1 ? name : name + "-browser" + lease.getIndex();
+    }
+
 
     @PostConstruct
     public final void open() {
-        getContainers().start();
+        startContainers();
+        running = true;
     }
 
     @Override
     @PreDestroy
     public final void close() {
+        userPool.close();
         stop();
-        getContainers().close();
+        if (!sharedContainers) {
+            getContainers().close();
+        } else if (!released) {
+            released = true;
+            SharedContainers.release(getContainers());
+        }
     }
 
     public final User createUserWithRole(Authority role) {
         return createUser(EnumSet.of(role));
     }
 
+    /**
+     * <p>
+     * Provide a newly created user having a given set of authorities.
+     * </p>
+     * <p>
+     * If possible, the user is taken from a pool of users created in advance.
+     * </p>
+     */
     @Nonnull
     protected final User createUser(@Nonnull final Set<Authority> authorities) {
+        return userPool.take(authorities);
+    }
+
+    /**
+     * <p>
+     * The sets of authorities for which users should be created in advance, while the world is starting.
+     * </p>
+     * <p>
+     * By default, each of the sets having one authority.
+     * </p>
+     */
+    @Nonnull
+    protected Set<Set<Authority>> getAuthoritySetsToPreProvision() {
+        return Arrays.stream(Authority.values()).map(Set::of).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * <p>
+     * Discard any users created in advance, and start creating replacements.
+     * </p>
+     * <p>
+     * For use when the users have been deleted.
+     * </p>
+     */
+    protected final void replacePreProvisionedUsers() {
+        userPool.clear();
+        userPool.warm(getAuthoritySetsToPreProvision());
+    }
+
+    @Nonnull
+    private User createUserNow(@Nonnull final Set<Authority> authorities) {
         final var userDetails = generateBasicUserDetails(authorities);
         final var id = addUser(userDetails);
         return new User(id, userDetails);
     }
 
-    private void retainScreenshot(@Nonnull final String baseFileName) {
+    /*
+     * The screenshot must be taken before the browser is returned to the pool,
+     * but it can be written to the file later.
+     */
+    private void retainScreenshot(
+            @Nonnull final BaseContainers.BrowserLease lease,
+            @Nonnull final String baseFileName
+    ) {
         if (failureRecordingDirectory != null) {
             final String leafName = baseFileName + ".png";
             final Path path = failureRecordingDirectory.resolve(leafName);
-            try {
-                assert webDriver != null;
-                final var bytes = webDriver.getScreenshotAs(OutputType.BYTES);
-                Files.write(path, bytes);
-            } catch (final IOException e) {
-                throw new RuntimeException(e);
-            }
-
+            final var bytes = lease.getWebDriver().getScreenshotAs(OutputType.BYTES);
+            ArtifactWriter.submit(leafName, () -> Files.write(path, bytes));
         }
     }
 
     protected final BasicUserDetails generateBasicUserDetails(final Set<Authority> authorities) {
-        final var sequenceId = ++nUsers;
+        final var sequenceId = N_USERS.incrementAndGet();
         final var username = "User " + sequenceId;
         final var password = "password" + sequenceId;
         return new BasicUserDetails(username, password, authorities,
@@ -125,15 +291,25 @@ public abstract class BaseWorld implements Startable, TestLifecycleAware {
     }
 
     public final HomePage navigateToHomePage() {
+        final var start = System.nanoTime();
         final var homePage = new HomePage(getWebDriver());
         homePage.get();
         homePage.awaitIsReady();
+        PageTimings.record(PageTimings.NAVIGATE_TO, HomePage.class, start);
         return homePage;
     }
 
+    @Nonnull
+    private BaseContainers.BrowserLease getBrowserLease() {
+        final var lease = browserLease.get();
+        if (lease == null) {
+            throw new IllegalStateException("No test in progress on this thread");
+        }
+        return lease;
+    }
+
     private WebDriver getWebDriver() {
-        Objects.requireNonNull(webDriver, "webDriver");
-        return webDriver;
+        return getBrowserLease().getWebDriver();
     }
 
     @Nonnull
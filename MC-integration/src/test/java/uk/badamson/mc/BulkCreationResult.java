@@ -0,0 +1,178 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * The outcome of creating many resources, concurrently.
+ * </p>
+ * <p>
+ * Failure to create some of the resources does not cause the whole operation to fail;
+ * instead, the failures are recorded so they can be reported.
+ * </p>
+ *
+ * @param <RESOURCE> The type of the created resources.
+ */
+public final class BulkCreationResult<RESOURCE> {
+
+    @Nonnull
+    private final List<RESOURCE> created;
+    @Nonnull
+    private final List<Throwable> failures;
+    @Nonnull
+    private final Duration duration;
+
+    private BulkCreationResult(
+            @Nonnull final List<RESOURCE> created,
+            @Nonnull final List<Throwable> failures,
+            @Nonnull final Duration duration
+    ) {
+        this.created = List.copyOf(created);
+        this.failures = List.copyOf(failures);
+        this.duration = duration;
+    }
+
+    /**
+     * <p>
+     * Create resources for each of some specifications, with bounded concurrency.
+     * </p>
+     *
+     * @param specifications The specifications of the resources to create.
+     * @param concurrency    The maximum number of resources to create at the same time.
+     * @param creator        The function that creates one resource.
+     */
+    @Nonnull
+    static <SPECIFICATION, RESOURCE> BulkCreationResult<RESOURCE> create(
+            @Nonnull final Collection<SPECIFICATION> specifications,
+            @Nonnegative final int concurrency,
+            @Nonnull final Function<SPECIFICATION, RESOURCE> creator
+    ) {
+        Objects.requireNonNull(specifications, "specifications");
+        Objects.requireNonNull(creator, "creator");
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency " + concurrency);
+        }
+
+        final var start = System.nanoTime();
+        final var executor = Executors.newFixedThreadPool(Math.min(concurrency, Math.max(1, specifications.size())));
+        try {
+            final List<Future<RESOURCE>> futures = new ArrayList<>(specifications.size());
+            for (final var specification : specifications) {
+                futures.add(executor.submit(() -> creator.apply(specification)));
+            }
+            final List<RESOURCE> created = new ArrayList<>(futures.size());
+            final List<Throwable> failures = new ArrayList<>();
+            for (final var future : futures) {
+                try {
+                    created.add(future.get());
+                } catch (final ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+            return new BulkCreationResult<>(created, failures, Duration.ofNanos(System.nanoTime() - start));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while creating resources", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * <p>
+     * The resources that were successfully created.
+     * </p>
+     */
+    @Nonnull
+    public Stream<RESOURCE> getCreated() {
+        return created.stream();
+    }
+
+    @Nonnegative
+    public int getNumberCreated() {
+        return created.size();
+    }
+
+    /**
+     * <p>
+     * The reasons for failing to create resources, one for each resource that was not created.
+     * </p>
+     */
+    @Nonnull
+    public List<Throwable> getFailures() {
+        return failures;
+    }
+
+    /**
+     * <p>
+     * The elapsed time taken to create all the resources.
+     * </p>
+     */
+    @Nonnull
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * <p>
+     * The number of resources successfully created per second.
+     * </p>
+     */
+    public double getThroughput() {
+        final var seconds = duration.toNanos() * 1.0E-9;
+        return seconds <= 0.0 ? 0.0 : created.size() / seconds;
+    }
+
+    /**
+     * <p>
+     * Throw an exception if any of the resources could not be created.
+     * </p>
+     *
+     * @return this
+     */
+    @Nonnull
+    public BulkCreationResult<RESOURCE> requireNoFailures() {
+        if (!failures.isEmpty()) {
+            final var e = new IllegalStateException(this.toString(), failures.get(0));
+            failures.stream().skip(1).limit(9).forEach(e::addSuppressed);
+            throw e;
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("created %d, failed %d, in %d ms (%.1f/s)",
+                created.size(), failures.size(), duration.toMillis(), getThroughput());
+    }
+}
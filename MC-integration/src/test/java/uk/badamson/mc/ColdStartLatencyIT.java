@@ -0,0 +1,216 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.badamson.mc.McContainers.HttpServer;
+import uk.badamson.mc.rest.Paths;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * <p>
+ * Performance probe of a pristine (fresh) installation of the MC components,
+ * measuring the latency of the first request for a resource after start-up
+ * and the latency of requests after warm-up.
+ * </p>
+ * <p>
+ * This detects cold-start regressions, such as initialisation moving from start-up to the first request,
+ * which are invisible to tests that tolerate slow responses.
+ * </p>
+ * <p>
+ * The containers are never {@linkplain McContainers#McContainers(java.nio.file.Path, boolean, boolean) reused},
+ * so every server is cold when probed first.
+ * The servers are probed inside-out: the back-end, then the front-end, then the ingress.
+ * The first request through the ingress therefore measures the cold-start of the ingress
+ * itself, rather than of the servers it proxies.
+ * The HTTP client is used once, for an unrelated local server, before the first probe,
+ * so the probes do not measure the first-use cost of the client.
+ * </p>
+ * <p>
+ * The limits can be changed using the {@code mc.probe.cold-limit-ms} and {@code mc.probe.warm-limit-ms}
+ * system properties. The warm limit applies to the 95th percentile latency.
+ * </p>
+ */
+@TestMethodOrder(OrderAnnotation.class)
+@Tag("IT")
+public class ColdStartLatencyIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ColdStartLatencyIT.class);
+
+    private static final Duration COLD_LIMIT = Duration.ofMillis(Long.getLong("mc.probe.cold-limit-ms", 5000L));
+    private static final Duration WARM_LIMIT = Duration.ofMillis(Long.getLong("mc.probe.warm-limit-ms", 250L));
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final int N_WARM_UP_REQUESTS = 20;
+    private static final int N_SAMPLES = 50;
+    private static final String HOME_PATH = "/";
+
+    /*
+     * Inside-out order, and only the resources that each server provides.
+     */
+    private static final List<Probe> PROBES = List.of(
+            new Probe(HttpServer.BACK_END, Paths.SCENARIOS_PATH),
+            new Probe(HttpServer.BACK_END, Paths.SELF_PATH),
+            new Probe(HttpServer.FRONT_END, HOME_PATH),
+            new Probe(HttpServer.INGRESS, HOME_PATH),
+            new Probe(HttpServer.INGRESS, Paths.SCENARIOS_PATH),
+            new Probe(HttpServer.INGRESS, Paths.SELF_PATH));
+
+    private static final McContainers containers = new McContainers(null,
+            McContainers.EPHEMERAL_DATABASE_BY_DEFAULT, false);
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(REQUEST_TIMEOUT)
+            .build();
+
+    @BeforeAll
+    public static void open() {
+        containers.start();
+        warmUpClient();
+    }
+
+    /*
+     * The first use of an HttpClient loads and initialises much of its implementation.
+     * Make that first use a request to a local server that is not probed,
+     * so the first probe measures the cold-start of the MC server rather than of the client.
+     */
+    private static void warmUpClient() {
+        final com.sun.net.httpserver.HttpServer server;
+        try {
+            server = com.sun.net.httpserver.HttpServer.create(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Unable to create warm-up server", e);
+        }
+        server.createContext(HOME_PATH, exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            final var address = server.getAddress();
+            final var request = HttpRequest.newBuilder(
+                            URI.create("http://" + address.getHostString() + ":" + address.getPort() + HOME_PATH))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET().build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (final IOException e) {
+            throw new IllegalStateException("Unable to warm up client", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Unable to warm up client", e);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @AfterAll
+    public static void stop() {
+        containers.stop();
+    }
+
+    private static Duration measureLatency(@Nonnull final Probe probe) {
+        final var request = HttpRequest.newBuilder(containers.createUriFromPath(probe.server, probe.path))
+                .timeout(REQUEST_TIMEOUT)
+                .GET().build();
+        final long start = System.nanoTime();
+        final int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (final IOException e) {
+            throw new IllegalStateException(probe.toString(), e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(probe.toString(), e);
+        }
+        final var latency = Duration.ofNanos(System.nanoTime() - start);
+        /* Unauthenticated requests for the current user are refused, but must not fail. */
+        assertThat(probe + " server error", status < 500, is(true));
+        return latency;
+    }
+
+    private static Duration getPercentile(@Nonnull final Duration[] sorted, final double percentile) {
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    @Test
+    @Order(1)
+    public void coldRequests() {
+        final List<String> slow = new ArrayList<>();
+        for (final var probe : PROBES) {
+            final var latency = measureLatency(probe);
+            LOGGER.info("Cold latency of {}: {}", probe, latency);
+            if (COLD_LIMIT.compareTo(latency) < 0) {
+                slow.add(probe + " " + latency);
+            }
+        }
+        assertThat("Cold requests slower than " + COLD_LIMIT, slow, is(empty()));
+    }
+
+    @Test
+    @Order(2)
+    public void warmRequests() {
+        final List<String> slow = new ArrayList<>();
+        for (final var probe : PROBES) {
+            for (int r = 0; r < N_WARM_UP_REQUESTS; ++r) {
+                measureLatency(probe);
+            }
+            final var samples = new Duration[N_SAMPLES];
+            for (int s = 0; s < N_SAMPLES; ++s) {
+                samples[s] = measureLatency(probe);
+            }
+            Arrays.sort(samples);
+            final var median = getPercentile(samples, 50);
+            final var p95 = getPercentile(samples, 95);
+            LOGGER.info("Warm latency of {}: median {}, p95 {}, max {}", probe, median, p95, samples[N_SAMPLES - 1]);
+            if (WARM_LIMIT.compareTo(p95) < 0) {
+                slow.add(probe + " p95 " + p95);
+            }
+        }
+        assertThat("Warm requests slower than " + WARM_LIMIT, slow, is(empty()));
+    }
+
+    private record Probe(@Nonnull HttpServer server, @Nonnull String path) {
+
+        @Override
+        public String toString() {
+            return server + " " + path;
+        }
+    }
+}
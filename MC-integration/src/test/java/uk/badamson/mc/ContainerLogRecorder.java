@@ -0,0 +1,137 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.testcontainers.containers.output.OutputFrame;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Streams the output of a container to a file, as the container produces it.
+ * </p>
+ * <p>
+ * Callers can {@linkplain #mark() mark} positions in the log,
+ * and later {@linkplain #copy(long, long, Path) copy} only the output produced between two marks,
+ * which costs time proportional to the size of that output rather than to the size of the whole log.
+ * The copying may be done by a different thread, while the container continues to produce output.
+ * </p>
+ */
+final class ContainerLogRecorder implements Consumer<OutputFrame>, Closeable {
+
+    private final Path path;
+    private final OutputStream output;
+    private long size;
+    private boolean closed;
+
+    /**
+     * @throws UncheckedIOException If the log file could not be created.
+     */
+    ContainerLogRecorder(@Nonnull final Path path) {
+        this.path = Objects.requireNonNull(path, "path");
+        try {
+            output = new BufferedOutputStream(Files.newOutputStream(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void accept(@Nonnull final OutputFrame frame) {
+        final byte[] bytes = frame.getBytes();
+        if (closed || bytes == null || frame.getType() == OutputFrame.OutputType.END) {
+            return;
+        }
+        try {
+            output.write(bytes);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        size += bytes.length;
+    }
+
+    /**
+     * <p>
+     * The current end of the log, for use with {@link #copy(long, long, Path)}.
+     * </p>
+     */
+    @Nonnegative
+    synchronized long mark() {
+        return size;
+    }
+
+    /**
+     * <p>
+     * Write the output recorded between two {@linkplain #mark() marks} to a file.
+     * </p>
+     *
+     * @throws UncheckedIOException If the file could not be written.
+     */
+    void copy(@Nonnegative final long start, @Nonnegative final long end, @Nonnull final Path destination) {
+        synchronized (this) {
+            if (!closed) {
+                try {
+                    output.flush();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(destination,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = Math.min(start, end);
+            while (position < end) {
+                final long transferred = source.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                output.close();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * <p>
+ * Benchmark of the speed of seeding the database through the back-end,
+ * comparing the default storage of the database with
+ * {@linkplain uk.badamson.mc.repository.McDatabaseContainer#withEphemeralStorage(long) ephemeral storage}.
+ * </p>
+ * <p>
+ * This starts two complete stacks of containers, so is run only if the {@code mc.benchmark}
+ * system property is {@code true}. The throughputs are logged.
+ * </p>
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "mc.benchmark", matches = "true")
+public class DatabaseStorageBenchmarkIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseStorageBenchmarkIT.class);
+
+    private static final int N_USERS = Integer.getInteger("mc.benchmark.users", 2000);
+    private static final int N_GAMES = Integer.getInteger("mc.benchmark.games", 2000);
+    private static final int CONCURRENCY = 16;
+
+    private static double[] seed(final boolean ephemeralDatabase) {
+        try (var containers = new McContainers(null, ephemeralDatabase)) {
+            containers.start();
+            try {
+                final var client = containers.getBackEndClient();
+                final List<BasicUserDetails> users = new ArrayList<>(N_USERS);
+                for (int u = 0; u < N_USERS; ++u) {
+                    users.add(new BasicUserDetails("Benchmark user " + u, "password" + u,
+                            Set.of(Authority.ROLE_PLAYER), true, true, true, true));
+                }
+                final var scenario = client.getScenarios().findFirst().orElseThrow().getId();
+
+                final var userResult = client.addUsers(users, CONCURRENCY);
+                final var gameResult = client.createGames(scenario, N_GAMES, CONCURRENCY);
+
+                LOGGER.info("Seeding with {} database storage: users {}; games {}",
+                        ephemeralDatabase ? "ephemeral" : "default", userResult, gameResult);
+                assertThat("user creation failures", userResult.getFailures(), is(empty()));
+                assertThat("game creation failures", gameResult.getFailures(), is(empty()));
+                return new double[]{userResult.getThroughput(), gameResult.getThroughput()};
+            } finally {
+                containers.stop();
+            }
+        }
+    }
+
+    @Test
+    public void seedingThroughput() {
+        final var normal = seed(false);
+        final var ephemeral = seed(true);
+        LOGGER.info("Ephemeral storage seeding speed-up: users x{}, games x{}",
+                String.format("%.2f", ephemeral[0] / normal[0]),
+                String.format("%.2f", ephemeral[1] / normal[1]));
+    }
+}
@@ -0,0 +1,304 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import uk.badamson.mc.MockMcBackEndContainer.MockRequest;
+import uk.badamson.mc.MockMcBackEndContainer.MockResponse;
+import uk.badamson.mc.MockMcBackEndContainer.RouteKey;
+import uk.badamson.mc.rest.GameResponse;
+import uk.badamson.mc.rest.Paths;
+import uk.badamson.mc.rest.ScenarioResponse;
+import uk.badamson.mc.rest.UserResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * A named collection of expectations for the {@linkplain MockMcBackEndContainer mock back-end},
+ * such as "a scenario with one game waiting to start".
+ * </p>
+ * <p>
+ * The response bodies are encoded when the bundle is built,
+ * so a bundle can be built once, and then {@linkplain MockMcBackEndContainer#apply(ExpectationBundle) applied}
+ * cheaply, in one batch, after each {@linkplain MockMcBackEndContainer#reset() reset}.
+ * Applying a bundle has the same effect as calling the corresponding {@code mockXxx} methods
+ * in the order the expectations were added to the bundle.
+ * </p>
+ */
+@Immutable
+public final class ExpectationBundle {
+
+    private static final Pattern BASIC_AUTHORIZATION = Pattern.compile("Basic .*");
+
+    @Nonnull
+    private final String name;
+    @Nonnull
+    private final List<Entry> entries;
+
+    private ExpectationBundle(@Nonnull final String name, @Nonnull final List<Entry> entries) {
+        this.name = name;
+        this.entries = List.copyOf(entries);
+    }
+
+    @Nonnull
+    public static Builder builder(@Nonnull final String name) {
+        return new Builder(name);
+    }
+
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    public int getNumberOfExpectations() {
+        return entries.size();
+    }
+
+    @Nonnull
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + entries.size() + " expectations)";
+    }
+
+    record Entry(
+            @Nonnull RouteKey route,
+            @Nonnull Predicate<MockRequest> condition,
+            @Nonnull Times times,
+            @Nonnull MockResponse response,
+            @Nonnull LatencyProfile latency) {
+    }
+
+    /**
+     * <p>
+     * A builder of {@link ExpectationBundle} objects.
+     * </p>
+     * <p>
+     * The methods correspond to the {@code mockXxx} methods of {@link MockMcBackEndContainer}.
+     * The expectations respond without delay, unless given a {@linkplain #withLatency(LatencyProfile) latency}.
+     * </p>
+     */
+    public static final class Builder {
+
+        @Nonnull
+        private final String name;
+        private final List<Entry> entries = new ArrayList<>();
+
+        private Builder(@Nonnull final String name) {
+            this.name = Objects.requireNonNull(name, "name");
+        }
+
+        private static MockResponse jsonResponse(@Nullable final Object body) {
+            return MockResponse.json(MockMcBackEndContainer.encodeAsJson(body));
+        }
+
+        @Nonnull
+        public ExpectationBundle build() {
+            return new ExpectationBundle(name, entries);
+        }
+
+        private Builder expect(@Nonnull final RouteKey route, @Nonnull final MockResponse response) {
+            return expect(route, Times.unlimited(), response);
+        }
+
+        Builder expect(@Nonnull final RouteKey route, @Nonnull final Times times, @Nonnull final MockResponse response) {
+            return expect(route, request -> true, times, response);
+        }
+
+        private Builder expect(
+                @Nonnull final RouteKey route,
+                @Nonnull final Predicate<MockRequest> condition,
+                @Nonnull final Times times,
+                @Nonnull final MockResponse response) {
+            Objects.requireNonNull(times, "times");
+            entries.add(new Entry(route, condition, times, response, LatencyProfile.none()));
+            return this;
+        }
+
+        /**
+         * <p>
+         * Make the expectation most recently added respond with a given latency.
+         * </p>
+         *
+         * @throws IllegalStateException If no expectations have been added.
+         */
+        public Builder withLatency(@Nonnull final LatencyProfile latency) {
+            Objects.requireNonNull(latency, "latency");
+            if (entries.isEmpty()) {
+                throw new IllegalStateException("No expectation");
+            }
+            final var last = entries.remove(entries.size() - 1);
+            entries.add(new Entry(last.route(), last.condition(), last.times(), last.response(), latency));
+            return this;
+        }
+
+        public Builder createGameForScenario(@Nonnull UUID scenarioId, @Nonnull final UUID gameId) {
+            return expect(RouteKey.post(Paths.createPathForGamesOfScenario(scenarioId)),
+                    MockResponse.found(Paths.createPathForGame(gameId)));
+        }
+
+        public Builder getGameIDs(@Nonnull UUID scenario, @Nonnull Set<NamedUUID> gameIds, @Nonnull Times times) {
+            return expect(RouteKey.get(Paths.createPathForGamesOfScenario(scenario)), times, jsonResponse(gameIds));
+        }
+
+        public Builder getGameIDs(@Nonnull UUID scenario, @Nonnull Set<NamedUUID> gameIds) {
+            return getGameIDs(scenario, gameIds, Times.unlimited());
+        }
+
+        public Builder getGame(
+                @Nonnull final UUID gameId, @Nonnull final UUID scenarioId, @Nonnull final Game game, @Nonnull Times times) {
+            return expect(RouteKey.get(Paths.createPathForGame(gameId)), times,
+                    jsonResponse(GameResponse.convertToResponse(gameId, scenarioId, game)));
+        }
+
+        public Builder getGame(@Nonnull final UUID gameId, @Nonnull final UUID scenarioId, @Nonnull final Game game) {
+            return getGame(gameId, scenarioId, game, Times.unlimited());
+        }
+
+        public Builder startGame(@Nonnull final UUID game) {
+            return gameAction(game, "start");
+        }
+
+        public Builder stopGame(@Nonnull final UUID game) {
+            return gameAction(game, "stop");
+        }
+
+        public Builder endRecruitment(@Nonnull final UUID game) {
+            return gameAction(game, "endRecruitment");
+        }
+
+        public Builder joinGame(@Nonnull final UUID game) {
+            return gameAction(game, "join");
+        }
+
+        private Builder gameAction(@Nonnull final UUID game, @Nonnull final String action) {
+            final String path = Paths.createPathForGame(game);
+            return expect(RouteKey.post(path, action), MockResponse.found(path));
+        }
+
+        public Builder currentGame(@Nonnull final UUID game) {
+            Objects.requireNonNull(game, "game");
+            return expect(RouteKey.get(Paths.CURRENT_GAME_PATH), MockResponse.found(Paths.createPathForGame(game)));
+        }
+
+        public Builder noCurrentGame() {
+            return expect(RouteKey.get(Paths.CURRENT_GAME_PATH), MockResponse.NOT_FOUND);
+        }
+
+        public Builder mayJoinGame(@Nonnull final UUID game, final boolean mayJoin) {
+            return expect(RouteKey.get(Paths.createPathForGame(game), "mayJoin"), jsonResponse(mayJoin));
+        }
+
+        public Builder getAllScenarios(@Nonnull final Set<NamedUUID> scenarios) {
+            final var dto = scenarios.stream()
+                    .map(ni -> new NamedUUID(ni.getId(), ni.getTitle()))
+                    .collect(Collectors.toUnmodifiableSet());
+            return expect(RouteKey.get(Paths.SCENARIOS_PATH), jsonResponse(dto));
+        }
+
+        public Builder getScenario(@Nonnull UUID id, @Nonnull final Scenario scenario) {
+            Objects.requireNonNull(scenario, "scenario");
+            return expect(RouteKey.get(Paths.createPathForScenario(id)),
+                    jsonResponse(ScenarioResponse.convertToResponse(id, scenario)));
+        }
+
+        public Builder addUser(@Nonnull final BasicUserDetails userDetails, @Nonnull final UUID id) {
+            final JsonNode expectedBody = MockMcBackEndContainer.encodeAsJsonTree(new MinimalUserDetails(userDetails));
+            return expect(RouteKey.post(Paths.USERS_PATH),
+                    request -> expectedBody.equals(MockMcBackEndContainer.decodeJson(request.body())),
+                    Times.unlimited(),
+                    MockResponse.found(Paths.createPathForUser(id)));
+        }
+
+        public Builder getAllUsers(@Nonnull final Set<User> users, @Nonnull Times times) {
+            final var dto = users.stream()
+                    .map(UserResponse::convertToResponse)
+                    .collect(Collectors.toUnmodifiableSet());
+            return expect(RouteKey.get(Paths.USERS_PATH), times, jsonResponse(dto));
+        }
+
+        public Builder getAllUsers(@Nonnull final Set<User> users) {
+            return getAllUsers(users, Times.unlimited());
+        }
+
+        public Builder getSelf(@Nonnull final User user, @Nonnull Times times) {
+            return expect(RouteKey.get(Paths.SELF_PATH), times, jsonResponse(UserResponse.convertToResponse(user)));
+        }
+
+        public Builder getSelf(@Nonnull final User user) {
+            return getSelf(user, Times.unlimited());
+        }
+
+        public Builder getSelfUnauthenticated(@Nonnull Times times) {
+            return expect(RouteKey.get(Paths.SELF_PATH), times, MockResponse.status(HttpResponseStatus.UNAUTHORIZED));
+        }
+
+        public Builder getSelfUnauthenticated() {
+            return getSelfUnauthenticated(Times.unlimited());
+        }
+
+        public Builder getUser(@Nonnull final User user) {
+            Objects.requireNonNull(user, "user");
+            return expect(RouteKey.get(Paths.createPathForUser(user.getId())),
+                    jsonResponse(UserResponse.convertToResponse(user)));
+        }
+
+        public Builder login(@Nonnull User user, @Nonnull final String sessionCookie, @Nonnull String xsrfToken) {
+            final var response = MockResponse.login(
+                    MockMcBackEndContainer.encodeAsJson(UserResponse.convertToResponse(user)), sessionCookie, xsrfToken);
+            return expect(RouteKey.get(Paths.SELF_PATH),
+                    request -> {
+                        final String authorization = request.headers().get(HttpHeaderNames.AUTHORIZATION);
+                        return authorization != null && BASIC_AUTHORIZATION.matcher(authorization).matches();
+                    },
+                    Times.unlimited(),
+                    response);
+        }
+    }
+
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD", justification = "actually used by Jackson")
+    final private static class MinimalUserDetails {
+        public MinimalUserDetails(@Nonnull final BasicUserDetails userDetails) {
+            this.username = userDetails.getUsername();
+            this.password = userDetails.getPassword();
+        }
+
+        public final String username;
+        public final String password;
+        public final Set<Authority> authorities = Set.of();
+    }
+}
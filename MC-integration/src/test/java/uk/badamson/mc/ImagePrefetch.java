@@ -0,0 +1,135 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.images.RemoteDockerImage;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.TestcontainersConfiguration;
+import uk.badamson.mc.presentation.McFrontEndContainer;
+import uk.badamson.mc.presentation.McReverseProxyContainer;
+import uk.badamson.mc.repository.McDatabaseContainer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Pulls (or builds) all the Docker images of the containers, in parallel,
+ * once per JVM, before the containers need them.
+ * </p>
+ * <p>
+ * Otherwise, the images are pulled lazily, one container at a time, as each container is first started.
+ * Prefetching can be disabled by setting the {@code mc.images.prefetch} system property to {@code false}.
+ * </p>
+ */
+final class ImagePrefetch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImagePrefetch.class);
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("mc.images.prefetch", "true"));
+
+    /*
+     * Images of helper containers that Testcontainers starts itself:
+     * for recording browser sessions, and for exposing host ports.
+     * Testcontainers' own configuration gives their names, so they match the version of Testcontainers in use,
+     * and any overrides of the configuration.
+     */
+    @SuppressWarnings("deprecation")
+    private static final DockerImageName VNC_RECORDER_IMAGE = DockerImageName.parse(
+            TestcontainersConfiguration.getInstance().getVncRecordedContainerImage());
+    @SuppressWarnings("deprecation")
+    private static final DockerImageName SSHD_IMAGE = DockerImageName.parse(
+            TestcontainersConfiguration.getInstance().getSSHdImage());
+
+    private static final AtomicInteger N_THREADS = new AtomicInteger(0);
+
+    @Nullable
+    private static CompletableFuture<Void> prefetch;
+
+    private ImagePrefetch() {
+        throw new AssertionError("Class should not be instantiated");
+    }
+
+    @Nonnull
+    private static List<Future<String>> getImages() {
+        final List<Future<String>> images = new ArrayList<>();
+        for (final var name : List.of(
+                McDatabaseContainer.IMAGE,
+                McBackEndContainer.IMAGE,
+                McFrontEndContainer.IMAGE,
+                BaseContainers.BROWSER_IMAGE,
+                VNC_RECORDER_IMAGE,
+                SSHD_IMAGE)) {
+            images.add(new RemoteDockerImage(name));
+        }
+        images.addAll(McReverseProxyContainer.getImages());
+        return images;
+    }
+
+    /**
+     * <p>
+     * Start fetching the images in the background, if that has not already been started.
+     * </p>
+     * <p>
+     * Failure to fetch an image is logged but otherwise ignored:
+     * starting the container that uses the image will report the problem.
+     * </p>
+     */
+    static synchronized void start() {
+        if (!ENABLED || prefetch != null) {
+            return;
+        }
+        final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            final var thread = new Thread(runnable, "ImagePrefetch-" + N_THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long start = System.nanoTime();
+        prefetch = CompletableFuture.allOf(getImages().stream()
+                        .map(image -> CompletableFuture.runAsync(() -> fetch(image), executor))
+                        .toArray(CompletableFuture<?>[]::new))
+                .whenComplete((ignored, e) -> {
+                    executor.shutdown();
+                    LOGGER.info("Prefetched images in {} ms",
+                            Duration.ofNanos(System.nanoTime() - start).toMillis());
+                });
+    }
+
+    private static void fetch(@Nonnull final Future<String> image) {
+        final long start = System.nanoTime();
+        try {
+            final String name = image.get();
+            LOGGER.debug("Fetched image {} in {} ms", name, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final Exception e) {
+            LOGGER.warn("Unable to prefetch image {}", image, e);
+        }
+    }
+}
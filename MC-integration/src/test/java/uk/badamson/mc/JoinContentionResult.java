@@ -0,0 +1,296 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.springframework.http.HttpStatus;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * The outcome of many users trying to join one game at the same moment.
+ * </p>
+ * <p>
+ * Each user logs in first, so the joining requests are not delayed by logging in;
+ * then all the users ask to join together.
+ * A join refused with {@link HttpStatus#CONFLICT} while the game still has
+ * free characters lost a race with another user, so is retried;
+ * a join refused with a server error is also retried.
+ * Other refusals are final.
+ * </p>
+ */
+public final class JoinContentionResult {
+
+    private static final AtomicInteger N_THREADS = new AtomicInteger(0);
+
+    @Nonnull
+    private final List<Outcome> outcomes;
+    @Nonnull
+    private final long[] latencies;
+    @Nonnull
+    private final Duration duration;
+
+    private JoinContentionResult(@Nonnull final List<Outcome> outcomes, @Nonnull final Duration duration) {
+        this.outcomes = List.copyOf(outcomes);
+        this.latencies = outcomes.stream().flatMapToLong(o -> Arrays.stream(o.latencies)).sorted().toArray();
+        this.duration = duration;
+    }
+
+    /**
+     * <p>
+     * Have some users try to join a game, all at the same time.
+     * </p>
+     *
+     * @param maxAttempts The maximum number of join requests each user may make.
+     */
+    @Nonnull
+    static JoinContentionResult create(
+            @Nonnull final McBackEndClient client,
+            @Nonnull final UUID game,
+            @Nonnull final Collection<? extends User> users,
+            @Nonnegative final int maxAttempts
+    ) {
+        Objects.requireNonNull(client, "client");
+        Objects.requireNonNull(game, "game");
+        Objects.requireNonNull(users, "users");
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts " + maxAttempts);
+        }
+
+        final var ready = new CountDownLatch(users.size());
+        final var go = new CountDownLatch(1);
+        final var executor = Executors.newFixedThreadPool(Math.max(1, users.size()), runnable -> {
+            final var thread = new Thread(runnable, "JoinContention-" + N_THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<Outcome>> futures = new ArrayList<>(users.size());
+            for (final var user : users) {
+                futures.add(executor.submit(() -> {
+                    final McBackEndClient.Session session;
+                    try {
+                        session = client.openSession(user);
+                    } finally {
+                        ready.countDown();
+                    }
+                    try (session) {
+                        go.await();
+                        return join(session, user, game, maxAttempts);
+                    }
+                }));
+            }
+            ready.await();
+            final long start = System.nanoTime();
+            go.countDown();
+            final List<Outcome> outcomes = new ArrayList<>(futures.size());
+            for (final var future : futures) {
+                outcomes.add(future.get());
+            }
+            return new JoinContentionResult(outcomes, Duration.ofNanos(System.nanoTime() - start));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while joining game", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Unable to join game", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    private static Outcome join(
+            @Nonnull final McBackEndClient.Session session,
+            @Nonnull final User user,
+            @Nonnull final UUID game,
+            final int maxAttempts
+    ) {
+        final long[] latencies = new long[maxAttempts];
+        HttpStatus status = null;
+        int attempts = 0;
+        int conflicts = 0;
+        boolean mayJoin = true;
+        boolean retry = true;
+        while (retry && attempts < maxAttempts) {
+            final long start = System.nanoTime();
+            status = session.joinGame(game);
+            latencies[attempts++] = System.nanoTime() - start;
+            if (status == HttpStatus.CONFLICT) {
+                ++conflicts;
+                mayJoin = session.mayJoinGame(game);
+                retry = mayJoin;
+            } else {
+                retry = status.is5xxServerError();
+            }
+        }
+        final boolean unresolvedConflict = status == HttpStatus.CONFLICT && mayJoin;
+        return new Outcome(user.getId(), status, conflicts, unresolvedConflict, Arrays.copyOf(latencies, attempts));
+    }
+
+    /**
+     * <p>
+     * The IDs of the users that joined the game.
+     * </p>
+     */
+    @Nonnull
+    public Set<UUID> getJoinedUsers() {
+        return outcomes.stream().filter(Outcome::isJoined).map(Outcome::user).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * <p>
+     * The IDs of the users that did not join the game.
+     * </p>
+     */
+    @Nonnull
+    public Set<UUID> getRefusedUsers() {
+        return outcomes.stream().filter(o -> !o.isJoined()).map(Outcome::user).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * <p>
+     * The final statuses of the refused joins that were not conflicts,
+     * which indicate faults rather than contention.
+     * </p>
+     */
+    @Nonnull
+    public List<HttpStatus> getFailures() {
+        return outcomes.stream()
+                .filter(o -> !o.isJoined() && o.status != HttpStatus.CONFLICT)
+                .map(Outcome::status)
+                .toList();
+    }
+
+    /**
+     * <p>
+     * The IDs of the users whose last join request was refused because of a conflict
+     * although the game still indicated that they may join it.
+     * </p>
+     * <p>
+     * A correct back-end refuses a join only if the game has no free character for the user,
+     * so this should be empty unless users ran out of attempts.
+     * </p>
+     */
+    @Nonnull
+    public Set<UUID> getUnresolvedConflicts() {
+        return outcomes.stream().filter(Outcome::unresolvedConflict).map(Outcome::user)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * <p>
+     * The total number of join requests, including retries.
+     * </p>
+     */
+    public int getRequests() {
+        return latencies.length;
+    }
+
+    /**
+     * <p>
+     * The number of join requests that were retries.
+     * </p>
+     */
+    public int getRetries() {
+        return latencies.length - outcomes.size();
+    }
+
+    /**
+     * <p>
+     * The number of join requests refused because of a conflict.
+     * </p>
+     */
+    public int getConflicts() {
+        return outcomes.stream().mapToInt(Outcome::conflicts).sum();
+    }
+
+    /**
+     * <p>
+     * The elapsed time from the users starting to join to the last of them finishing.
+     * </p>
+     */
+    @Nonnull
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * <p>
+     * The number of join requests handled per second.
+     * </p>
+     */
+    public double getThroughput() {
+        final var seconds = duration.toNanos() * 1.0E-9;
+        return seconds <= 0.0 ? 0.0 : latencies.length / seconds;
+    }
+
+    /**
+     * <p>
+     * A percentile of the latency of the join requests.
+     * </p>
+     */
+    @Nonnull
+    public Duration getLatencyAtPercentile(final double percentile) {
+        if (!(0.0 <= percentile && percentile <= 100.0)) {
+            throw new IllegalArgumentException("percentile " + percentile);
+        }
+        if (latencies.length == 0) {
+            return Duration.ZERO;
+        }
+        final int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+        return Duration.ofNanos(latencies[Math.max(0, index)]);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d users: joined %d, refused %d; %d requests (%d retries, %d conflicts)"
+                        + " in %d ms (%.1f/s); latency p50 %d ms, p99 %d ms, max %d ms",
+                outcomes.size(), getJoinedUsers().size(), getRefusedUsers().size(),
+                getRequests(), getRetries(), getConflicts(), duration.toMillis(), getThroughput(),
+                getLatencyAtPercentile(50).toMillis(), getLatencyAtPercentile(99).toMillis(),
+                getLatencyAtPercentile(100).toMillis());
+    }
+
+    @SuppressFBWarnings(value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"}, justification = "latencies never modified")
+    private record Outcome(
+            @Nonnull UUID user, @Nonnull HttpStatus status, int conflicts, boolean unresolvedConflict,
+            @Nonnull long[] latencies) {
+
+        boolean isJoined() {
+            return status == HttpStatus.FOUND;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>
+ * How slowly a {@linkplain MockMcBackEndContainer mock back-end} expectation responds:
+ * the distribution of the delay before the response begins,
+ * and, optionally, the rate at which the body of the response is sent.
+ * </p>
+ * <p>
+ * For finding how the front-end behaves when the back-end is slow,
+ * such as front-end paths that make requests one after another rather than concurrently.
+ * </p>
+ */
+@Immutable
+public final class LatencyProfile {
+
+    /*
+     * The z-score of the 99th percentile of a standard normal distribution.
+     */
+    private static final double Z_99 = 2.326;
+
+    private static final Duration CHUNK_INTERVAL = Duration.ofMillis(100);
+
+    private static final LatencyProfile NONE = new LatencyProfile("none", Distribution.FIXED,
+            Duration.ZERO, Duration.ZERO, null);
+
+    private enum Distribution {FIXED, UNIFORM, LOG_NORMAL}
+
+    @Nonnull
+    private final String name;
+    @Nonnull
+    private final Distribution distribution;
+    @Nonnull
+    private final Duration a;
+    @Nonnull
+    private final Duration b;
+    @Nullable
+    private final Long bodyRate;
+
+    private LatencyProfile(
+            @Nonnull final String name,
+            @Nonnull final Distribution distribution,
+            @Nonnull final Duration a,
+            @Nonnull final Duration b,
+            @Nullable final Long bodyRate) {
+        this.name = name;
+        this.distribution = distribution;
+        this.a = a;
+        this.b = b;
+        this.bodyRate = bodyRate;
+    }
+
+    private static void requireNonNegative(@Nonnull final Duration duration, @Nonnull final String name) {
+        Objects.requireNonNull(duration, name);
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException(name + " " + duration);
+        }
+    }
+
+    /**
+     * <p>
+     * Respond as quickly as possible.
+     * </p>
+     */
+    @Nonnull
+    public static LatencyProfile none() {
+        return NONE;
+    }
+
+    /**
+     * <p>
+     * Always delay the response by the same amount.
+     * </p>
+     *
+     * @throws IllegalArgumentException If {@code delay} is negative.
+     */
+    @Nonnull
+    public static LatencyProfile fixed(@Nonnull final Duration delay) {
+        requireNonNegative(delay, "delay");
+        return new LatencyProfile("fixed " + delay.toMillis() + " ms", Distribution.FIXED, delay, delay, null);
+    }
+
+    /**
+     * <p>
+     * Delay the response by an amount uniformly distributed between two limits.
+     * </p>
+     *
+     * @throws IllegalArgumentException If {@code min} is negative or {@code max} is less than {@code min}.
+     */
+    @Nonnull
+    public static LatencyProfile uniform(@Nonnull final Duration min, @Nonnull final Duration max) {
+        requireNonNegative(min, "min");
+        Objects.requireNonNull(max, "max");
+        if (max.compareTo(min) < 0) {
+            throw new IllegalArgumentException("max " + max + " < min " + min);
+        }
+        return new LatencyProfile("uniform " + min.toMillis() + "-" + max.toMillis() + " ms",
+                Distribution.UNIFORM, min, max, null);
+    }
+
+    /**
+     * <p>
+     * Delay the response by a long-tailed (log-normal) amount,
+     * as a loaded server does: usually close to the median, but with occasional spikes.
+     * </p>
+     *
+     * @param median The median delay.
+     * @param p99    The 99th percentile of the delay; the size of the spikes.
+     * @throws IllegalArgumentException If {@code median} is not positive or {@code p99} is less than {@code median}.
+     */
+    @Nonnull
+    public static LatencyProfile longTailed(@Nonnull final Duration median, @Nonnull final Duration p99) {
+        Objects.requireNonNull(median, "median");
+        Objects.requireNonNull(p99, "p99");
+        if (median.isNegative() || median.isZero()) {
+            throw new IllegalArgumentException("median " + median);
+        }
+        if (p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("p99 " + p99 + " < median " + median);
+        }
+        return new LatencyProfile("long-tailed median " + median.toMillis() + " ms, p99 " + p99.toMillis() + " ms",
+                Distribution.LOG_NORMAL, median, p99, null);
+    }
+
+    /**
+     * <p>
+     * A profile that has the same delay as this profile,
+     * but sends the body of the response at a limited rate.
+     * </p>
+     *
+     * @param bytesPerSecond The rate at which to send the body.
+     * @throws IllegalArgumentException If {@code bytesPerSecond} is not positive.
+     */
+    @Nonnull
+    public LatencyProfile withBodyRate(@Nonnegative final long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("bytesPerSecond " + bytesPerSecond);
+        }
+        return new LatencyProfile(name, distribution, a, b, bytesPerSecond);
+    }
+
+    /**
+     * <p>
+     * A description of this profile, for reports.
+     * </p>
+     */
+    @Nonnull
+    public String getName() {
+        return bodyRate == null ? name : name + ", " + bodyRate + " B/s";
+    }
+
+    public boolean isNone() {
+        return this == NONE || (distribution == Distribution.FIXED && a.isZero() && bodyRate == null);
+    }
+
+    /**
+     * <p>
+     * Choose the delay before a response begins.
+     * </p>
+     */
+    @Nonnull
+    Duration sampleDelay() {
+        final var random = ThreadLocalRandom.current();
+        return switch (distribution) {
+            case FIXED -> a;
+            case UNIFORM -> a.equals(b) ? a : Duration.ofNanos(random.nextLong(a.toNanos(), b.toNanos() + 1));
+            case LOG_NORMAL -> {
+                final double mu = Math.log(a.toNanos());
+                final double sigma = Math.log((double) b.toNanos() / a.toNanos()) / Z_99;
+                yield Duration.ofNanos(Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * The number of bytes of the body to send at each {@linkplain #getChunkInterval() interval},
+     * or 0 if the body is not throttled.
+     * </p>
+     */
+    @Nonnegative
+    int getChunkSize() {
+        if (bodyRate == null) {
+            return 0;
+        }
+        return (int) Math.max(1L, Math.min(Integer.MAX_VALUE, bodyRate * CHUNK_INTERVAL.toMillis() / 1000L));
+    }
+
+    @Nonnull
+    static Duration getChunkInterval() {
+        return CHUNK_INTERVAL;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,84 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.badamson.mc.McContainers.HttpServer;
+import uk.badamson.mc.load.LoadEngine;
+import uk.badamson.mc.load.LoadProfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * <p>
+ * Sustained load on a complete stack of containers,
+ * applied through the ingress by the {@linkplain LoadEngine load engine}.
+ * </p>
+ * <p>
+ * This is run only if the {@code mc.load} system property is {@code true}.
+ * The {@linkplain LoadProfile#fromSystemProperties() load profile} is given by system properties.
+ * A summary of the latencies is logged,
+ * and the full latency histograms are written to {@code target/load}.
+ * </p>
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "mc.load", matches = "true")
+public class LoadIT {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadIT.class);
+
+    private static final int CONCURRENCY = 16;
+
+    @Test
+    public void gameLifecycle() throws IOException {
+        try (var containers = new McContainers(null)) {
+            containers.start();
+            try {
+                final var engine = new LoadEngine(containers.createUriFromPath(HttpServer.INGRESS, "/"),
+                        LoadProfile.fromSystemProperties());
+                final var players = LoadEngine.createPlayerDetails(engine.getNumberOfPlayers());
+                final var creation = containers.getBackEndClient().addUsers(players, CONCURRENCY);
+                assertThat("user creation failures", creation.getFailures(), is(empty()));
+
+                final var report = engine.run(players);
+
+                final var summary = new ByteArrayOutputStream();
+                report.writeSummary(new PrintStream(summary, true, StandardCharsets.UTF_8));
+                LOGGER.info("Load results:\n{}", summary.toString(StandardCharsets.UTF_8));
+                report.writeHistograms(Path.of("target", "load"));
+                assertThat("failures", report.getTotalFailures(), is(0L));
+            } finally {
+                containers.stop();
+            }
+        }
+    }
+}
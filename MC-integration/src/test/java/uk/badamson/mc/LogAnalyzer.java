@@ -0,0 +1,199 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.testcontainers.containers.output.OutputFrame;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Scans the output of containers for error, warning and slow-request messages,
+ * as the containers produce it.
+ * </p>
+ * <p>
+ * Each line of output is scanned only once, when it arrives,
+ * and the analyzer keeps only counts of the messages (and a few example error messages).
+ * Asking whether errors were logged, in total or during one test, therefore costs almost nothing,
+ * however much output the containers have produced.
+ * </p>
+ */
+final class LogAnalyzer {
+
+    private static final Pattern ERROR = Pattern.compile("ERROR:");
+    private static final Pattern WARNING = Pattern.compile("\\bWARN(?:ING)?\\b");
+    private static final Pattern SLOW_REQUEST = Pattern.compile("(?i)\\bslow (?:query|request|operation)\\b");
+    private static final int MAX_EXAMPLE_ERRORS = 10;
+
+    private final Map<String, ContainerScanner> scanners = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Counts>> testStarts = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Counts>> countsByTest = new ConcurrentHashMap<>();
+
+    /**
+     * <p>
+     * The numbers of messages of each kind.
+     * </p>
+     */
+    @Immutable
+    record Counts(@Nonnegative long errors, @Nonnegative long warnings, @Nonnegative long slowRequests) {
+
+        static final Counts NONE = new Counts(0, 0, 0);
+
+        @Nonnull
+        Counts minus(@Nonnull final Counts that) {
+            return new Counts(errors - that.errors, warnings - that.warnings, slowRequests - that.slowRequests);
+        }
+    }
+
+    private static final class ContainerScanner implements Consumer<OutputFrame> {
+        private final Map<OutputFrame.OutputType, StringBuilder> partialLines = new EnumMap<>(OutputFrame.OutputType.class);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong warnings = new AtomicLong();
+        private final AtomicLong slowRequests = new AtomicLong();
+        private final Queue<String> exampleErrors = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger nExampleErrors = new AtomicInteger();
+
+        @Override
+        public synchronized void accept(@Nonnull final OutputFrame frame) {
+            final var type = frame.getType();
+            final var partialLine = partialLines.computeIfAbsent(type, t -> new StringBuilder());
+            if (type == OutputFrame.OutputType.END) {
+                scanRemainder(partialLine);
+                return;
+            }
+            partialLine.append(frame.getUtf8String());
+            int start = 0;
+            for (int end = partialLine.indexOf("\n"); 0 <= end; end = partialLine.indexOf("\n", start)) {
+                scan(partialLine.subSequence(start, end));
+                start = end + 1;
+            }
+            partialLine.delete(0, start);
+        }
+
+        private void scanRemainder(@Nonnull final StringBuilder partialLine) {
+            if (!partialLine.isEmpty()) {
+                scan(partialLine);
+                partialLine.setLength(0);
+            }
+        }
+
+        private void scan(@Nonnull final CharSequence line) {
+            if (ERROR.matcher(line).find()) {
+                errors.incrementAndGet();
+                if (nExampleErrors.getAndIncrement() < MAX_EXAMPLE_ERRORS) {
+                    exampleErrors.add(line.toString());
+                }
+            } else if (WARNING.matcher(line).find()) {
+                warnings.incrementAndGet();
+            }
+            if (SLOW_REQUEST.matcher(line).find()) {
+                slowRequests.incrementAndGet();
+            }
+        }
+
+        @Nonnull
+        Counts getCounts() {
+            return new Counts(errors.get(), warnings.get(), slowRequests.get());
+        }
+    }
+
+    /**
+     * <p>
+     * Create a log consumer for a container, which feeds this analyzer.
+     * </p>
+     *
+     * @throws IllegalArgumentException If a consumer has already been created for the {@code container}.
+     */
+    @Nonnull
+    Consumer<OutputFrame> createConsumer(@Nonnull final String container) {
+        final var scanner = new ContainerScanner();
+        if (scanners.putIfAbsent(container, scanner) != null) {
+            throw new IllegalArgumentException("Duplicate container " + container);
+        }
+        return scanner;
+    }
+
+    /**
+     * <p>
+     * The total counts of the messages of each container, since it started.
+     * </p>
+     */
+    @Nonnull
+    Map<String, Counts> getCounts() {
+        final Map<String, Counts> result = new TreeMap<>();
+        scanners.forEach((container, scanner) -> result.put(container, scanner.getCounts()));
+        return result;
+    }
+
+    /**
+     * <p>
+     * Some of the error messages logged by a container.
+     * </p>
+     */
+    @Nonnull
+    List<String> getExampleErrors(@Nonnull final String container) {
+        final var scanner = scanners.get(container);
+        return scanner == null ? List.of() : List.copyOf(scanner.exampleErrors);
+    }
+
+    void beginTest(@Nonnull final String test) {
+        testStarts.put(test, getCounts());
+    }
+
+    /**
+     * <p>
+     * Record the counts of the messages of each container during a test.
+     * </p>
+     * <p>
+     * If tests run concurrently, the counts of a test include the messages of the concurrent tests.
+     * </p>
+     *
+     * @return The counts during the test, for each container.
+     */
+    @Nonnull
+    Map<String, Counts> endTest(@Nonnull final String test) {
+        final var starts = Objects.requireNonNullElse(testStarts.remove(test), Map.<String, Counts>of());
+        final Map<String, Counts> result = new TreeMap<>();
+        getCounts().forEach((container, counts) ->
+                result.put(container, counts.minus(starts.getOrDefault(container, Counts.NONE))));
+        final var unmodifiableResult = Collections.unmodifiableMap(result);
+        countsByTest.put(test, unmodifiableResult);
+        return unmodifiableResult;
+    }
+
+    /**
+     * <p>
+     * The counts of the messages of each container, during each test that has ended.
+     * </p>
+     */
+    @Nonnull
+    Map<String, Map<String, Counts>> getCountsByTest() {
+        return Collections.unmodifiableMap(countsByTest);
+    }
+}
@@ -21,26 +21,49 @@ package uk.badamson.mc;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
-import org.springframework.test.web.reactive.server.WebTestClient.RequestBodySpec;
 import org.springframework.test.web.reactive.server.WebTestClient.RequestHeadersSpec;
-import org.springframework.test.web.reactive.server.WebTestClient.ResponseSpec;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.util.UriTemplate;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 import uk.badamson.mc.rest.Paths;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
-final class McBackEndClient {
+/**
+ * <p>
+ * A long-lived client of the MC-back-end, for setting up test data.
+ * </p>
+ * <p>
+ * All clients share one pool of HTTP connections.
+ * The client logs in as the administrator once, and then reuses that session
+ * for subsequent requests, logging in again only if the back-end rejects the session.
+ * </p>
+ */
+final class McBackEndClient implements AutoCloseable {
 
     private static final String XSRF_TOKEN_COOKIE_NAME = "XSRF-TOKEN";
 
@@ -53,13 +76,23 @@ final class McBackEndClient {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     public static final String SCHEME = "http";
 
+    /*
+     * Large enough for stress tests that have hundreds of requests in progress at the same time.
+     */
+    private static final ConnectionProvider CONNECTION_PROVIDER = ConnectionProvider
+            .builder("mc-back-end-client")
+            .maxConnections(512)
+            .pendingAcquireMaxCount(-1)
+            .build();
+
     @Nonnull
-    private final String host;
-    @Nonnegative
-    private final int port;
+    private final WebTestClient webTestClient;
     @Nonnull
     private final User administrator;
 
+    @Nullable
+    private MultiValueMap<String, HttpCookie> administratorCookies;
+
     McBackEndClient(
             @Nonnull final String host,
             @Nonnegative final int port,
@@ -70,8 +103,7 @@ final class McBackEndClient {
         if (port < 0) {
             throw new IllegalArgumentException();
         }
-        this.host = host;
-        this.port = port;
+        this.webTestClient = createWebTestClient(host, port);
         this.administrator = User.createAdministrator(administratorPassword);
     }
 
@@ -83,13 +115,53 @@ final class McBackEndClient {
         }
     }
 
+    @Nonnull
+    private static WebTestClient createWebTestClient(@Nonnull final String host, final int port) {
+        final URI uri;
+        try {
+            uri = new URI(SCHEME, null, host, port, null, null, null);
+        } catch (final URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+        final var connector = new ReactorClientHttpConnector(HttpClient.create(CONNECTION_PROVIDER));
+        return WebTestClient.bindToServer(connector).baseUrl(uri.toString()).build();
+    }
+
+    @Nonnull
+    private static EntityExchangeResult<byte[]> exchange(@Nonnull final RequestHeadersSpec<?> request) {
+        /* Consume the whole body, so the connection is returned to the pool. */
+        return request.exchange().expectBody().returnResult();
+    }
+
+    private static void requireStatus(
+            @Nonnull final HttpStatus expected,
+            @Nonnull final EntityExchangeResult<?> result
+    ) {
+        if (result.getStatus() != expected) {
+            throw new IllegalStateException("Unexpected response status " + result.getStatus()
+                    + " (expected " + expected + ")");
+        }
+    }
+
+    /**
+     * <p>
+     * Whether the back-end rejected the session used for a request.
+     * </p>
+     * <p>
+     * A stale session yields 401; a stale XSRF token yields 403.
+     * </p>
+     */
+    private static boolean isSessionRejected(@Nonnull final EntityExchangeResult<?> result) {
+        final var status = result.getStatus();
+        return status == HttpStatus.UNAUTHORIZED || status == HttpStatus.FORBIDDEN;
+    }
+
     @SuppressFBWarnings(value="DCN_NULLPOINTER_EXCEPTION", justification="exception translation")
-    private static UUID parseCreateGameResponse(final ResponseSpec response) {
+    private static UUID parseGameLocation(final EntityExchangeResult<?> response) {
         Objects.requireNonNull(response, "response");
 
         try {
-            final var location = response.returnResult(String.class)
-                    .getResponseHeaders().getLocation();
+            final var location = response.getResponseHeaders().getLocation();
             Objects.requireNonNull(location, "Has Location header");
             final var uriComponents = GAME_URI_TEMPLATE.match(location.getPath());
             return UUID.fromString(uriComponents.get("game"));
@@ -100,7 +172,7 @@ final class McBackEndClient {
 
     @SuppressFBWarnings(value="NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification="SpotBugs itself buggy")
     private static void secure(
-            @Nonnull final RequestBodySpec request,
+            @Nonnull final RequestHeadersSpec<?> request,
             @Nullable final BasicUserDetails user,
             @Nonnull final MultiValueMap<String, HttpCookie> cookies
     ) {
@@ -123,75 +195,209 @@ final class McBackEndClient {
         try {
             Objects.requireNonNull(userDetails, "userDetails");
 
-            final var cookies = login(administrator);
-            final var headers = connectWebTestClient("/api/user").post()
-                    .contentType(MediaType.APPLICATION_JSON);
-            secure(headers, administrator, cookies);
-            final var request = headers.bodyValue(encodeAsJson(userDetails));
-
-            final var response = request.exchange();
-            response.expectStatus().isFound();
-            final var location = response.returnResult(Void.class)
-                    .getResponseHeaders().getLocation();
+            final var body = encodeAsJson(userDetails);
+            final var response = exchangeAsAdministrator(cookies -> {
+                final var request = webTestClient.post().uri(Paths.USERS_PATH)
+                        .contentType(MediaType.APPLICATION_JSON);
+                secure(request, administrator, cookies);
+                return request.bodyValue(body);
+            });
+            requireStatus(HttpStatus.FOUND, response);
+            final var location = response.getResponseHeaders().getLocation();
             if(location == null) {
                 throw new IllegalStateException("response has Location header");
             }
-            final var id = UUID.fromString(
+            return UUID.fromString(
                     USER_URI_TEMPLATE.match(location.toString()).get("id"));
-            logout(administrator, cookies);
-            return id;
         } catch (final Exception e) {
             throw new RuntimeException("Failed to add user", e);
         }
     }
 
+    public UUID createGame(final UUID scenario) {
+        Objects.requireNonNull(scenario, "scenario");
+
+        final var path = Paths.createPathForGamesOfScenario(scenario);
+        final var response = exchangeAsAdministrator(cookies -> {
+            final var request = webTestClient.post().uri(path)
+                    .accept(MediaType.APPLICATION_JSON);
+            secure(request, administrator, cookies);
+            return request;
+        });
+        requireStatus(HttpStatus.FOUND, response);
+        return parseGameLocation(response);
+    }
+
+    /**
+     * <p>
+     * Add many users, concurrently.
+     * </p>
+     *
+     * @param users       The details of the users to add.
+     * @param concurrency The maximum number of requests to have in progress at the same time.
+     */
     @Nonnull
-    private WebTestClient connectWebTestClient(@Nonnull final String path) {
-        final URI uri;
-        try {
-            uri = new URI(SCHEME, null, host, port, path, null, null);
-        } catch (final URISyntaxException e) {
-            throw new IllegalArgumentException(e);
-        }
-        return WebTestClient.bindToServer().baseUrl(uri.toString()).build();
+    public BulkCreationResult<User> addUsers(
+            @Nonnull final Collection<? extends BasicUserDetails> users,
+            @Nonnegative final int concurrency
+    ) {
+        Objects.requireNonNull(users, "users");
+        return BulkCreationResult.create(users, concurrency,
+                userDetails -> new User(addUser(userDetails), userDetails));
     }
 
-    private RequestBodySpec createCreateGameRequest(
+    /**
+     * <p>
+     * Create many games of a scenario, concurrently.
+     * </p>
+     *
+     * @param scenario    The ID of the scenario of the games.
+     * @param n           The number of games to create.
+     * @param concurrency The maximum number of requests to have in progress at the same time.
+     * @return The IDs of the created games.
+     */
+    @Nonnull
+    public BulkCreationResult<UUID> createGames(
             @Nonnull final UUID scenario,
-            @Nullable final User user,
-            @Nonnull final MultiValueMap<String, HttpCookie> cookies
+            @Nonnegative final int n,
+            @Nonnegative final int concurrency
     ) {
-        Objects.requireNonNull(cookies, "cookies");
-
-        final var path = Paths.createPathForGamesOfScenario(scenario);
-        final var request = connectWebTestClient(path).post()
-                .accept(MediaType.APPLICATION_JSON);
-        secure(request, user, cookies);
-        return request;
+        Objects.requireNonNull(scenario, "scenario");
+        if (n < 0) {
+            throw new IllegalArgumentException("n " + n);
+        }
+        return BulkCreationResult.create(Collections.nCopies(n, scenario), concurrency, this::createGame);
     }
 
-    public UUID createGame(final UUID scenario) {
-        Objects.requireNonNull(scenario, "scenario");
+    /**
+     * <p>
+     * Perform a request using the session of the administrator,
+     * logging in again (once) if the back-end rejects the session.
+     * </p>
+     */
+    @Nonnull
+    private EntityExchangeResult<byte[]> exchangeAsAdministrator(
+            @Nonnull final Function<MultiValueMap<String, HttpCookie>, RequestHeadersSpec<?>> requestFactory
+    ) {
+        final var cookies = getAdministratorCookies();
+        final var response = exchange(requestFactory.apply(cookies));
+        if (isSessionRejected(response)) {
+            discardAdministratorCookies(cookies);
+            return exchange(requestFactory.apply(getAdministratorCookies()));
+        } else {
+            return response;
+        }
+    }
 
-        final var cookies = login(administrator);
-        final var request = createCreateGameRequest(scenario, administrator,
-                cookies);
-        final var response = request.exchange();
-        logout(administrator, cookies);
+    @Nonnull
+    private synchronized MultiValueMap<String, HttpCookie> getAdministratorCookies() {
+        if (administratorCookies == null) {
+            administratorCookies = login(administrator);
+        }
+        return administratorCookies;
+    }
 
-        response.expectStatus().isFound();
-        return parseCreateGameResponse(response);
+    private synchronized void discardAdministratorCookies(
+            @Nonnull final MultiValueMap<String, HttpCookie> staleCookies
+    ) {
+        /* Another thread might already have logged in again. */
+        if (administratorCookies == staleCookies) {
+            administratorCookies = null;
+        }
     }
 
     private RequestHeadersSpec<?> createGetSelfRequest(final String username,
                                                        final String password) {
-        return connectWebTestClient("/api/self").get()
+        return webTestClient.get().uri(Paths.SELF_PATH)
                 .accept(MediaType.APPLICATION_JSON)
                 .headers(headers -> headers.setBasicAuth(username, password));
     }
 
+    /**
+     * <p>
+     * The ID of the game that a user is currently playing, if any.
+     * </p>
+     * <p>
+     * This makes a single request, authenticated using the password of the user,
+     * rather than {@linkplain #openSession(BasicUserDetails) logging in}.
+     * </p>
+     */
+    @Nonnull
+    public Optional<UUID> getCurrentGame(@Nonnull final BasicUserDetails user) {
+        Objects.requireNonNull(user, "user");
+        return getCurrentGame(webTestClient.get().uri(Paths.CURRENT_GAME_PATH)
+                .headers(headers -> headers.setBasicAuth(user.getUsername(), user.getPassword())));
+    }
+
+    @Nonnull
+    private static Optional<UUID> getCurrentGame(@Nonnull final RequestHeadersSpec<?> request) {
+        final var response = exchange(request);
+        if (response.getStatus() == HttpStatus.NOT_FOUND) {
+            return Optional.empty();
+        }
+        requireStatus(HttpStatus.FOUND, response);
+        return Optional.of(parseGameLocation(response));
+    }
+
+    /**
+     * <p>
+     * Log in as a user, for performing requests as that user.
+     * </p>
+     */
+    @Nonnull
+    public Session openSession(@Nonnull final BasicUserDetails user) {
+        Objects.requireNonNull(user, "user");
+        return new Session(login(user));
+    }
+
+    /**
+     * <p>
+     * The users playing a game, as a map from the IDs of the characters to the IDs of the users playing them.
+     * </p>
+     */
+    @Nonnull
+    public Map<UUID, UUID> getGameUsers(@Nonnull final UUID game) {
+        Objects.requireNonNull(game, "game");
+        final var response = exchangeAsAdministrator(cookies -> {
+            final var request = webTestClient.get().uri(Paths.createPathForGame(game))
+                    .accept(MediaType.APPLICATION_JSON);
+            secure(request, administrator, cookies);
+            return request;
+        });
+        requireStatus(HttpStatus.OK, response);
+        final Map<UUID, UUID> users = new HashMap<>();
+        try {
+            OBJECT_MAPPER.readTree(response.getResponseBodyContent()).get("users").fields()
+                    .forEachRemaining(e -> users.put(UUID.fromString(e.getKey()), UUID.fromString(e.getValue().asText())));
+        } catch (final IOException | RuntimeException e) {
+            throw new IllegalStateException("Invalid game", e);
+        }
+        return users;
+    }
+
+    /**
+     * <p>
+     * The IDs of the characters of a scenario.
+     * </p>
+     */
+    @Nonnull
+    public Set<UUID> getScenarioCharacters(@Nonnull final UUID scenario) {
+        Objects.requireNonNull(scenario, "scenario");
+        final var response = exchange(webTestClient.get().uri(Paths.createPathForScenario(scenario))
+                .accept(MediaType.APPLICATION_JSON));
+        requireStatus(HttpStatus.OK, response);
+        final Set<UUID> characters = new HashSet<>();
+        try {
+            OBJECT_MAPPER.readTree(response.getResponseBodyContent()).get("characters")
+                    .forEach(character -> characters.add(UUID.fromString(character.get("id").asText())));
+        } catch (final IOException | RuntimeException e) {
+            throw new IllegalStateException("Invalid scenario", e);
+        }
+        return characters;
+    }
+
     public Stream<NamedUUID> getScenarios() {
-        return connectWebTestClient("/api/scenario").get().accept(MediaType.APPLICATION_JSON)
+        return webTestClient.get().uri(Paths.SCENARIOS_PATH).accept(MediaType.APPLICATION_JSON)
                 .exchange().returnResult(uk.badamson.mc.rest.NamedUUID.class)
                 .getResponseBody().toStream().map(ni -> new NamedUUID(ni.getId(), ni.getTitle()));
     }
@@ -201,10 +407,9 @@ final class McBackEndClient {
         final var request = createGetSelfRequest(user.getUsername(),
                 user.getPassword());
 
-        final var response = request.exchange();
+        final var response = exchange(request);
 
-        final var cookies = response.returnResult(String.class)
-                .getResponseCookies();
+        final var cookies = response.getResponseCookies();
         if (!cookies.containsKey(SESSION_COOKIE_NAME)
                 || !cookies.containsKey(XSRF_TOKEN_COOKIE_NAME)) {
             throw new IllegalStateException(
@@ -219,10 +424,93 @@ final class McBackEndClient {
             @Nullable final User user,
             @Nonnull final MultiValueMap<String, HttpCookie> cookies
     ) {
-        final var request = connectWebTestClient("/logout").post();
+        final var request = webTestClient.post().uri("/logout");
         secure(request, user, cookies);
-        final var response = request.exchange();
-        response.expectStatus().is2xxSuccessful();
+        final var response = exchange(request);
+        if (!response.getStatus().is2xxSuccessful()) {
+            throw new IllegalStateException("Logout failed with status " + response.getStatus());
+        }
+    }
+
+    /**
+     * <p>
+     * The session of a user other than the administrator.
+     * </p>
+     * <p>
+     * Unlike the session of the administrator, the session is not renewed if the back-end rejects it.
+     * Each session must be used by only one thread at a time.
+     * Requests are authenticated using only the session cookies, so the back-end does not check
+     * the password of the user for each request.
+     * </p>
+     */
+    public final class Session implements AutoCloseable {
+
+        @Nonnull
+        private final MultiValueMap<String, HttpCookie> cookies;
+
+        private Session(@Nonnull final MultiValueMap<String, HttpCookie> cookies) {
+            this.cookies = cookies;
+        }
+
+        /**
+         * <p>
+         * Ask to join a game.
+         * </p>
+         *
+         * @return The status of the response; {@link HttpStatus#FOUND} if the user joined the game.
+         */
+        @Nonnull
+        public HttpStatus joinGame(@Nonnull final UUID game) {
+            Objects.requireNonNull(game, "game");
+            final var request = webTestClient.post().uri(Paths.createPathForGame(game) + "?join");
+            secure(request, null, cookies);
+            return exchange(request).getStatus();
+        }
+
+        public boolean mayJoinGame(@Nonnull final UUID game) {
+            Objects.requireNonNull(game, "game");
+            final var request = webTestClient.get().uri(Paths.createPathForGame(game) + "?mayJoin")
+                    .accept(MediaType.APPLICATION_JSON);
+            secure(request, null, cookies);
+            final var response = exchange(request);
+            requireStatus(HttpStatus.OK, response);
+            return Boolean.parseBoolean(new String(
+                    Objects.requireNonNull(response.getResponseBodyContent()), StandardCharsets.UTF_8).trim());
+        }
+
+        /**
+         * <p>
+         * The ID of the game that the user is currently playing, if any.
+         * </p>
+         */
+        @Nonnull
+        public Optional<UUID> getCurrentGame() {
+            final var request = webTestClient.get().uri(Paths.CURRENT_GAME_PATH);
+            secure(request, null, cookies);
+            return getCurrentGame(request);
+        }
+
+        @Override
+        public void close() {
+            logout(null, cookies);
+        }
+    }
+
+    /**
+     * <p>
+     * Log out the session of the administrator, if there is one.
+     * </p>
+     * <p>
+     * The back-end must still be running.
+     * </p>
+     */
+    @Override
+    public synchronized void close() {
+        if (administratorCookies != null) {
+            final var cookies = administratorCookies;
+            administratorCookies = null;
+            logout(administrator, cookies);
+        }
     }
 
 }
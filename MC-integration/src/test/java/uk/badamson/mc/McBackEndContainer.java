@@ -18,6 +18,7 @@ package uk.badamson.mc;
  * along with MC.  If not, see <https://www.gnu.org/licenses/>.
  */
 
+import com.github.dockerjava.api.command.InspectContainerResponse;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.wait.strategy.Wait;
 import org.testcontainers.containers.wait.strategy.WaitAllStrategy;
@@ -25,6 +26,7 @@ import org.testcontainers.containers.wait.strategy.WaitStrategy;
 import org.testcontainers.utility.DockerImageName;
 
 import javax.annotation.Nonnull;
+import java.net.URI;
 import java.time.Duration;
 import java.util.Objects;
 
@@ -39,7 +41,7 @@ final class McBackEndContainer extends GenericContainer<McBackEndContainer> {
 
     private static final String VERSION = SutVersions.MC_BACK_END_VERSION;
 
-    private static final DockerImageName IMAGE = DockerImageName
+    static final DockerImageName IMAGE = DockerImageName
             .parse("index.docker.io/benedictadamson/mc-back-end:" + VERSION);
 
     private static final String STARTED_MESSAGE = "Started Application";
@@ -54,6 +56,7 @@ final class McBackEndContainer extends GenericContainer<McBackEndContainer> {
     private final String mongoDbPassword;
     @Nonnull
     private final String administratorPassword;
+    private volatile boolean reused;
 
     @SuppressWarnings("resource")
     McBackEndContainer(
@@ -72,11 +75,37 @@ final class McBackEndContainer extends GenericContainer<McBackEndContainer> {
         addExposedPort(PORT);
     }
 
+    /**
+     * <p>
+     * The URI of the server, as accessed from the host.
+     * </p>
+     */
+    @Nonnull
+    URI getBaseUri() {
+        return URI.create("http://" + getHost() + ":" + getMappedPort(PORT) + "/");
+    }
+
     @Nonnull
     McBackEndClient createClient() {
         return new McBackEndClient(getHost(), getMappedPort(PORT), administratorPassword);
     }
 
+    @Override
+    protected void containerIsStarted(final InspectContainerResponse containerInfo, final boolean reused) {
+        super.containerIsStarted(containerInfo, reused);
+        this.reused = reused;
+    }
+
+    /**
+     * <p>
+     * Whether the last {@linkplain #start() start} of this container
+     * {@linkplain #withReuse(boolean) reused} a container that was already running.
+     * </p>
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
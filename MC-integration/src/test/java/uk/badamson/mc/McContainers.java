@@ -19,21 +19,31 @@ package uk.badamson.mc;
  */
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.Testcontainers;
 import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.lifecycle.TestDescription;
+import org.testcontainers.utility.TestcontainersConfiguration;
+import uk.badamson.mc.presentation.McFrontEndContainer;
 import uk.badamson.mc.presentation.McReverseProxyContainer;
 import uk.badamson.mc.repository.McDatabaseContainer;
+import uk.badamson.mc.rest.Paths;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-
-import static org.hamcrest.CoreMatchers.containsString;
-import static org.hamcrest.CoreMatchers.not;
-import static org.hamcrest.MatcherAssert.assertThat;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
 
 public class McContainers extends BaseContainers {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(McContainers.class);
+
     private static final String ADMINISTRATOR_PASSWORD = "secret4";
     private static final String BE_HOST = "be";
     private static final String DB_HOST = "db";
@@ -44,9 +54,61 @@ public class McContainers extends BaseContainers {
 
     private static final String DB_ROOT_PASSWORD = "secret2";
     private static final String DB_USER_PASSWORD = "secret3";
+
+    /**
+     * <p>
+     * Whether the database should use {@linkplain McDatabaseContainer#withEphemeralStorage(long) ephemeral storage}
+     * unless explicitly requested otherwise. Set by the {@code mc.db.ephemeral} system property.
+     * </p>
+     */
+    static final boolean EPHEMERAL_DATABASE_BY_DEFAULT = Boolean.getBoolean("mc.db.ephemeral");
+
+    /**
+     * <p>
+     * The memory limit of the database container, when using ephemeral storage.
+     * Set, in MiB, by the {@code mc.db.memory} system property.
+     * </p>
+     */
+    private static final long EPHEMERAL_DATABASE_MEMORY = Long.getLong("mc.db.memory", 1024L) * 1024L * 1024L;
+
+    /**
+     * <p>
+     * The directory in which to write {@linkplain BackEndFixture fixtures} recording the exchanges
+     * of each test with the back-end, or {@code null} if exchanges are not to be recorded.
+     * Set by the {@code mc.be.record} system property.
+     * </p>
+     */
+    @Nullable
+    private static final Path FIXTURE_RECORDING_DIRECTORY = Optional.ofNullable(System.getProperty("mc.be.record"))
+            .map(Path::of).orElse(null);
+    private static final String RECORDER_HOST = "recorder";
+
+    /**
+     * <p>
+     * Whether to keep the database, back-end, front-end and ingress containers running
+     * for use by later test runs, unless explicitly requested otherwise.
+     * Set by the {@code mc.containers.reuse} system property.
+     * Testcontainers must also permit reuse, by {@code testcontainers.reuse.enable=true}
+     * in the {@code .testcontainers.properties} file of the user.
+     * </p>
+     * <p>
+     * Reused containers are identified by a fingerprint of their images, configuration and credentials,
+     * are checked for health before use, and the database is restored to its pristine state.
+     * The logs of reused containers include their output from earlier runs.
+     * </p>
+     */
+    private static final boolean REUSE_CONTAINERS_BY_DEFAULT = Boolean.getBoolean("mc.containers.reuse");
+    private static final String DB_SNAPSHOT_TASK = "db-snapshot";
+
     private final McDatabaseContainer db;
     private final McBackEndContainer be;
     private final McReverseProxyContainer in;
+    @Nullable
+    private final BackEndRecorder recorder;
+    @Nullable
+    private McBackEndClient backEndClient;
+    @Nullable
+    private McDatabaseContainer.Snapshot pristineDatabase;
 
     /**
      * @param failureRecordingDirectory The location of a directory in which to store files holding
@@ -54,24 +116,87 @@ public class McContainers extends BaseContainers {
      *                                  no such records are to be made.
      */
     public McContainers(@Nullable final Path failureRecordingDirectory) {
-        super(failureRecordingDirectory);
+        this(failureRecordingDirectory, EPHEMERAL_DATABASE_BY_DEFAULT);
+    }
+
+    /**
+     * @param failureRecordingDirectory The location of a directory in which to store files holding
+     *                                  verbose information about failed test cases. Or {@code null} if
+     *                                  no such records are to be made.
+     * @param ephemeralDatabase         Whether the database should use fast
+     *                                  {@linkplain McDatabaseContainer#withEphemeralStorage(long) ephemeral storage}.
+     */
+    public McContainers(@Nullable final Path failureRecordingDirectory, final boolean ephemeralDatabase) {
+        this(failureRecordingDirectory, ephemeralDatabase, REUSE_CONTAINERS_BY_DEFAULT);
+    }
+
+    /**
+     * @param failureRecordingDirectory The location of a directory in which to store files holding
+     *                                  verbose information about failed test cases. Or {@code null} if
+     *                                  no such records are to be made.
+     * @param ephemeralDatabase         Whether the database should use fast
+     *                                  {@linkplain McDatabaseContainer#withEphemeralStorage(long) ephemeral storage}.
+     * @param reuseContainers           Whether to keep the containers running for use by later test runs,
+     *                                  if Testcontainers permits that.
+     */
+    public McContainers(
+            @Nullable final Path failureRecordingDirectory,
+            final boolean ephemeralDatabase,
+            final boolean reuseContainers) {
+        super(failureRecordingDirectory, reuseContainers ? createReuseFingerprint(ephemeralDatabase) : null);
         db = new McDatabaseContainer(
                 DB_ROOT_PASSWORD, DB_USER_PASSWORD);
+        if (ephemeralDatabase) {
+            db.withEphemeralStorage(EPHEMERAL_DATABASE_MEMORY);
+        }
         db.withNetwork(getNetwork());
         db.withNetworkAliases(DB_HOST);
+        makeReusable(db);
+        recordLogs(DB_HOST, db);
         be = new McBackEndContainer(DB_HOST,
                 DB_USER_PASSWORD, ADMINISTRATOR_PASSWORD);
         be.withNetwork(getNetwork());
         be.withNetworkAliases(BE_HOST);
-        in = McReverseProxyContainer.createWithRealBe();
+        makeReusable(be);
+        recordLogs(BE_HOST, be);
+        if (FIXTURE_RECORDING_DIRECTORY == null) {
+            recorder = null;
+            in = McReverseProxyContainer.createWithRealBe();
+            makeReusable(in);
+        } else {
+            /* Not reusable, because the port of the recorder differs for every run. */
+            /* The recorder stands in the place of a mock back-end. */
+            recorder = new BackEndRecorder(be::getBaseUri);
+            in = McReverseProxyContainer.createWithMockBe();
+        }
         in.withNetwork(getNetwork());
         in.withNetworkAliases(REVERSE_PROXY_HOST);
+        recordLogs(REVERSE_PROXY_HOST, in);
     }
 
-    private static void assertThatNoErrorMessagesLogged(final String container,
-                                                        final String logs) {
-        assertThat(container + " logs no errors", logs,
-                not(containsString("ERROR:")));
+    /*
+     * The fingerprint of reusable containers, or null if Testcontainers does not permit reuse.
+     */
+    @Nullable
+    private static String createReuseFingerprint(final boolean ephemeralDatabase) {
+        if (!TestcontainersConfiguration.getInstance().environmentSupportsReuse()) {
+            LOGGER.warn("Not reusing containers, because Testcontainers does not permit reuse"
+                    + " (set testcontainers.reuse.enable=true in ~/.testcontainers.properties)");
+            return null;
+        }
+        final var configuration = String.join("\n",
+                McDatabaseContainer.IMAGE.asCanonicalNameString(),
+                McBackEndContainer.IMAGE.asCanonicalNameString(),
+                McFrontEndContainer.IMAGE.asCanonicalNameString(),
+                "ephemeral=" + ephemeralDatabase,
+                "memory=" + EPHEMERAL_DATABASE_MEMORY,
+                DB_ROOT_PASSWORD, DB_USER_PASSWORD, ADMINISTRATOR_PASSWORD);
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(configuration.getBytes(StandardCharsets.UTF_8)));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public static URI createIngressPrivateNetworkUriFromPath(final String path) {
@@ -84,12 +209,32 @@ public class McContainers extends BaseContainers {
         return be;
     }
 
-    public void assertThatNoErrorMessagesLogged() {
-        assertThatNoErrorMessagesLogged("db", db.getLogs());
-        assertThatNoErrorMessagesLogged("be", be.getLogs());
-        assertThatNoErrorMessagesLogged("fe", getFrontEnd().getLogs());
-        assertThatNoErrorMessagesLogged("in", in.getLogs());
-        assertThatNoErrorMessagesLogged("browser", getBrowser().getLogs());
+    /**
+     * <p>
+     * The client of the {@linkplain #getBackEnd() back-end} shared by all users of these containers.
+     * </p>
+     * <p>
+     * The client is created on first use, and is closed when these containers are stopped.
+     * </p>
+     */
+    @Nonnull
+    public final synchronized McBackEndClient getBackEndClient() {
+        if (backEndClient == null) {
+            backEndClient = be.createClient();
+        }
+        return backEndClient;
+    }
+
+    private synchronized void closeBackEndClient() {
+        if (backEndClient != null) {
+            try {
+                backEndClient.close();
+            } catch (final RuntimeException e) {
+                /* The session will expire anyway; do not prevent the containers stopping. */
+            } finally {
+                backEndClient = null;
+            }
+        }
     }
 
     @Override
@@ -97,10 +242,18 @@ public class McContainers extends BaseContainers {
         /*
          * Close the resources top-down, to reduce the number of transient
          * connection errors.
+         * Reusable containers are left running.
          */
-        in.close();
-        be.close();
-        db.close();
+        if (recorder != null || !isReusingContainers()) {
+            in.close();
+        }
+        if (recorder != null) {
+            recorder.stop();
+        }
+        if (!isReusingContainers()) {
+            be.close();
+            db.close();
+        }
         super.close();
     }
 
@@ -116,24 +269,96 @@ public class McContainers extends BaseContainers {
         return base.resolve(path);
     }
 
-    @Override
-    protected void retainLogFiles(final String prefix) {
-        assert getFailureRecordingDirectory() != null;
-        super.retainLogFiles(prefix);
-        retainLogFile(getFailureRecordingDirectory(), prefix, DB_HOST, db);
-        retainLogFile(getFailureRecordingDirectory(), prefix, BE_HOST, be);
-        retainLogFile(getFailureRecordingDirectory(), prefix, REVERSE_PROXY_HOST, in);
-    }
-
     @Override
     public void start() {
         /*
-         * Start the containers bottom-up, and wait until each is ready, to reduce
-         * the number of transient connection errors.
+         * Start each container as soon as the containers it depends on are ready.
+         * The ingress looks up the addresses of the servers it proxies when it
+         * forwards requests, so it need not wait for them.
+         * The pristine state of the database includes the data the back-end adds on start-up.
          */
-        startInParallel(db, getFrontEnd(), getBrowser());
-        be.start();
-        in.start();
+        final var scheduler = createStartupScheduler()
+                .add(DB_HOST, () -> startReusable(db, db::isHealthy))
+                .add(BE_HOST, this::startBackEnd, DB_HOST)
+                .add(DB_SNAPSHOT_TASK, this::preparePristineDatabase, BE_HOST);
+        if (recorder == null) {
+            scheduler.add(REVERSE_PROXY_HOST, () -> startReusable(in, () -> respondsWithoutServerError(
+                    createUriFromPath(HttpServer.INGRESS, "/"))));
+        } else {
+            scheduler.add(RECORDER_HOST, () -> {
+                recorder.start();
+                Testcontainers.exposeHostPorts(recorder.getPort());
+                in.withMockBackEndPort(recorder.getPort());
+            }).add(REVERSE_PROXY_HOST, in::start, RECORDER_HOST);
+        }
+        start(scheduler);
+    }
+
+    private void startBackEnd() {
+        startReusable(be, () -> respondsWithoutServerError(be.getBaseUri().resolve(Paths.SCENARIOS_PATH)));
+        if (be.isReused() && !db.isReused()) {
+            /* The new database lacks the data that the back-end adds on start-up. */
+            be.stop();
+            be.start();
+        }
+    }
+
+    /*
+     * A reused database holds whatever the last test of an earlier run left in it,
+     * so restore the pristine state saved by the run that created the database.
+     */
+    private void preparePristineDatabase() {
+        if (db.isReused()) {
+            final var saved = db.loadSavedSnapshot();
+            if (saved != null) {
+                db.restore(saved);
+                pristineDatabase = saved;
+                return;
+            }
+            /* Recreate the pristine state from scratch. */
+            db.reset();
+            be.stop();
+            be.start();
+        }
+        pristineDatabase = db.takeSnapshot();
+        if (isReusingContainers()) {
+            db.saveSnapshot(pristineDatabase);
+        }
+    }
+
+    @Override
+    public void beforeTest(final TestDescription description) {
+        super.beforeTest(description);
+        if (recorder != null) {
+            recorder.beginRecording();
+        }
+    }
+
+    @Override
+    public void afterTest(final TestDescription description, final Optional<Throwable> throwable) {
+        super.afterTest(description, throwable);
+        if (recorder != null) {
+            assert FIXTURE_RECORDING_DIRECTORY != null;
+            recorder.endRecording(FIXTURE_RECORDING_DIRECTORY.resolve(description.getFilesystemFriendlyName() + ".json"));
+        }
+    }
+
+    /**
+     * <p>
+     * Put the database into the state it had just after these containers were started.
+     * </p>
+     * <p>
+     * This is fast enough to do between tests, so tests can share the containers
+     * without state leaking from one test to another. The caller must ensure that
+     * no other tests are using the containers at the same time.
+     * </p>
+     */
+    public void resetDatabase() {
+        if (pristineDatabase == null) {
+            db.reset();
+        } else {
+            db.restore(pristineDatabase);
+        }
     }
 
     @Override
@@ -142,11 +367,14 @@ public class McContainers extends BaseContainers {
          * Stop the resources top-down, to reduce the number of transient
          * connection errors.
          */
-        getBrowser().stop();
-        in.stop();
-        getFrontEnd().stop();
-        be.stop();
-        db.stop();
+        stopBrowsers();
+        closeBackEndClient();
+        if (!isReusingContainers()) {
+            in.stop();
+            getFrontEnd().stop();
+            be.stop();
+            db.stop();
+        }
         close();
     }
 
@@ -19,362 +19,521 @@ package uk.badamson.mc;
  */
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import org.mockserver.client.MockServerClient;
-import org.mockserver.matchers.Times;
-import org.mockserver.model.*;
-import org.testcontainers.containers.MockServerContainer;
-import org.testcontainers.utility.DockerImageName;
-import uk.badamson.mc.rest.*;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.reactivestreams.Publisher;
+import org.testcontainers.lifecycle.Startable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Objects;
-import java.util.Set;
-import java.util.UUID;
+import javax.annotation.concurrent.Immutable;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
-public final class MockMcBackEndContainer extends MockServerContainer {
+/**
+ * <p>
+ * A mock of the MC back-end HTTP server, running within this JVM.
+ * </p>
+ * <p>
+ * Expectations are indexed by HTTP method, path and query parameter names,
+ * so finding the expectations for a request takes constant time
+ * however many expectations have been added.
+ * Expectations with the same index are matched in the order they were added,
+ * and are discarded when they have been used up.
+ * An expectation without query parameters also matches requests that have query parameters,
+ * if there is no better match.
+ * Requests that match no expectation are passed to the {@linkplain #simulate() simulated}
+ * back-end, if there is one, or otherwise get a 404 (Not Found) response.
+ * Expectations can also be {@linkplain #replay(String) replayed} from fixtures recorded from the real back-end.
+ * </p>
+ * <p>
+ * Expectations can be given a {@linkplain LatencyProfile latency},
+ * to find how the front-end behaves when particular requests are slow.
+ * </p>
+ * <p>
+ * Containers can access the server through
+ * {@linkplain org.testcontainers.Testcontainers#exposeHostPorts(int...) host port exposure}
+ * of its {@linkplain #getPort() port}.
+ * </p>
+ */
+public final class MockMcBackEndContainer implements Startable {
+
+    private static final ObjectMapper MAPPER;
+    private static final String APPLICATION_JSON = "application/json";
+    static final String SESSION_COOKIE = "JSESSIONID";
+    static final String XSRF_COOKIE = "XSRF-TOKEN";
+
+    static {
+        MAPPER = new ObjectMapper();
+        MAPPER.registerModule(new JavaTimeModule());
+    }
 
-    private static String encodeAsJson(final Object obj) {
+    private final Map<RouteKey, Queue<Expectation>> routes = new ConcurrentHashMap<>();
+    private final Queue<String> journal = new ConcurrentLinkedQueue<>();
+    @Nullable
+    private DisposableServer server;
+    @Nullable
+    private volatile SimulatedMcBackEnd simulation;
+
+    static byte[] encodeAsJson(final Object obj) {
         try {
-            return MAPPER.writeValueAsString(obj);
+            return MAPPER.writeValueAsBytes(obj);
         } catch (final JsonProcessingException e) {
             throw new IllegalArgumentException("can not encode Object as JSON", e);
         }
-
     }
 
-    public MockMcBackEndContainer() {
-        super(MOCKSERVER_IMAGE);
+    @Nonnull
+    static JsonNode encodeAsJsonTree(final Object obj) {
+        return MAPPER.valueToTree(obj);
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        return super.equals(o);
+    @Nullable
+    static JsonNode decodeJson(@Nonnull final String json) {
+        try {
+            return MAPPER.readTree(json);
+        } catch (final JsonProcessingException e) {
+            return null;
+        }
     }
 
     @Override
-    public int hashCode() {
-        return super.hashCode();
+    public synchronized void start() {
+        if (server == null) {
+            server = HttpServer.create()
+                    .host("0.0.0.0")
+                    .port(0)
+                    .handle(this::handle)
+                    .bindNow();
+        }
     }
 
     @Override
-    public void start() {
-        super.start();
-        mockServerClient = new MockServerClient(getHost(), getServerPort());
+    public synchronized void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
     }
 
-    @Override
-    public void stop() {
-        if (mockServerClient != null) {
-            mockServerClient.stop();
-            mockServerClient = null;
+    /**
+     * <p>
+     * The host port on which the server is listening.
+     * </p>
+     *
+     * @throws IllegalStateException If the server has not been {@linkplain #start() started}.
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("not started");
         }
-
-        super.stop();
+        return server.port();
     }
 
-    @Override
-    public void close() {
-        super.close();
+    /**
+     * <p>
+     * A record of the requests received since the last {@link #reset()},
+     * and the status of the responses to them.
+     * </p>
+     */
+    @Nonnull
+    public String getLogs() {
+        return journal.stream().collect(Collectors.joining("\n", "", "\n"));
     }
 
     public void reset() {
-        if (mockServerClient != null) {
-            mockServerClient.reset();
+        routes.clear();
+        journal.clear();
+        simulation = null;
+    }
+
+    /**
+     * <p>
+     * Get the simulated back-end that responds to the requests that match no expectation,
+     * creating it if necessary.
+     * </p>
+     * <p>
+     * The simulation is discarded by {@link #reset()}.
+     * </p>
+     */
+    @Nonnull
+    public synchronized SimulatedMcBackEnd simulate() {
+        var result = simulation;
+        if (result == null) {
+            result = new SimulatedMcBackEnd();
+            simulation = result;
+        }
+        return result;
+    }
+
+    /**
+     * <p>
+     * Add all the expectations of a bundle,
+     * as if by calling the corresponding {@code mockXxx} methods in order.
+     * </p>
+     */
+    public void apply(@Nonnull final ExpectationBundle bundle) {
+        for (final var entry : bundle.getEntries()) {
+            routes.computeIfAbsent(entry.route(), k -> new ConcurrentLinkedQueue<>())
+                    .add(new Expectation(entry));
         }
-
-    }
-
-    public void mockCreateGameForScenario(@Nonnull UUID scenarioId, @Nonnull final UUID gameId) {
-        mockServerClient.when(createGameForScenarioRequest(scenarioId)).respond(createGameForScenarioResponse(gameId));
-    }
-
-    private static HttpRequest createGameForScenarioRequest(@Nonnull UUID scenario) {
-        return HttpRequest.request().withMethod("POST").withPath(Paths.createPathForGamesOfScenario(scenario));
     }
 
-    private static HttpResponse createGameForScenarioResponse(@Nonnull final UUID gameId) {
-        return foundResponse(Paths.createPathForGame(gameId));
+    /**
+     * <p>
+     * Respond as the real back-end did when a {@linkplain BackEndFixture fixture} was recorded.
+     * </p>
+     *
+     * @param fixture The name of the fixture.
+     * @throws IllegalArgumentException If there is no such fixture.
+     */
+    public void replay(@Nonnull final String fixture) {
+        apply(BackEndFixture.load(fixture));
     }
 
-    private static HttpResponse foundResponse(@Nonnull String path) {
-        return HttpResponse.response()
-                .withStatusCode(HttpStatusCode.FOUND_302.code())
-                .withHeader(Header.header("Location", path));
+    private void expect(@Nonnull final UnaryOperator<ExpectationBundle.Builder> expectations) {
+        apply(expectations.apply(ExpectationBundle.builder("ad hoc")).build());
     }
 
-    private static HttpResponse unauthorisedResponse() {
-        return HttpResponse.response().withStatusCode(HttpStatusCode.UNAUTHORIZED_401.code());
+    public void mockCreateGameForScenario(@Nonnull UUID scenarioId, @Nonnull final UUID gameId) {
+        expect(b -> b.createGameForScenario(scenarioId, gameId));
     }
 
-    public void mockGetGameIDs(@Nonnull UUID scenario, @Nonnull Set<NamedUUID> gameIds, Times times) {
-        mockServerClient.when(getGameIDsRequest(scenario), times).respond(getGameIDsResponse(gameIds));
+    public void mockGetGameIDs(@Nonnull UUID scenario, @Nonnull Set<NamedUUID> gameIds, @Nonnull Times times) {
+        expect(b -> b.getGameIDs(scenario, gameIds, times));
     }
 
     public void mockGetGameIDs(@Nonnull UUID scenario, @Nonnull Set<NamedUUID> gameIds) {
         mockGetGameIDs(scenario, gameIds, Times.unlimited());
     }
 
-    private static HttpRequest getGameIDsRequest(@Nonnull UUID scenario) {
-        return HttpRequest.request(Paths.createPathForGamesOfScenario(scenario)).withMethod("GET");
-    }
-
-    private static HttpResponse getGameIDsResponse(@Nonnull Set<NamedUUID> gameIds) {
-        return jsonResponse(gameIds);
-    }
-
-    private static HttpResponse jsonResponse(@Nullable Object body) {
-        return HttpResponse.response().withContentType(MediaType.APPLICATION_JSON).withBody(encodeAsJson(body));
+    public void mockGetGameIDs(
+            @Nonnull UUID scenario, @Nonnull Set<NamedUUID> gameIds, @Nonnull Times times,
+            @Nonnull final LatencyProfile latency) {
+        expect(b -> b.getGameIDs(scenario, gameIds, times).withLatency(latency));
     }
 
     public void mockGetGame(
-            @Nonnull final UUID gameId, @Nonnull final UUID scenarioId, @Nonnull final Game game, Times times) {
-        mockServerClient.when(getGameRequest(gameId), times).respond(getGameResponse(gameId, scenarioId, game));
+            @Nonnull final UUID gameId, @Nonnull final UUID scenarioId, @Nonnull final Game game, @Nonnull Times times) {
+        expect(b -> b.getGame(gameId, scenarioId, game, times));
     }
 
     public void mockGetGame(@Nonnull final UUID gameId, @Nonnull final UUID scenarioId, @Nonnull final Game game) {
         mockGetGame(gameId, scenarioId, game, Times.unlimited());
     }
 
-    private static HttpRequest getGameRequest(@Nonnull final UUID game) {
-        return HttpRequest.request(Paths.createPathForGame(game)).withMethod("GET");
-    }
-
-    private static HttpResponse getGameResponse(
-            @Nonnull UUID gameId, @Nonnull UUID scenarioId, @Nonnull final Game game) {
-        return jsonResponse(GameResponse.convertToResponse(gameId, scenarioId, game));
-    }
-
     public void mockStartGame(@Nonnull final UUID game) {
-        mockServerClient.when(startGameRequest(game)).respond(startGameResponse(game));
-    }
-
-    private static HttpRequest startGameRequest(@Nonnull final UUID game) {
-        return HttpRequest.request(Paths.createPathForGame(game))
-                .withQueryStringParameter("start", "")
-                .withMethod("POST");
-    }
-
-    private static HttpResponse startGameResponse(@Nonnull final UUID game) {
-        return foundResponse(Paths.createPathForGame(game));
+        expect(b -> b.startGame(game));
     }
 
     public void mockStopGame(@Nonnull final UUID game) {
-        mockServerClient.when(stopGameRequest(game)).respond(stopGameResponse(game));
-    }
-
-    private static HttpRequest stopGameRequest(@Nonnull final UUID game) {
-        return HttpRequest.request(Paths.createPathForGame(game))
-                .withQueryStringParameter("stop", "")
-                .withMethod("POST");
-    }
-
-    private static HttpResponse stopGameResponse(@Nonnull final UUID game) {
-        return foundResponse(Paths.createPathForGame(game));
+        expect(b -> b.stopGame(game));
     }
 
     public void mockEndRecruitment(@Nonnull final UUID game) {
-        mockServerClient.when(endRecruitmentRequest(game)).respond(endRecruitmentResponse(game));
+        expect(b -> b.endRecruitment(game));
     }
 
-    private static HttpRequest endRecruitmentRequest(@Nonnull final UUID game) {
-        return HttpRequest.request(Paths.createPathForGame(game))
-                .withQueryStringParameter("endRecruitment", "")
-                .withMethod("POST");
-    }
-
-    private static HttpResponse endRecruitmentResponse(@Nonnull final UUID game) {
-        return foundResponse(Paths.createPathForGame(game));
+    public void mockJoinGame(@Nonnull final UUID game) {
+        expect(b -> b.joinGame(game));
     }
 
     public void mockCurrentGame(@Nonnull final UUID game) {
-        Objects.requireNonNull(game, "game");
-        mockServerClient.when(currentGameRequest()).respond(currentGameResponse(game));
+        expect(b -> b.currentGame(game));
     }
 
     public void mockNoCurrentGame() {
-        mockServerClient.when(currentGameRequest()).respond(HttpResponse.notFoundResponse());
-    }
-
-    private static HttpRequest currentGameRequest() {
-        return HttpRequest.request(Paths.CURRENT_GAME_PATH).withMethod("GET");
-    }
-
-    private static HttpResponse currentGameResponse(@Nonnull final UUID game) {
-        return foundResponse(Paths.createPathForGame(game));
-    }
-
-    public void mockJoinGame(@Nonnull final UUID game) {
-        mockServerClient.when(joinGameRequest(game)).respond(joinGameResponse(game));
-    }
-
-    private static HttpRequest joinGameRequest(@Nonnull final UUID game) {
-        return HttpRequest.request(Paths.createPathForGame(game))
-                .withQueryStringParameter("join", "")
-                .withMethod("POST");
-    }
-
-    private static HttpResponse joinGameResponse(@Nonnull final UUID game) {
-        return foundResponse(Paths.createPathForGame(game));
+        expect(ExpectationBundle.Builder::noCurrentGame);
     }
 
     public void mockMayJoinGame(@Nonnull final UUID game, final boolean mayJoin) {
-        mockServerClient.when(mayJoinGameRequest(game)).respond(mayJoinGameResponse(mayJoin));
+        expect(b -> b.mayJoinGame(game, mayJoin));
     }
 
-    private static HttpRequest mayJoinGameRequest(@Nonnull final UUID game) {
-        return HttpRequest.request(Paths.createPathForGame(game))
-                .withQueryStringParameter("mayJoin", "")
-                .withMethod("GET");
-    }
-
-    private static HttpResponse mayJoinGameResponse(final boolean mayJoin) {
-        return jsonResponse(mayJoin);
+    public void mockMayJoinGame(@Nonnull final UUID game, final boolean mayJoin, @Nonnull final LatencyProfile latency) {
+        expect(b -> b.mayJoinGame(game, mayJoin).withLatency(latency));
     }
 
     public void mockGetAllScenarios(@Nonnull final Set<NamedUUID> scenarios) {
-        mockServerClient.when(getAllScenariosRequest()).respond(getAllScenariosResponse(scenarios));
-    }
-
-    private static HttpRequest getAllScenariosRequest() {
-        return HttpRequest.request(Paths.SCENARIOS_PATH).withMethod("GET");
-    }
-
-    private static HttpResponse getAllScenariosResponse(@Nonnull final Set<NamedUUID> scenarios) {
-        final var dto = scenarios.stream().map(ni -> new NamedUUID(ni.getId(), ni.getTitle())).collect(Collectors.toUnmodifiableSet());
-        return jsonResponse(dto);
+        expect(b -> b.getAllScenarios(scenarios));
     }
 
     public void mockGetScenario(@Nonnull UUID id, @Nonnull final Scenario scenario) {
-        mockServerClient.when(getScenarioRequest(id)).respond(getScenarioResponse(id, scenario));
-    }
-
-    private static HttpRequest getScenarioRequest(@Nonnull UUID scenario) {
-        return HttpRequest.request(Paths.createPathForScenario(scenario)).withMethod("GET");
-    }
-
-    private static HttpResponse getScenarioResponse(@Nonnull UUID id, @Nonnull final Scenario scenario) {
-        Objects.requireNonNull(scenario, "scenario");
-        return jsonResponse(ScenarioResponse.convertToResponse(id, scenario));
+        expect(b -> b.getScenario(id, scenario));
     }
 
     public void mockAddUser(@Nonnull final BasicUserDetails userDetails, @Nonnull final UUID id) {
-        mockServerClient.when(addUserRequest(userDetails)).respond(addUserResponse(id));
-    }
-
-    private static HttpRequest addUserRequest(@Nonnull final BasicUserDetails userDetails) {
-        return HttpRequest.request(Paths.USERS_PATH).withMethod("POST")
-                .withBody(encodeAsJson(new MinimalUserDetails(userDetails)));
-    }
-
-    private static HttpResponse addUserResponse(@Nonnull final UUID id) {
-        return foundResponse(Paths.createPathForUser(id));
+        expect(b -> b.addUser(userDetails, id));
     }
 
     public void mockGetAllUsers(@Nonnull final Set<User> users, @Nonnull Times times) {
-        mockServerClient.when(getAllUsersRequest(), times).respond(getAllUsersResponse(users));
+        expect(b -> b.getAllUsers(users, times));
     }
 
     public void mockGetAllUsers(@Nonnull final Set<User> users) {
         mockGetAllUsers(users, Times.unlimited());
     }
 
-    private static HttpRequest getAllUsersRequest() {
-        return HttpRequest.request(Paths.USERS_PATH).withMethod("GET");
-    }
-
-    private static HttpResponse  getAllUsersResponse(@Nonnull final Set<User> users) {
-        final var dto = users.stream()
-                .map(UserResponse::convertToResponse)
-                .collect(Collectors.toUnmodifiableSet());
-        return jsonResponse(dto);
-    }
-
-    public void mockGetSelf(@Nonnull final User user, Times times) {
-        mockServerClient.when(getSelfRequest(), times).respond(getSelfResponse(user));
+    public void mockGetSelf(@Nonnull final User user, @Nonnull Times times) {
+        expect(b -> b.getSelf(user, times));
     }
 
     public void mockGetSelf(@Nonnull final User user) {
         mockGetSelf(user, Times.unlimited());
     }
 
-    public void mockGetSelfUnauthenticated(Times times) {
-        mockServerClient.when(getSelfRequest(), times).respond(unauthorisedResponse());
+    public void mockGetSelf(@Nonnull final User user, @Nonnull Times times, @Nonnull final LatencyProfile latency) {
+        expect(b -> b.getSelf(user, times).withLatency(latency));
+    }
+
+    public void mockGetSelfUnauthenticated(@Nonnull Times times) {
+        expect(b -> b.getSelfUnauthenticated(times));
     }
 
     public void mockGetSelfUnauthenticated() {
         mockGetSelfUnauthenticated(Times.unlimited());
     }
 
-    private static HttpRequest getSelfRequest() {
-        return HttpRequest.request(Paths.SELF_PATH).withMethod("GET");
+    public void mockGetUser(@Nonnull final User user) {
+        expect(b -> b.getUser(user));
     }
 
-    private static HttpResponse getSelfResponse(@Nonnull final User user) {
-        return jsonResponse(UserResponse.convertToResponse(user));
+    public void mockLogin(@Nonnull User user, @Nonnull final String sessionCookie, @Nonnull String xsrfToken) {
+        expect(b -> b.login(user, sessionCookie, xsrfToken));
+    }
+
+    private Publisher<Void> handle(
+            @Nonnull final HttpServerRequest request,
+            @Nonnull final HttpServerResponse response) {
+        final var uri = new QueryStringDecoder(request.uri());
+        final var route = new RouteKey(request.method().name(), uri.path(),
+                RouteKey.createQuery(uri.parameters().keySet()));
+        final HttpHeaders headers = request.requestHeaders();
+        return request.receive().aggregate().asString(StandardCharsets.UTF_8)
+                .defaultIfEmpty("")
+                .flatMap(body -> {
+                    final var mockRequest = new MockRequest(route.method(), route.path(), route.query(), headers, body);
+                    final Reply reply = findReply(route, mockRequest);
+                    journal.add(route + " -> " + reply.response().status().code()
+                            + (reply.latency().isNone() ? "" : " (" + reply.latency() + ")"));
+                    return send(reply, response);
+                });
+    }
+
+    @Nonnull
+    private Reply findReply(@Nonnull final RouteKey route, @Nonnull final MockRequest request) {
+        Reply reply = findReply(routes.get(route), request);
+        if (reply == null && !route.query().isEmpty()) {
+            reply = findReply(routes.get(route.withoutQuery()), request);
+        }
+        final var currentSimulation = simulation;
+        if (reply == null && currentSimulation != null) {
+            final var response = currentSimulation.handle(request);
+            if (response != null) {
+                reply = new Reply(response, LatencyProfile.none());
+            }
+        }
+        return reply == null ? new Reply(MockResponse.NOT_FOUND, LatencyProfile.none()) : reply;
     }
 
-    public void mockGetUser(@Nonnull final User user) {
-        mockServerClient.when(getUserRequest(user.getId())).respond(getUserResponse(user));
+    @Nullable
+    private static Reply findReply(
+            @Nullable final Queue<Expectation> expectations,
+            @Nonnull final MockRequest request) {
+        if (expectations == null) {
+            return null;
+        }
+        for (final var expectation : expectations) {
+            if (expectation.condition.test(request) && expectation.use()) {
+                if (expectation.isUsedUp()) {
+                    expectations.remove(expectation);
+                }
+                return new Reply(expectation.response, expectation.latency);
+            }
+        }
+        return null;
+    }
+
+    private static Mono<Void> send(@Nonnull final Reply reply, @Nonnull final HttpServerResponse response) {
+        final var mockResponse = reply.response();
+        final var latency = reply.latency();
+        final Mono<Void> delay = latency.isNone()
+                ? Mono.empty()
+                : Mono.delay(latency.sampleDelay()).then();
+        return delay.then(Mono.defer(() -> {
+            response.status(mockResponse.status());
+            mockResponse.headers().forEach(header -> response.addHeader(header.getKey(), header.getValue()));
+            response.header(HttpHeaderNames.CONTENT_LENGTH, Integer.toString(mockResponse.body().length));
+            return response.sendByteArray(createBody(mockResponse.body(), latency.getChunkSize())).then();
+        }));
+    }
+
+    /*
+     * Throttle the body by sending it in chunks, one chunk per chunk interval.
+     */
+    @Nonnull
+    private static Publisher<byte[]> createBody(@Nonnull final byte[] body, final int chunkSize) {
+        if (chunkSize <= 0 || body.length <= chunkSize) {
+            return Mono.just(body);
+        }
+        final int nChunks = (body.length + chunkSize - 1) / chunkSize;
+        return Flux.range(0, nChunks)
+                .delayElements(LatencyProfile.getChunkInterval())
+                .map(c -> Arrays.copyOfRange(body, c * chunkSize, Math.min(body.length, (c + 1) * chunkSize)));
     }
 
-    private static HttpRequest getUserRequest(@Nonnull final UUID id) {
-        return HttpRequest.request(Paths.createPathForUser(id)).withMethod("GET");
+    /**
+     * <p>
+     * A response, and how slowly to send it.
+     * </p>
+     */
+    private record Reply(@Nonnull MockResponse response, @Nonnull LatencyProfile latency) {
     }
 
-    private static HttpResponse getUserResponse(@Nonnull final User user) {
-        Objects.requireNonNull(user, "user");
-        return jsonResponse(UserResponse.convertToResponse(user));
-    }
+    record RouteKey(@Nonnull String method, @Nonnull String path, @Nonnull String query) {
 
-    public void mockLogin(@Nonnull User user, @Nonnull final String sessionCookie, @Nonnull String xsrfToken) {
-        mockServerClient.when(loginRequest()).respond(loginResponse(user, sessionCookie, xsrfToken));
-    }
+        static RouteKey get(@Nonnull final String path) {
+            return new RouteKey("GET", path, "");
+        }
 
-    private static HttpRequest loginRequest() {
-        return HttpRequest.request(Paths.SELF_PATH)
-                .withMethod("GET")
-                .withHeader(Header.header("Authorization", "Basic .*"));
-    }
+        static RouteKey get(@Nonnull final String path, @Nonnull final String query) {
+            return new RouteKey("GET", path, query);
+        }
+
+        static RouteKey post(@Nonnull final String path) {
+            return new RouteKey("POST", path, "");
+        }
+
+        static RouteKey post(@Nonnull final String path, @Nonnull final String query) {
+            return new RouteKey("POST", path, query);
+        }
+
+        static String createQuery(@Nonnull final Set<String> parameterNames) {
+            return switch (parameterNames.size()) {
+                case 0 -> "";
+                case 1 -> parameterNames.iterator().next();
+                default -> parameterNames.stream().sorted().collect(Collectors.joining("&"));
+            };
+        }
+
+        RouteKey withoutQuery() {
+            return new RouteKey(method, path, "");
+        }
 
-    private static HttpResponse loginResponse(
-            @Nonnull User user,
-            @Nonnull final String sessionCookie,
-            @Nonnull String xsrfToken
-    ) {
-        return HttpResponse.response()
-                .withCookie("JSESSIONID", sessionCookie)
-                .withCookie("XSRF-TOKEN", xsrfToken)
-                .withContentType(MediaType.APPLICATION_JSON)
-                .withBody(encodeAsJson(UserResponse.convertToResponse(user)));
+        @Override
+        public String toString() {
+            return method + " " + path + (query.isEmpty() ? "" : "?" + query);
+        }
     }
 
-    private static final DockerImageName MOCKSERVER_IMAGE =
-            DockerImageName.parse("mockserver/mockserver:5.15.0");
-    private static final ObjectMapper MAPPER;
+    /**
+     * <p>
+     * A request received by the mock back-end.
+     * </p>
+     *
+     * @param query The names of the query parameters, or an empty string if there are none.
+     */
+    record MockRequest(
+            @Nonnull String method,
+            @Nonnull String path,
+            @Nonnull String query,
+            @Nonnull HttpHeaders headers,
+            @Nonnull String body) {
+    }
+
+    /**
+     * <p>
+     * A response that the mock back-end can send, with its body already encoded.
+     * </p>
+     */
+    @Immutable
+    @SuppressFBWarnings(value = {"EI_EXPOSE_REP", "EI_EXPOSE_REP2"}, justification = "body never modified")
+    record MockResponse(
+            @Nonnull HttpResponseStatus status,
+            @Nonnull List<Map.Entry<CharSequence, String>> headers,
+            @Nonnull byte[] body) {
+
+        static final MockResponse NOT_FOUND = status(HttpResponseStatus.NOT_FOUND);
+
+        @Nonnull
+        static MockResponse status(@Nonnull final HttpResponseStatus status) {
+            return new MockResponse(status, List.of(), new byte[0]);
+        }
 
-    static {
-        MAPPER = new ObjectMapper();
-        MAPPER.registerModule(new JavaTimeModule());
+        @Nonnull
+        static MockResponse found(@Nonnull final String path) {
+            return new MockResponse(HttpResponseStatus.FOUND,
+                    List.of(Map.entry(HttpHeaderNames.LOCATION, path)), new byte[0]);
+        }
+
+        @Nonnull
+        static MockResponse json(@Nonnull final byte[] body) {
+            return new MockResponse(HttpResponseStatus.OK,
+                    List.of(Map.entry(HttpHeaderNames.CONTENT_TYPE, APPLICATION_JSON)), body);
+        }
+
+        @Nonnull
+        static MockResponse login(
+                @Nonnull final byte[] body,
+                @Nonnull final String sessionCookie,
+                @Nonnull final String xsrfToken) {
+            return new MockResponse(HttpResponseStatus.OK,
+                    List.of(
+                            Map.entry(HttpHeaderNames.CONTENT_TYPE, APPLICATION_JSON),
+                            Map.entry(HttpHeaderNames.SET_COOKIE, SESSION_COOKIE + "=" + sessionCookie + "; Path=/"),
+                            Map.entry(HttpHeaderNames.SET_COOKIE, XSRF_COOKIE + "=" + xsrfToken + "; Path=/")),
+                    body);
+        }
     }
 
-    private MockServerClient mockServerClient;
+    private static final class Expectation {
+        private final Predicate<MockRequest> condition;
+        private final MockResponse response;
+        private final LatencyProfile latency;
+        @Nullable
+        private final AtomicInteger remaining;
 
-    @SuppressFBWarnings(value="URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD", justification="actually used by Jackson")
-    final private static class MinimalUserDetails {
-        public MinimalUserDetails(@Nonnull final BasicUserDetails userDetails) {
-            this.username = userDetails.getUsername();
-            this.password = userDetails.getPassword();
+        Expectation(@Nonnull final ExpectationBundle.Entry entry) {
+            this.condition = entry.condition();
+            this.response = entry.response();
+            this.latency = entry.latency();
+            this.remaining = entry.times().isUnlimited() ? null : new AtomicInteger(entry.times().getCount());
         }
 
-        public final String username;
-        public final String password;
-        public final Set<Authority> authorities = Set.of();
+        boolean use() {
+            if (remaining == null) {
+                return true;
+            }
+            int n;
+            do {
+                n = remaining.get();
+                if (n <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(n, n - 1));
+            return true;
+        }
+
+        boolean isUsedUp() {
+            return remaining != null && remaining.get() <= 0;
+        }
     }
 }
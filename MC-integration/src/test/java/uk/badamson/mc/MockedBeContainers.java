@@ -19,6 +19,7 @@ package uk.badamson.mc;
  */
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.testcontainers.Testcontainers;
 import org.testcontainers.lifecycle.TestDescription;
 import uk.badamson.mc.presentation.McReverseProxyContainer;
 
@@ -34,10 +35,9 @@ public final class MockedBeContainers extends BaseContainers {
 
     public MockedBeContainers(@Nullable final Path failureRecordingDirectory) {
         super(failureRecordingDirectory);
-        ms.withNetwork(getNetwork());
-        ms.withNetworkAliases(MS_HOST);
         ingress.withNetwork(getNetwork());
         ingress.withNetworkAliases(INGRESS_HOST);
+        recordLogs(INGRESS_HOST, ingress);
     }
 
     @Override
@@ -50,27 +50,33 @@ public final class MockedBeContainers extends BaseContainers {
     @Override
     public void start() {
         /*
-         * Start the containers bottom-up, and wait until each is ready, to reduce
-         * the number of transient connection errors.
+         * Start each container as soon as the containers it depends on are ready.
+         * The ingress needs the port of the mock back-end, but looks up the address
+         * of the front-end when it forwards requests, so it need not wait for it.
          */
-        startInParallel(ms, getFrontEnd(), getBrowser());
-        ingress.start();
+        start(createStartupScheduler()
+                .add(MS_HOST, () -> {
+                    ms.start();
+                    Testcontainers.exposeHostPorts(ms.getPort());
+                    ingress.withMockBackEndPort(ms.getPort());
+                })
+                .add(INGRESS_HOST, ingress::start, MS_HOST));
     }
 
     @Override
     protected void retainLogFiles(@Nonnull final String prefix) {
         assert getFailureRecordingDirectory() != null;
         super.retainLogFiles(prefix);
-        retainLogFile(getFailureRecordingDirectory(), prefix, MS_HOST, ms);
-        retainLogFile(getFailureRecordingDirectory(), prefix, INGRESS_HOST, ingress);
+        retainLogFile(getFailureRecordingDirectory(), prefix, MS_HOST, ms.getLogs());
     }
 
     @Override
     public void stop() {
-        getBrowser().stop();
+        stopBrowsers();
         ingress.stop();
         getFrontEnd().stop();
         ms.stop();
+        close();
     }
 
     @Override
@@ -13,9 +13,27 @@ public final class MockedBeWorld extends BaseWorld {
 
     private final MockedBeContainers containers;
 
+    /**
+     * @param failureRecordingDirectory The location of a directory in which to store files holding
+     *                                  verbose information about failed test cases. Or {@code null} if
+     *                                  no such records are to be made.
+     * @param sharedContainers          Whether to use the JVM-wide {@linkplain SharedContainers shared}
+     *                                  stack of containers, rather than a dedicated stack.
+     */
+    public MockedBeWorld(@Nullable final Path failureRecordingDirectory, final boolean sharedContainers) {
+        super(failureRecordingDirectory, sharedContainers);
+        containers = sharedContainers
+                ? SharedContainers.acquire(MockedBeContainers.class,
+                () -> new MockedBeContainers(failureRecordingDirectory))
+                : new MockedBeContainers(failureRecordingDirectory);
+    }
+
     public MockedBeWorld(@Nullable final Path failureRecordingDirectory) {
-        super(failureRecordingDirectory);
-        containers = new MockedBeContainers(failureRecordingDirectory);
+        this(failureRecordingDirectory, SHARE_CONTAINERS_BY_DEFAULT);
+    }
+
+    public MockedBeWorld(final boolean sharedContainers) {
+        this(DEFAULT_FAILURE_RECORDING_DIRECTORY, sharedContainers);
     }
 
     public MockedBeWorld() {
@@ -46,6 +64,23 @@ public final class MockedBeWorld extends BaseWorld {
         return homePage;
     }
 
+    /**
+     * <p>
+     * Log in as a user of the {@linkplain MockMcBackEndContainer#simulate() simulated} back-end,
+     * adding the user to the simulation.
+     * </p>
+     */
+    public HomePage logInAsSimulatedUser(final User user) {
+        final var simulation = getBackEnd().simulate();
+        simulation.addUser(user);
+        simulation.setLoggedInUser(user);
+        return navigateToHomePage();
+    }
+
+    public HomePage logInAsSimulatedUserWithTheRole(final Authority role) {
+        return logInAsSimulatedUser(createUser(EnumSet.of(role)));
+    }
+
     @Nonnull
     @Override
     public MockedBeContainers getContainers() {
@@ -57,4 +92,15 @@ public final class MockedBeWorld extends BaseWorld {
     protected UUID addUser(@Nonnull BasicUserDetails userDetails) {
         return UUID.randomUUID();
     }
+
+    /**
+     * <p>
+     * None: adding a user to the mocked back-end is trivial, so there is nothing to gain from doing it in advance.
+     * </p>
+     */
+    @Nonnull
+    @Override
+    protected Set<Set<Authority>> getAuthoritySetsToPreProvision() {
+        return Set.of();
+    }
 }
@@ -0,0 +1,83 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.Network;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+/**
+ * <p>
+ * A Docker network with a fixed name, which is created if it does not exist,
+ * and which is not removed when closed, so containers on it can be
+ * {@linkplain org.testcontainers.containers.GenericContainer#withReuse(boolean) reused}
+ * by later test runs.
+ * </p>
+ * <p>
+ * The ID of a network created by {@link Network#newNetwork()} differs for every run,
+ * and is part of the configuration of the containers on the network,
+ * so containers on such a network can never be reused.
+ * </p>
+ */
+final class ReusableNetwork implements Network {
+
+    @Nonnull
+    private final String name;
+    @Nullable
+    private String id;
+
+    ReusableNetwork(@Nonnull final String name) {
+        this.name = Objects.requireNonNull(name, "name");
+    }
+
+    @Override
+    public synchronized String getId() {
+        if (id == null) {
+            final var client = DockerClientFactory.instance().client();
+            id = client.listNetworksCmd().withNameFilter(name).exec().stream()
+                    .filter(network -> name.equals(network.getName()))
+                    .map(com.github.dockerjava.api.model.Network::getId)
+                    .findAny()
+                    .orElseGet(() -> client.createNetworkCmd()
+                            .withName(name)
+                            .withCheckDuplicate(true)
+                            .exec().getId());
+        }
+        return id;
+    }
+
+    /**
+     * <p>
+     * Does nothing: the network is retained for later test runs.
+     * </p>
+     */
+    @Override
+    public void close() {
+        // Do nothing
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,174 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A JVM-wide registry of container stacks that are shared by all the worlds
+ * (and therefore all the specifications) that use them.
+ * </p>
+ * <p>
+ * Starting a stack of containers is the most expensive part of an integration test,
+ * so a shared stack is started once, when first needed, and is not stopped
+ * when the number of worlds using it falls to zero, because another
+ * specification is likely to need it soon. Instead, all shared stacks are stopped
+ * when the JVM shuts down. Tests that share a stack are isolated from each
+ * other by cheap resets before each test.
+ * </p>
+ */
+final class SharedContainers {
+
+    private static final Map<Class<? extends BaseContainers>, Entry> ENTRIES = new HashMap<>();
+    private static boolean shutdownHookAdded = false;
+
+    private SharedContainers() {
+        throw new AssertionError("Class should not be instantiated");
+    }
+
+    /**
+     * <p>
+     * Provide the shared stack of a given type, creating it if necessary,
+     * and record that it has one more user.
+     * </p>
+     * <p>
+     * The stack is not necessarily started; use {@link #ensureStarted(BaseContainers)}.
+     * </p>
+     */
+    @Nonnull
+    static synchronized <CONTAINERS extends BaseContainers> CONTAINERS acquire(
+            @Nonnull final Class<CONTAINERS> type,
+            @Nonnull final Supplier<CONTAINERS> factory
+    ) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(factory, "factory");
+        addShutdownHook();
+        final var entry = ENTRIES.computeIfAbsent(type, t -> new Entry(factory.get()));
+        ++entry.references;
+        return type.cast(entry.containers);
+    }
+
+    /**
+     * <p>
+     * Start a shared stack, unless it has already been started.
+     * </p>
+     */
+    static synchronized void ensureStarted(@Nonnull final BaseContainers containers) {
+        final var entry = getEntry(containers);
+        if (!entry.started) {
+            containers.start();
+            entry.started = true;
+        }
+    }
+
+    /**
+     * <p>
+     * Record that a shared stack has one fewer user.
+     * </p>
+     */
+    static synchronized void release(@Nonnull final BaseContainers containers) {
+        final var entry = getEntry(containers);
+        if (entry.references <= 0) {
+            throw new IllegalStateException("Not acquired");
+        }
+        --entry.references;
+    }
+
+    /**
+     * <p>
+     * Whether a shared stack has exactly one user, so that user may change its state
+     * without affecting anything else.
+     * </p>
+     */
+    static synchronized boolean hasSoleUser(@Nonnull final BaseContainers containers) {
+        return getEntry(containers).references == 1;
+    }
+
+    /**
+     * <p>
+     * Perform an action that changes the state of a shared stack,
+     * but only if the stack has exactly one user.
+     * </p>
+     * <p>
+     * No other world can {@linkplain #acquire(Class, Supplier) acquire} the stack while the action is performed,
+     * so the action can not disturb a world that is already using the stack.
+     * </p>
+     *
+     * @return whether the action was performed
+     */
+    static synchronized boolean ifSoleUser(@Nonnull final BaseContainers containers, @Nonnull final Runnable action) {
+        Objects.requireNonNull(action, "action");
+        if (hasSoleUser(containers)) {
+            action.run();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Nonnull
+    private static Entry getEntry(@Nonnull final BaseContainers containers) {
+        Objects.requireNonNull(containers, "containers");
+        final var entry = ENTRIES.get(containers.getClass());
+        if (entry == null || entry.containers != containers) {
+            throw new IllegalArgumentException("Not a shared stack of containers");
+        }
+        return entry;
+    }
+
+    private static void addShutdownHook() {
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(SharedContainers::stopAll, "SharedContainers-stop"));
+            shutdownHookAdded = true;
+        }
+    }
+
+    private static synchronized void stopAll() {
+        for (final var entry : ENTRIES.values()) {
+            try {
+                if (entry.started) {
+                    // Stopping also closes
+                    entry.containers.stop();
+                } else {
+                    entry.containers.close();
+                }
+            } catch (final RuntimeException e) {
+                // Continue stopping the other stacks; the Testcontainers reaper will remove any leftovers
+            }
+        }
+        ENTRIES.clear();
+    }
+
+    private static final class Entry {
+        @Nonnull
+        final BaseContainers containers;
+        int references = 0;
+        boolean started = false;
+
+        Entry(@Nonnull final BaseContainers containers) {
+            this.containers = containers;
+        }
+    }
+}
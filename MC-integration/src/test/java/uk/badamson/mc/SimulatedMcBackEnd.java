@@ -0,0 +1,441 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
+import uk.badamson.mc.MockMcBackEndContainer.MockRequest;
+import uk.badamson.mc.MockMcBackEndContainer.MockResponse;
+import uk.badamson.mc.rest.GameResponse;
+import uk.badamson.mc.rest.Paths;
+import uk.badamson.mc.rest.ScenarioResponse;
+import uk.badamson.mc.rest.UserResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * A simulation of the MC back-end, holding its state in memory.
+ * </p>
+ * <p>
+ * The simulation serves users, scenarios and games from its live state,
+ * and applies the create, join, start, stop and end-recruitment mutations
+ * that the front-end requests, checking the authorities of the requesting user
+ * as the real back-end does.
+ * Users are authenticated by HTTP Basic authentication or by a session cookie,
+ * the latter set by getting the {@linkplain Paths#SELF_PATH self} resource.
+ * Requests without credentials are made by the {@linkplain #setLoggedInUser(User) logged-in user},
+ * if there is one.
+ * </p>
+ * <p>
+ * The state is held in concurrent maps that are never locked.
+ * Published {@link Game} objects are never modified:
+ * a mutation modifies a copy, and replaces the published game by compare-and-set,
+ * retrying if there was a concurrent mutation.
+ * </p>
+ */
+public final class SimulatedMcBackEnd {
+
+    private enum ResourceType {
+        SELF, CURRENT_GAME, USERS, USER, SCENARIOS, SCENARIO, GAMES_OF_SCENARIO, GAME
+    }
+
+    private record Resource(@Nonnull ResourceType type, @Nullable UUID id) {
+    }
+
+    private static final class GameEntry {
+        private final UUID scenario;
+        private final Game game;
+
+        private GameEntry(@Nonnull final UUID scenario, @Nonnull final Game game) {
+            this.scenario = scenario;
+            this.game = game;
+        }
+    }
+
+    @FunctionalInterface
+    private interface GameMutation {
+        /**
+         * @return The reason the mutation is not permitted, or null if the game was mutated.
+         */
+        @Nullable
+        HttpResponseStatus apply(@Nonnull Game game, @Nonnull Scenario scenario);
+    }
+
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+    private final Map<UUID, User> users = new ConcurrentHashMap<>();
+    private final Map<String, User> usersByName = new ConcurrentHashMap<>();
+    private final Map<UUID, Scenario> scenarios = new ConcurrentHashMap<>();
+    private final Map<UUID, GameEntry> games = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> currentGames = new ConcurrentHashMap<>();
+    private final Map<String, UUID> sessions = new ConcurrentHashMap<>();
+    @Nullable
+    private volatile User loggedInUser;
+
+    SimulatedMcBackEnd() {
+        resources.put(Paths.SELF_PATH, new Resource(ResourceType.SELF, null));
+        resources.put(Paths.CURRENT_GAME_PATH, new Resource(ResourceType.CURRENT_GAME, null));
+        resources.put(Paths.USERS_PATH, new Resource(ResourceType.USERS, null));
+        resources.put(Paths.SCENARIOS_PATH, new Resource(ResourceType.SCENARIOS, null));
+    }
+
+    @Nonnull
+    private static Game copy(@Nonnull final Game game, @Nonnull final Scenario scenario) {
+        final var result = new Game(game.getCreated(), game.getRunState(), game.isRecruiting(), game.getUsers());
+        result.setScenario(scenario);
+        return result;
+    }
+
+    @Nullable
+    private static UUID findFreeCharacter(@Nonnull final Game game, @Nonnull final Scenario scenario) {
+        final var users = game.getUsers();
+        return scenario.getCharacters().stream()
+                .map(NamedUUID::getId)
+                .filter(character -> !users.containsKey(character))
+                .findFirst().orElse(null);
+    }
+
+    private static boolean hasAuthority(@Nullable final User user, @Nonnull final Authority authority) {
+        return user != null && user.getAuthorities().contains(authority);
+    }
+
+    @Nonnull
+    private static MockResponse json(@Nonnull final Object body) {
+        return MockResponse.json(MockMcBackEndContainer.encodeAsJson(body));
+    }
+
+    /**
+     * @throws IllegalArgumentException If there is already a user with the same username.
+     */
+    public void addUser(@Nonnull final User user) {
+        Objects.requireNonNull(user, "user");
+        if (usersByName.putIfAbsent(user.getUsername(), user) != null) {
+            throw new IllegalArgumentException("duplicate username " + user.getUsername());
+        }
+        users.put(user.getId(), user);
+        resources.put(Paths.createPathForUser(user.getId()), new Resource(ResourceType.USER, user.getId()));
+    }
+
+    public void addScenario(@Nonnull final UUID id, @Nonnull final Scenario scenario) {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(scenario, "scenario");
+        scenarios.put(id, scenario);
+        resources.put(Paths.createPathForScenario(id), new Resource(ResourceType.SCENARIO, id));
+        resources.put(Paths.createPathForGamesOfScenario(id), new Resource(ResourceType.GAMES_OF_SCENARIO, id));
+    }
+
+    /**
+     * <p>
+     * Add a game, which the simulation copies,
+     * and record it as the current game of the users playing it.
+     * </p>
+     *
+     * @throws IllegalArgumentException If the {@code scenario} has not been {@linkplain #addScenario(UUID, Scenario) added}.
+     */
+    public void addGame(@Nonnull final UUID id, @Nonnull final UUID scenario, @Nonnull final Game game) {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(game, "game");
+        final var scenarioObject = scenarios.get(scenario);
+        if (scenarioObject == null) {
+            throw new IllegalArgumentException("unknown scenario " + scenario);
+        }
+        games.put(id, new GameEntry(scenario, copy(game, scenarioObject)));
+        resources.put(Paths.createPathForGame(id), new Resource(ResourceType.GAME, id));
+        game.getUsers().values().forEach(user -> currentGames.put(user, id));
+    }
+
+    /**
+     * <p>
+     * Treat requests that have no credentials as made by a given user,
+     * as if the browser had already logged in as that user.
+     * </p>
+     *
+     * @param user The user, or null if requests without credentials are unauthenticated.
+     */
+    public void setLoggedInUser(@Nullable final User user) {
+        loggedInUser = user;
+    }
+
+    /**
+     * <p>
+     * A copy of the current state of a game.
+     * </p>
+     */
+    @Nonnull
+    public Optional<Game> getGame(@Nonnull final UUID id) {
+        final var entry = games.get(id);
+        return entry == null ? Optional.empty() : Optional.of(copy(entry.game, scenarios.get(entry.scenario)));
+    }
+
+    @Nonnull
+    public Optional<UUID> getCurrentGameOfUser(@Nonnull final UUID user) {
+        return Optional.ofNullable(currentGames.get(user));
+    }
+
+    /**
+     * <p>
+     * Respond to a request, if it is for a resource of the simulation.
+     * </p>
+     *
+     * @return The response, or null if the request is not for a known resource.
+     */
+    @Nullable
+    MockResponse handle(@Nonnull final MockRequest request) {
+        final var resource = resources.get(request.path());
+        if (resource == null) {
+            return null;
+        }
+        final boolean get = "GET".equals(request.method());
+        final boolean post = "POST".equals(request.method());
+        final User user = authenticate(request);
+        return switch (resource.type()) {
+            case SELF -> get ? getSelf(request, user) : null;
+            case CURRENT_GAME -> get ? getCurrentGame(user) : null;
+            case USERS -> get ? getUsers(user) : post ? addUser(request, user) : null;
+            case USER -> get ? getUser(resource.id(), user) : null;
+            case SCENARIOS -> get ? getScenarios() : null;
+            case SCENARIO -> get ? json(ScenarioResponse.convertToResponse(resource.id(), scenarios.get(resource.id()))) : null;
+            case GAMES_OF_SCENARIO -> get ? getGamesOfScenario(resource.id()) : post ? createGame(resource.id(), user) : null;
+            case GAME -> get ? getGame(resource.id(), request.query(), user) : post ? mutateGame(resource.id(), request.query(), user) : null;
+        };
+    }
+
+    @Nullable
+    private User authenticate(@Nonnull final MockRequest request) {
+        final String authorization = request.headers().get(HttpHeaderNames.AUTHORIZATION);
+        if (authorization != null && authorization.startsWith("Basic ")) {
+            final String credentials = new String(
+                    Base64.getDecoder().decode(authorization.substring("Basic ".length()).trim()),
+                    StandardCharsets.UTF_8);
+            final int colon = credentials.indexOf(':');
+            if (colon < 0) {
+                return null;
+            }
+            final var user = usersByName.get(credentials.substring(0, colon));
+            return user != null && user.getPassword().equals(credentials.substring(colon + 1)) ? user : null;
+        }
+        final String cookieHeader = request.headers().get(HttpHeaderNames.COOKIE);
+        if (cookieHeader != null) {
+            for (final Cookie cookie : ServerCookieDecoder.LAX.decode(cookieHeader)) {
+                if (MockMcBackEndContainer.SESSION_COOKIE.equals(cookie.name())) {
+                    final var id = sessions.get(cookie.value());
+                    return id == null ? null : users.get(id);
+                }
+            }
+        }
+        return loggedInUser;
+    }
+
+    @Nonnull
+    private MockResponse getSelf(@Nonnull final MockRequest request, @Nullable final User user) {
+        if (user == null) {
+            return MockResponse.status(HttpResponseStatus.UNAUTHORIZED);
+        }
+        final byte[] body = MockMcBackEndContainer.encodeAsJson(UserResponse.convertToResponse(user));
+        if (request.headers().contains(HttpHeaderNames.AUTHORIZATION)) {
+            final String session = UUID.randomUUID().toString();
+            sessions.put(session, user.getId());
+            return MockResponse.login(body, session, UUID.randomUUID().toString());
+        } else {
+            return MockResponse.json(body);
+        }
+    }
+
+    @Nonnull
+    private MockResponse getCurrentGame(@Nullable final User user) {
+        if (user == null) {
+            return MockResponse.status(HttpResponseStatus.UNAUTHORIZED);
+        }
+        final var game = currentGames.get(user.getId());
+        return game == null ? MockResponse.NOT_FOUND : MockResponse.found(Paths.createPathForGame(game));
+    }
+
+    @Nonnull
+    private MockResponse getUsers(@Nullable final User user) {
+        if (user == null) {
+            return MockResponse.status(HttpResponseStatus.UNAUTHORIZED);
+        }
+        return json(users.values().stream()
+                .map(UserResponse::convertToResponse)
+                .collect(Collectors.toUnmodifiableList()));
+    }
+
+    @Nonnull
+    private MockResponse getUser(@Nonnull final UUID id, @Nullable final User user) {
+        if (user == null) {
+            return MockResponse.status(HttpResponseStatus.UNAUTHORIZED);
+        }
+        return json(UserResponse.convertToResponse(users.get(id)));
+    }
+
+    @Nonnull
+    private MockResponse addUser(@Nonnull final MockRequest request, @Nullable final User user) {
+        if (!hasAuthority(user, Authority.ROLE_MANAGE_USERS)) {
+            return MockResponse.status(user == null ? HttpResponseStatus.UNAUTHORIZED : HttpResponseStatus.FORBIDDEN);
+        }
+        final JsonNode body = MockMcBackEndContainer.decodeJson(request.body());
+        if (body == null || !body.hasNonNull("username") || !body.hasNonNull("password")) {
+            return MockResponse.status(HttpResponseStatus.BAD_REQUEST);
+        }
+        final var authorities = EnumSet.noneOf(Authority.class);
+        body.path("authorities").forEach(a -> authorities.add(Authority.valueOf(a.asText())));
+        final var newUser = new User(UUID.randomUUID(), new BasicUserDetails(
+                body.get("username").asText(), body.get("password").asText(), authorities,
+                true, true, true, true));
+        try {
+            addUser(newUser);
+        } catch (final IllegalArgumentException e) {
+            return MockResponse.status(HttpResponseStatus.CONFLICT);
+        }
+        return MockResponse.found(Paths.createPathForUser(newUser.getId()));
+    }
+
+    @Nonnull
+    private MockResponse getScenarios() {
+        return json(scenarios.entrySet().stream()
+                .map(e -> new NamedUUID(e.getKey(), e.getValue().getTitle()))
+                .collect(Collectors.toUnmodifiableList()));
+    }
+
+    @Nonnull
+    private MockResponse getGamesOfScenario(@Nonnull final UUID scenario) {
+        return json(games.entrySet().stream()
+                .filter(e -> e.getValue().scenario.equals(scenario))
+                .map(e -> new NamedUUID(e.getKey(), e.getValue().game.getCreated().toString()))
+                .collect(Collectors.toUnmodifiableList()));
+    }
+
+    @Nonnull
+    private MockResponse createGame(@Nonnull final UUID scenario, @Nullable final User user) {
+        if (!hasAuthority(user, Authority.ROLE_MANAGE_GAMES)) {
+            return MockResponse.status(user == null ? HttpResponseStatus.UNAUTHORIZED : HttpResponseStatus.FORBIDDEN);
+        }
+        final var id = UUID.randomUUID();
+        addGame(id, scenario, new Game(Instant.now(), Game.RunState.WAITING_TO_START, true, Map.of()));
+        return MockResponse.found(Paths.createPathForGame(id));
+    }
+
+    @Nonnull
+    private MockResponse getGame(@Nonnull final UUID id, @Nonnull final String query, @Nullable final User user) {
+        if (user == null) {
+            return MockResponse.status(HttpResponseStatus.UNAUTHORIZED);
+        }
+        final var entry = games.get(id);
+        return switch (query) {
+            case "" -> json(GameResponse.convertToResponse(id, entry.scenario, entry.game));
+            case "mayJoin" -> json(mayJoin(id, entry, user));
+            default -> MockResponse.status(HttpResponseStatus.BAD_REQUEST);
+        };
+    }
+
+    private boolean mayJoin(@Nonnull final UUID id, @Nonnull final GameEntry entry, @Nonnull final User user) {
+        final var currentGame = currentGames.get(user.getId());
+        if (!hasAuthority(user, Authority.ROLE_PLAYER) || currentGame != null && !currentGame.equals(id)) {
+            return false;
+        }
+        return entry.game.getUsers().containsValue(user.getId())
+                || entry.game.isRecruiting() && findFreeCharacter(entry.game, scenarios.get(entry.scenario)) != null;
+    }
+
+    @Nonnull
+    private MockResponse mutateGame(@Nonnull final UUID id, @Nonnull final String query, @Nullable final User user) {
+        return switch (query) {
+            case "join" -> join(id, user);
+            case "start" -> mutateGame(id, user, Authority.ROLE_MANAGE_GAMES, (game, scenario) -> {
+                if (game.getRunState() == Game.RunState.STOPPED) {
+                    return HttpResponseStatus.CONFLICT;
+                }
+                game.setRunState(Game.RunState.RUNNING);
+                return null;
+            });
+            case "stop" -> mutateGame(id, user, Authority.ROLE_MANAGE_GAMES, (game, scenario) -> {
+                game.setRunState(Game.RunState.STOPPED);
+                return null;
+            });
+            case "endRecruitment" -> mutateGame(id, user, Authority.ROLE_MANAGE_GAMES, (game, scenario) -> {
+                game.endRecruitment();
+                return null;
+            });
+            default -> MockResponse.status(HttpResponseStatus.BAD_REQUEST);
+        };
+    }
+
+    @Nonnull
+    private MockResponse join(@Nonnull final UUID id, @Nullable final User user) {
+        if (!hasAuthority(user, Authority.ROLE_PLAYER)) {
+            return MockResponse.status(user == null ? HttpResponseStatus.UNAUTHORIZED : HttpResponseStatus.FORBIDDEN);
+        }
+        final var userId = user.getId();
+        final var previousGame = currentGames.putIfAbsent(userId, id);
+        if (previousGame != null && !previousGame.equals(id)) {
+            return MockResponse.status(HttpResponseStatus.CONFLICT);
+        }
+        final var response = mutateGame(id, user, Authority.ROLE_PLAYER, (game, scenario) -> {
+            if (game.getUsers().containsValue(userId)) {
+                return null;
+            }
+            final var character = game.isRecruiting() ? findFreeCharacter(game, scenario) : null;
+            if (character == null) {
+                return HttpResponseStatus.CONFLICT;
+            }
+            game.addUser(character, userId);
+            if (findFreeCharacter(game, scenario) == null) {
+                game.endRecruitment();
+            }
+            return null;
+        });
+        if (previousGame == null && response.status() != HttpResponseStatus.FOUND) {
+            currentGames.remove(userId, id);
+        }
+        return response;
+    }
+
+    @Nonnull
+    private MockResponse mutateGame(
+            @Nonnull final UUID id,
+            @Nullable final User user,
+            @Nonnull final Authority authority,
+            @Nonnull final GameMutation mutation) {
+        if (!hasAuthority(user, authority)) {
+            return MockResponse.status(user == null ? HttpResponseStatus.UNAUTHORIZED : HttpResponseStatus.FORBIDDEN);
+        }
+        while (true) {
+            final var entry = games.get(id);
+            final var scenario = scenarios.get(entry.scenario);
+            final var mutated = copy(entry.game, scenario);
+            final var failure = mutation.apply(mutated, scenario);
+            if (failure != null) {
+                return MockResponse.status(failure);
+            }
+            if (games.replace(id, entry, new GameEntry(entry.scenario, mutated))) {
+                return MockResponse.found(Paths.createPathForGame(id));
+            }
+        }
+    }
+}
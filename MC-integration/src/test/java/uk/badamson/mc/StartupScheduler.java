@@ -0,0 +1,155 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Starts a set of containers (or other resources) as early as possible,
+ * respecting the dependencies between them.
+ * </p>
+ * <p>
+ * Each task is started as soon as all the tasks it depends on have finished,
+ * so independent tasks run in parallel.
+ * The dependencies of a task must be added before the task,
+ * which ensures that the dependencies form a directed acyclic graph.
+ * If a task fails, the tasks that depend on it are not started.
+ * </p>
+ * <p>
+ * The scheduler records how long each task took, and when it finished.
+ * </p>
+ */
+final class StartupScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupScheduler.class);
+    private static final AtomicInteger N_THREADS = new AtomicInteger(0);
+
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private final Map<String, Duration> durations = new ConcurrentHashMap<>();
+    private final Map<String, Duration> readyTimes = new ConcurrentHashMap<>();
+
+    private record Task(@Nonnull String name, @Nonnull Runnable action, @Nonnull List<String> dependencies) {
+    }
+
+    /**
+     * @throws IllegalArgumentException If there is already a task with the given {@code name}, or
+     *                                  if one of the {@code dependencies} has not been added.
+     */
+    @Nonnull
+    StartupScheduler add(@Nonnull final String name, @Nonnull final Runnable action, @Nonnull final String... dependencies) {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(action, "action");
+        for (final var dependency : dependencies) {
+            if (!tasks.containsKey(dependency)) {
+                throw new IllegalArgumentException("Unknown dependency " + dependency + " of " + name);
+            }
+        }
+        if (tasks.putIfAbsent(name, new Task(name, action, List.of(dependencies))) != null) {
+            throw new IllegalArgumentException("Duplicate task " + name);
+        }
+        return this;
+    }
+
+    /**
+     * <p>
+     * Run all the tasks, waiting until they have all finished.
+     * </p>
+     *
+     * @throws RuntimeException If any task failed; the exception thrown by the (first) failed task.
+     */
+    void run() {
+        final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            final var thread = new Thread(runnable, "StartupScheduler-" + N_THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long start = System.nanoTime();
+        try {
+            final Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+            for (final var task : tasks.values()) {
+                final CompletableFuture<?>[] dependencies = task.dependencies().stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                futures.put(task.name(), CompletableFuture.allOf(dependencies)
+                        .thenRunAsync(() -> run(task, start), executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture<?>[]::new)).join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+        LOGGER.info("Started in {} ms: {}", Duration.ofNanos(System.nanoTime() - start).toMillis(), this);
+    }
+
+    private void run(@Nonnull final Task task, final long scheduleStart) {
+        final long start = System.nanoTime();
+        task.action().run();
+        final long end = System.nanoTime();
+        durations.put(task.name(), Duration.ofNanos(end - start));
+        readyTimes.put(task.name(), Duration.ofNanos(end - scheduleStart));
+    }
+
+    /**
+     * <p>
+     * How long each task that has finished took, in the order the tasks were added.
+     * </p>
+     */
+    @Nonnull
+    Map<String, Duration> getDurations() {
+        final Map<String, Duration> result = new LinkedHashMap<>();
+        for (final var name : tasks.keySet()) {
+            final var duration = durations.get(name);
+            if (duration != null) {
+                result.put(name, duration);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public String toString() {
+        final var builder = new StringBuilder();
+        for (final var entry : getDurations().entrySet()) {
+            final var name = entry.getKey();
+            if (!builder.isEmpty()) {
+                builder.append(", ");
+            }
+            builder.append(name).append(' ').append(entry.getValue().toMillis()).append(" ms (ready at ")
+                    .append(readyTimes.get(name).toMillis()).append(" ms)");
+        }
+        return builder.toString();
+    }
+}
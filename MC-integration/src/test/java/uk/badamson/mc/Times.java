@@ -0,0 +1,83 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * <p>
+ * How many times a {@linkplain MockMcBackEndContainer mock back-end} expectation
+ * may match a request before it is used up.
+ * </p>
+ */
+@Immutable
+public final class Times {
+
+    private static final int UNLIMITED = -1;
+    private static final Times ONCE = new Times(1);
+    private static final Times UNLIMITED_TIMES = new Times(UNLIMITED);
+
+    private final int count;
+
+    private Times(final int count) {
+        this.count = count;
+    }
+
+    @Nonnull
+    public static Times once() {
+        return ONCE;
+    }
+
+    @Nonnull
+    public static Times unlimited() {
+        return UNLIMITED_TIMES;
+    }
+
+    /**
+     * @throws IllegalArgumentException If {@code count} is not positive.
+     */
+    @Nonnull
+    public static Times exactly(@Nonnegative final int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count " + count);
+        }
+        return count == 1 ? ONCE : new Times(count);
+    }
+
+    public boolean isUnlimited() {
+        return count == UNLIMITED;
+    }
+
+    /**
+     * <p>
+     * The number of matches permitted, if not {@linkplain #isUnlimited() unlimited}.
+     * </p>
+     */
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return isUnlimited() ? "unlimited" : "exactly " + count;
+    }
+}
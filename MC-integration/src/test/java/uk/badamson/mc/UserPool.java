@@ -0,0 +1,190 @@
+package uk.badamson.mc;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A pool of users that have already been created, for each set of authorities,
+ * filled in the background.
+ * </p>
+ * <p>
+ * Taking a user from the pool does not wait for a user to be created,
+ * unless the pool for that set of authorities has been exhausted.
+ * </p>
+ */
+final class UserPool implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserPool.class);
+
+    private static final AtomicInteger N_THREADS = new AtomicInteger(0);
+
+    @Nonnull
+    private final Function<Set<Authority>, User> creator;
+    @Nonnegative
+    private final int reserve;
+    private final Map<Set<Authority>, Reserve> reserves = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong(0);
+    private final ExecutorService executor;
+
+    /**
+     * @param creator     The function that creates a user having a given set of authorities.
+     *                    It must be safe to call from several threads at the same time.
+     * @param reserve     The number of users to keep ready for each set of authorities.
+     * @param concurrency The maximum number of users to create in the background at the same time.
+     */
+    UserPool(
+            @Nonnull final Function<Set<Authority>, User> creator,
+            @Nonnegative final int reserve,
+            @Nonnegative final int concurrency
+    ) {
+        this.creator = Objects.requireNonNull(creator, "creator");
+        if (reserve < 0) {
+            throw new IllegalArgumentException("reserve " + reserve);
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency " + concurrency);
+        }
+        this.reserve = reserve;
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final var thread = new Thread(runnable, "UserPool-" + N_THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Nonnull
+    private Reserve getReserve(@Nonnull final Set<Authority> authorities) {
+        return reserves.computeIfAbsent(Set.copyOf(authorities), k -> new Reserve());
+    }
+
+    /**
+     * <p>
+     * Start filling the pool for each of some sets of authorities.
+     * </p>
+     */
+    void warm(@Nonnull final Collection<? extends Set<Authority>> authoritySets) {
+        Objects.requireNonNull(authoritySets, "authoritySets");
+        authoritySets.forEach(this::topUp);
+    }
+
+    /**
+     * <p>
+     * Take a user having a given set of authorities.
+     * </p>
+     * <p>
+     * The user is newly created, and has not been given to any other client of the pool.
+     * </p>
+     */
+    @Nonnull
+    User take(@Nonnull final Set<Authority> authorities) {
+        Objects.requireNonNull(authorities, "authorities");
+        final var key = Set.copyOf(authorities);
+        final var reserve = getReserve(key);
+        final var user = reserve.users.poll();
+        if (user != null) {
+            reserve.provisioned.decrementAndGet();
+        }
+        topUp(key);
+        return user == null ? creator.apply(key) : user;
+    }
+
+    private void topUp(@Nonnull final Set<Authority> authorities) {
+        final var key = Set.copyOf(authorities);
+        final var reserve = getReserve(key);
+        final var submittedGeneration = generation.get();
+        /* Reserve each slot atomically, so concurrent top-ups do not overshoot the reserve. */
+        while (reserve.provisioned.getAndUpdate(n -> n < this.reserve ? n + 1 : n) < this.reserve) {
+            try {
+                executor.execute(() -> provision(key, reserve, submittedGeneration));
+            } catch (final RejectedExecutionException e) {
+                reserve.provisioned.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void provision(
+            @Nonnull final Set<Authority> authorities,
+            @Nonnull final Reserve reserve,
+            final long submittedGeneration
+    ) {
+        boolean added = false;
+        try {
+            final var user = creator.apply(authorities);
+            if (generation.get() == submittedGeneration) {
+                reserve.users.add(user);
+                added = true;
+            }
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Unable to pre-provision user with authorities {}", authorities, e);
+        } finally {
+            if (!added) {
+                reserve.provisioned.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Discard all the users in the pool, and any users currently being created.
+     * </p>
+     * <p>
+     * For use when the users have been deleted, such as when the database is reset.
+     * </p>
+     */
+    void clear() {
+        generation.incrementAndGet();
+        reserves.values().forEach(r -> r.provisioned.addAndGet(-r.users.drainTo(new ArrayList<>())));
+    }
+
+    @Override
+    public void close() {
+        clear();
+        executor.shutdownNow();
+    }
+
+    private static final class Reserve {
+        /*
+         * The number of users in the queue plus the number being created.
+         */
+        final AtomicInteger provisioned = new AtomicInteger(0);
+        final BlockingQueue<User> users = new LinkedBlockingQueue<>();
+    }
+}
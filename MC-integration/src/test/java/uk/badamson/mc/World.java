@@ -18,21 +18,52 @@ package uk.badamson.mc;
  * along with MC.  If not, see <https://www.gnu.org/licenses/>.
  */
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Stream;
 
 public final class World extends BaseWorld {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(World.class);
+
+    /**
+     * <p>
+     * The maximum number of requests to the back-end in progress at the same time
+     * while creating many resources.
+     * </p>
+     */
+    private static final int BULK_CREATION_CONCURRENCY = 16;
+
     private final McContainers containers;
 
+    /**
+     * @param failureRecordingDirectory The location of a directory in which to store files holding
+     *                                  verbose information about failed test cases. Or {@code null} if
+     *                                  no such records are to be made.
+     * @param sharedContainers          Whether to use the JVM-wide {@linkplain SharedContainers shared}
+     *                                  stack of containers, rather than a dedicated stack.
+     */
+    public World(@Nullable final Path failureRecordingDirectory, final boolean sharedContainers) {
+        super(failureRecordingDirectory, sharedContainers);
+        containers = sharedContainers
+                ? SharedContainers.acquire(McContainers.class, () -> new McContainers(failureRecordingDirectory))
+                : new McContainers(failureRecordingDirectory);
+    }
+
     public World(@Nullable final Path failureRecordingDirectory) {
-        super(failureRecordingDirectory);
-        containers = new McContainers(failureRecordingDirectory);
+        this(failureRecordingDirectory, SHARE_CONTAINERS_BY_DEFAULT);
     }
 
     private static <TYPE> boolean intersects(final Set<TYPE> set1,
@@ -42,18 +73,153 @@ public final class World extends BaseWorld {
     }
 
     public UUID createGame(final UUID scenario) {
-        return createBackEndClient().createGame(scenario);
+        return getBackEndClient().createGame(scenario);
+    }
+
+    /**
+     * <p>
+     * Put the database into the state it had just after the containers were started,
+     * deleting all users and games created since then.
+     * </p>
+     * <p>
+     * This takes milliseconds, so can be done between specifications or features.
+     * It must not be done while other tests are using the same containers.
+     * </p>
+     */
+    public void resetDatabase() {
+        containers.resetDatabase();
+        replacePreProvisionedUsers();
+    }
+
+    /**
+     * <p>
+     * If this world is the only user of a shared stack of containers,
+     * reset its database so this world does not see the state left by previous users.
+     * </p>
+     */
+    @Override
+    protected void prepareContainers() {
+        if (isUsingSharedContainers()) {
+            SharedContainers.ifSoleUser(containers, containers::resetDatabase);
+        }
+    }
+
+    /**
+     * <p>
+     * Create many games of a scenario, concurrently.
+     * </p>
+     * <p>
+     * Failure to create some of the games is not fatal;
+     * the throughput and failures are logged, and recorded in the returned result.
+     * </p>
+     */
+    @Nonnull
+    public BulkCreationResult<UUID> createGames(@Nonnull final UUID scenario, @Nonnegative final int n) {
+        final var result = getBackEndClient().createGames(scenario, n, BULK_CREATION_CONCURRENCY);
+        LOGGER.info("Bulk creation of {} games: {}", n, result);
+        return result;
+    }
+
+    /**
+     * <p>
+     * Create many users that have all authorities, concurrently.
+     * </p>
+     *
+     * @see #createUsers(int, Set)
+     */
+    @Nonnull
+    public BulkCreationResult<User> createUsers(@Nonnegative final int n) {
+        return createUsers(n, Authority.ALL);
+    }
+
+    /**
+     * <p>
+     * Create many users, concurrently.
+     * </p>
+     * <p>
+     * Failure to create some of the users is not fatal;
+     * the throughput and failures are logged, and recorded in the returned result.
+     * </p>
+     */
+    @Nonnull
+    public BulkCreationResult<User> createUsers(
+            @Nonnegative final int n,
+            @Nonnull final Set<Authority> authorities
+    ) {
+        Objects.requireNonNull(authorities, "authorities");
+        if (n < 0) {
+            throw new IllegalArgumentException("n " + n);
+        }
+        final var users = new ArrayList<BasicUserDetails>(n);
+        for (int u = 0; u < n; ++u) {
+            users.add(generateBasicUserDetails(authorities));
+        }
+        final var result = getBackEndClient().addUsers(users, BULK_CREATION_CONCURRENCY);
+        LOGGER.info("Bulk creation of {} users: {}", n, result);
+        return result;
+    }
+
+    /**
+     * <p>
+     * Have some users try to join a game, all at the same moment.
+     * </p>
+     * <p>
+     * The throughput, latency and contention are logged, and recorded in the returned result.
+     * </p>
+     *
+     * @param maxAttempts The maximum number of join requests each user may make.
+     */
+    @Nonnull
+    public JoinContentionResult joinGameConcurrently(
+            @Nonnull final UUID game,
+            @Nonnull final Collection<? extends User> users,
+            @Nonnegative final int maxAttempts
+    ) {
+        final var result = JoinContentionResult.create(getBackEndClient(), game, users, maxAttempts);
+        LOGGER.info("Concurrent joining of game: {}", result);
+        return result;
+    }
+
+    /**
+     * <p>
+     * The IDs of the characters of a scenario.
+     * </p>
+     */
+    @Nonnull
+    public Set<UUID> getScenarioCharacters(@Nonnull final UUID scenario) {
+        return getBackEndClient().getScenarioCharacters(scenario);
+    }
+
+    /**
+     * <p>
+     * The users playing a game, as a map from the IDs of the characters to the IDs of the users playing them.
+     * </p>
+     */
+    @Nonnull
+    public Map<UUID, UUID> getGameUsers(@Nonnull final UUID game) {
+        return getBackEndClient().getGameUsers(game);
+    }
+
+    /**
+     * <p>
+     * The ID of the game that a user is currently playing, if any,
+     * according to the {@linkplain uk.badamson.mc.rest.Paths#CURRENT_GAME_PATH current-game resource}.
+     * </p>
+     */
+    @Nonnull
+    public Optional<UUID> getCurrentGame(@Nonnull final User user) {
+        return getBackEndClient().getCurrentGame(user);
     }
 
     @Nonnull
-    private McBackEndClient createBackEndClient() {
-        return containers.getBackEnd().createClient();
+    private McBackEndClient getBackEndClient() {
+        return containers.getBackEndClient();
     }
 
     @Override
     @Nonnull
     protected UUID addUser(@Nonnull final BasicUserDetails userDetails) {
-        return createBackEndClient().addUser(userDetails);
+        return getBackEndClient().addUser(userDetails);
     }
 
     public User createUserWithRoles(final Set<Authority> included,
@@ -74,7 +240,7 @@ public final class World extends BaseWorld {
 
     @Nonnull
     public Stream<NamedUUID> getScenarios() {
-        return createBackEndClient().getScenarios();
+        return getBackEndClient().getScenarios();
     }
 
     @Nonnull
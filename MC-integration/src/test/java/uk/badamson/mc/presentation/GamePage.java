@@ -66,66 +66,91 @@ public final class GamePage extends Page {
     private static final Matcher<String> INDICATES_JOINING_INFORMATION = anyOf(
             INDICATES_IS_JOINABLE, INDICATES_IS_NOT_JOINABLE);
 
-    private static final By SCENARIO_LINK_LOCATOR = By.id("scenario");
-    private static final By RECRUITING_ELEMENT_LOCATOR = By.id("recruiting");
-    private static final By RUN_STATE_ELEMENT_LOCATOR = By.id("run-state");
-    private static final By PLAYING_ELEMENT_LOCATOR = By.id("playing");
-    private static final By JOINABLE_ELEMENT_LOCATOR = By.id("joinable");
+    private static final String SCENARIO_LINK_ID = "scenario";
+    private static final String RECRUITING_ELEMENT_ID = "recruiting";
+    private static final String RUN_STATE_ELEMENT_ID = "run-state";
+    private static final String PLAYING_ELEMENT_ID = "playing";
+    private static final String JOINABLE_ELEMENT_ID = "joinable";
+    private static final String END_RECRUITMENT_ELEMENT_ID = "end-recruitment";
+    private static final String JOIN_BUTTON_ID = "join";
+    private static final String START_BUTTON_ID = "start";
+    private static final String STOP_BUTTON_ID = "stop";
+    private static final String PLAYED_CHARACTERS_ELEMENT_ID = "played-characters";
+
+    private static final By SCENARIO_LINK_LOCATOR = By.id(SCENARIO_LINK_ID);
     private static final By END_RECRUITMENT_ELEMENT_LOCATOR = By
-            .id("end-recruitment");
-    private static final By JOIN_BUTTON_LOCATOR = By.id("join");
-    private static final By START_BUTTON_LOCATOR = By.id("start");
-    private static final By STOP_BUTTON_LOCATOR = By.id("stop");
-    private static final By PLAYED_CHARACTERS_ELEMENT_LOCATOR = By
-            .id("played-characters");
-
-    private static final Matcher<WebElement> HAS_ENDED_RECRUITMENT = new WebElementMatcher() {
-
-        @Override
-        protected boolean matchesSafely(final WebElement body,
-                                        final Description mismatchDescription) {
-            final var elements = body.findElements(RECRUITING_ELEMENT_LOCATOR);
-            return elements.size() == 1 && INDICATES_IS_NOT_RECRUITING_PLAYERS
-                    .matches(elements.get(0).getText());
+            .id(END_RECRUITMENT_ELEMENT_ID);
+    private static final By JOIN_BUTTON_LOCATOR = By.id(JOIN_BUTTON_ID);
+    private static final By START_BUTTON_LOCATOR = By.id(START_BUTTON_ID);
+    private static final By STOP_BUTTON_LOCATOR = By.id(STOP_BUTTON_ID);
+
+    private static final String SCENARIO_LINK = selectorForId(SCENARIO_LINK_ID);
+    private static final String RECRUITING_ELEMENT = selectorForId(RECRUITING_ELEMENT_ID);
+    private static final String RUN_STATE_ELEMENT = selectorForId(RUN_STATE_ELEMENT_ID);
+    private static final String PLAYING_ELEMENT = selectorForId(PLAYING_ELEMENT_ID);
+    private static final String JOINABLE_ELEMENT = selectorForId(JOINABLE_ELEMENT_ID);
+    private static final String END_RECRUITMENT_ELEMENT = selectorForId(END_RECRUITMENT_ELEMENT_ID);
+    private static final String JOIN_BUTTON = selectorForId(JOIN_BUTTON_ID);
+    private static final String START_BUTTON = selectorForId(START_BUTTON_ID);
+    private static final String STOP_BUTTON = selectorForId(STOP_BUTTON_ID);
+    private static final String PLAYED_CHARACTERS_ELEMENT = selectorForId(PLAYED_CHARACTERS_ELEMENT_ID);
+
+    /**
+     * <p>
+     * All the elements of interest of a game page, so one snapshot serves all assertions.
+     * </p>
+     */
+    private static final String[] ELEMENTS = {SCENARIO_LINK, RECRUITING_ELEMENT, RUN_STATE_ELEMENT,
+            PLAYING_ELEMENT, JOINABLE_ELEMENT, END_RECRUITMENT_ELEMENT, JOIN_BUTTON, START_BUTTON,
+            STOP_BUTTON, PLAYED_CHARACTERS_ELEMENT};
+
+    private static final Matcher<WebElement> HAS_ENDED_RECRUITMENT = new ElementTextMatcher(
+            RECRUITING_ELEMENT, INDICATES_IS_NOT_RECRUITING_PLAYERS);
+
+    private static final Matcher<WebElement> IS_PLAYING_GAME = new ElementTextMatcher(
+            PLAYING_ELEMENT, INDICATES_IS_PLAYING);
+
+    private static final Matcher<WebElement> IS_RUNNING = new ElementTextMatcher(
+            RUN_STATE_ELEMENT, INDICATES_IS_RUNNING);
+
+    private static final Matcher<WebElement> IS_NOT_RUNNING = new ElementTextMatcher(
+            RUN_STATE_ELEMENT, not(INDICATES_IS_RUNNING));
+
+    private static final class ElementTextMatcher extends SnapshotMatcher {
+
+        @Nonnull
+        private final String selector;
+        @Nonnull
+        private final Matcher<String> textMatcher;
+
+        ElementTextMatcher(@Nonnull final String selector, @Nonnull final Matcher<String> textMatcher) {
+            super(selector);
+            this.selector = selector;
+            this.textMatcher = textMatcher;
         }
 
-    };
-
-    private static final Matcher<WebElement> IS_PLAYING_GAME = new WebElementMatcher() {
-
         @Override
-        protected boolean matchesSafely(final WebElement body,
-                                        final Description mismatchDescription) {
-            final var elements = body.findElements(PLAYING_ELEMENT_LOCATOR);
-            return elements.size() == 1
-                    && INDICATES_IS_PLAYING.matches(elements.get(0).getText());
+        protected boolean matchesSnapshot(@Nonnull final PageSnapshot snapshot,
+                                          @Nonnull final Description mismatchDescription) {
+            final var element = snapshot.getElement(selector);
+            if (element.isEmpty()) {
+                mismatchDescription.appendText("has no element " + selector);
+                return false;
+            } else if (!textMatcher.matches(element.get().getText())) {
+                mismatchDescription.appendText("text of element " + selector + " ");
+                textMatcher.describeMismatch(element.get().getText(), mismatchDescription);
+                return false;
+            } else {
+                return true;
+            }
         }
 
-    };
-
-    private static final Matcher<WebElement> IS_RUNNING = new WebElementMatcher() {
-
         @Override
-        protected boolean matchesSafely(final WebElement body,
-                                        final Description mismatchDescription) {
-            final var elements = body.findElements(RUN_STATE_ELEMENT_LOCATOR);
-            return elements.size() == 1
-                    && INDICATES_IS_RUNNING.matches(elements.get(0).getText());
+        public void describeTo(final Description description) {
+            description.appendText("Has element " + selector + " with text ")
+                    .appendDescriptionOf(textMatcher);
         }
-
-    };
-
-    private static final Matcher<WebElement> IS_NOT_RUNNING = new WebElementMatcher() {
-
-        @Override
-        protected boolean matchesSafely(final WebElement body,
-                                        final Description mismatchDescription) {
-            final var elements = body.findElements(RUN_STATE_ELEMENT_LOCATOR);
-            return elements.size() == 1
-                    && !INDICATES_IS_RUNNING.matches(elements.get(0).getText());
-        }
-
-    };
+    }
 
     private final ScenarioPage scenarioPage;
 
@@ -148,97 +173,96 @@ public final class GamePage extends Page {
         includesScenarioTitle = containsString(scenarioPage.getScenarioTitle());
     }
 
+    @Nonnull
+    private PageSnapshot takeSnapshot() {
+        return takeSnapshot(ELEMENTS);
+    }
+
     public void assertDoesNotIndicateWhichCharactersPlayedByOtherUsers() {
         assertThat("Does not list characters",
-                getBody().findElements(PLAYED_CHARACTERS_ELEMENT_LOCATOR),
-                empty());
+                takeSnapshot().hasElement(PLAYED_CHARACTERS_ELEMENT), is(false));
     }
 
-    private WebElement assertHasJoinableElement(final WebElement body) {
-        return assertHasElement(body, JOINABLE_ELEMENT_LOCATOR);
+    private PageSnapshot.ElementSnapshot assertHasJoinableElement(final PageSnapshot snapshot) {
+        return snapshot.assertHasElement(JOINABLE_ELEMENT);
     }
 
-    private WebElement assertHasPlayingElement(final WebElement body) {
-        return assertHasElement("Has an element for reporting whether playing",
-                body, PLAYING_ELEMENT_LOCATOR);
+    private PageSnapshot.ElementSnapshot assertHasPlayingElement(final PageSnapshot snapshot) {
+        return snapshot.assertHasElement("Has an element for reporting whether playing",
+                PLAYING_ELEMENT);
     }
 
     public void assertIncludesCreationTime() {
         if (includesCreationTime != null) {
-            assertThat("includes creation time", getBody().getText(),
+            assertThat("includes creation time", takeSnapshot().getBodyText(),
                     includesCreationTime);
         }
         // else can not check
     }
 
     public void assertIncludesScenarioTitle() {
-        assertThat("includes scenario title", getBody().getText(),
+        assertThat("includes scenario title", takeSnapshot().getBodyText(),
                 includesScenarioTitle);
     }
 
     public void assertIndicatesGameHasNoPlayedCharacters() {
-        final var playedCharacters = assertHasElement(getBody(),
-                PLAYED_CHARACTERS_ELEMENT_LOCATOR);
-        final var playedCharacterTitles = playedCharacters
-                .findElements(By.tagName("li"));
-        assertThat("played character titles", playedCharacterTitles, empty());
+        final var playedCharacters = takeSnapshot().assertHasElement(
+                PLAYED_CHARACTERS_ELEMENT);
+        assertThat("played character titles", playedCharacters.getListItems(), empty());
     }
 
     public void assertIndicatesIsNotRecruitingPlayers() {
-        final var element = assertHasElement(getBody(),
-                RECRUITING_ELEMENT_LOCATOR);
+        final var element = takeSnapshot().assertHasElement(RECRUITING_ELEMENT);
         assertThat(element.getText(), INDICATES_IS_NOT_RECRUITING_PLAYERS);
     }
 
     public void assertIndicatesIsRecruitingPlayers() {
-        final var element = assertHasElement(getBody(),
-                RECRUITING_ELEMENT_LOCATOR);
+        final var element = takeSnapshot().assertHasElement(RECRUITING_ELEMENT);
         assertThat(element.getText(), INDICATES_IS_RECRUITING_PLAYERS);
     }
 
     public void assertIndicatesNotRunning() {
-        assertIndicatesNotRunning(getBody());
+        assertIndicatesNotRunning(takeSnapshot());
     }
 
-    private void assertIndicatesNotRunning(final WebElement body)
+    private void assertIndicatesNotRunning(final PageSnapshot snapshot)
             throws MultipleFailuresError {
-        final var element = assertHasElement(body, RUN_STATE_ELEMENT_LOCATOR);
+        final var element = snapshot.assertHasElement(RUN_STATE_ELEMENT);
         assertThat("Run-state element text", element.getText(),
                 not(INDICATES_IS_RUNNING));
     }
 
     public void assertIndicatesRunning() {
-        assertIndicatesRunning(getBody());
+        assertIndicatesRunning(takeSnapshot());
     }
 
-    private void assertIndicatesRunning(final WebElement body)
+    private void assertIndicatesRunning(final PageSnapshot snapshot)
             throws MultipleFailuresError {
-        final var element = assertHasElement(body, RUN_STATE_ELEMENT_LOCATOR);
+        final var element = snapshot.assertHasElement(RUN_STATE_ELEMENT);
         assertThat("Run-state element text", element.getText(),
                 INDICATES_IS_RUNNING);
     }
 
     public void assertIndicatesUserIsNotPlayingGame() {
-        final var playing = assertHasPlayingElement(getBody());
+        final var playing = assertHasPlayingElement(takeSnapshot());
         assertThat("Indicates is not playing the game", playing.getText(),
                 INDICATES_IS_NOT_PLAYING);
     }
 
     public void assertIndicatesUserIsPlayingGame() {
-        final var playing = assertHasPlayingElement(getBody());
+        final var playing = assertHasPlayingElement(takeSnapshot());
         assertThat("Indicates is playing the game", playing.getText(),
                 INDICATES_IS_PLAYING);
     }
 
     public void assertIndicatesUserMayJoinGame() {
-        final var joinable = assertHasElement(getBody(),
-                JOINABLE_ELEMENT_LOCATOR);
+        final var joinable = assertHasJoinableElement(takeSnapshot());
         assertThat("Indicates may join game", joinable.getText(),
                 INDICATES_IS_JOINABLE);
     }
 
     public void assertIndicatesUserMayNotJoinGame() {
-        final var element = assertHasElement(getBody(), JOINABLE_ELEMENT_LOCATOR);
+        final var element = assertHasJoinableElement(takeSnapshot());
         assertThat(element.getText(), INDICATES_IS_NOT_JOINABLE);
     }
 
@@ -247,15 +271,15 @@ public final class GamePage extends Page {
     }
 
     public void assertIndicatesWhetherRecruitingPlayers() {
-        assertIndicatesWhetherRecruitingPlayers(getBody());
+        assertIndicatesWhetherRecruitingPlayers(takeSnapshot());
     }
 
-    private void assertIndicatesWhetherRecruitingPlayers(final WebElement body)
+    private void assertIndicatesWhetherRecruitingPlayers(final PageSnapshot snapshot)
             throws MultipleFailuresError {
-        final var element = assertHasElement(body, RECRUITING_ELEMENT_LOCATOR);
+        final var element = snapshot.assertHasElement(RECRUITING_ELEMENT);
         final var elementText = element.getText();
         assertAll(
-                () -> assertThat("page text mentions recruiting", body.getText(),
+                () -> assertThat("page text mentions recruiting", snapshot.getBodyText(),
                         INDICATES_WHETHER_RECRUITING_PLAYERS),
                 () -> assertThat("Element text indicates something", elementText,
                         either(INDICATES_IS_RECRUITING_PLAYERS)
@@ -263,71 +287,66 @@ public final class GamePage extends Page {
     }
 
     public void assertIndicatesWhetherRunning() {
-        assertIndicatesWhetherRunning(getBody());
-    }
-
-    private void assertIndicatesWhetherRunning(final WebElement body)
-            throws MultipleFailuresError {
-        assertHasElement(body, RUN_STATE_ELEMENT_LOCATOR);
+        takeSnapshot().assertHasElement(RUN_STATE_ELEMENT);
     }
 
     public void assertIndicatesWhetherUserIsPlayingGame() {
-        assertIndicatesWhetherUserIsPlayingGame(getBody());
+        assertIndicatesWhetherUserIsPlayingGame(takeSnapshot());
     }
 
-    private void assertIndicatesWhetherUserIsPlayingGame(final WebElement body) {
-        final var playing = assertHasPlayingElement(body);
+    private void assertIndicatesWhetherUserIsPlayingGame(final PageSnapshot snapshot) {
+        final var playing = assertHasPlayingElement(snapshot);
         assertThat("Indicates whether playing the game", playing.getText(),
                 either(INDICATES_IS_PLAYING).or(INDICATES_IS_NOT_PLAYING));
     }
 
     public void assertIndicatesWhetherUserMayJoinGame() {
-        assertIndicatesWhetherUserMayJoinGame(getBody());
+        assertIndicatesWhetherUserMayJoinGame(takeSnapshot());
     }
 
-    private void assertIndicatesWhetherUserMayJoinGame(final WebElement body) {
-        final var joinable = assertHasJoinableElement(body);
+    private void assertIndicatesWhetherUserMayJoinGame(final PageSnapshot snapshot) {
+        final var joinable = assertHasJoinableElement(snapshot);
         assertThat("Indicates whether the user may join this game",
                 joinable.getText(), INDICATES_JOINING_INFORMATION);
     }
 
     public void assertIndicatesWhichCharacterIfAnyUserIsPlaying() {
-        final var playing = assertHasPlayingElement(getBody());
+        final var playing = assertHasPlayingElement(takeSnapshot());
         assertThat("Indicates which character (if any) user is playing",
                 playing.getText(),
                 either(INDICATES_CHARACTER_PLAYED).or(INDICATES_IS_NOT_PLAYING));
     }
 
     public void assertIndicatesWhichCharactersPlayedByWhichUsers() {
-        assertHasElement(getBody(), PLAYED_CHARACTERS_ELEMENT_LOCATOR);
+        takeSnapshot().assertHasElement(PLAYED_CHARACTERS_ELEMENT);
     }
 
     public void assertIndicatesWhichCharacterUserIsPlaying() {
-        final var playing = assertHasPlayingElement(getBody());
+        final var playing = assertHasPlayingElement(takeSnapshot());
         assertThat("Indicates which character user is playing", playing.getText(),
                 INDICATES_CHARACTER_PLAYED);
     }
 
     private void assertJoinButtonConsistentWithJoinableText(
-            final WebElement body) {
-        final var button = assertHasElement("has a join button", body,
-                JOIN_BUTTON_LOCATOR);
-        final var description = assertHasJoinableElement(body);
-        assertEquals(isEnabled(button),
+            final PageSnapshot snapshot) {
+        final var button = snapshot.assertHasElement("has a join button",
+                JOIN_BUTTON);
+        final var description = assertHasJoinableElement(snapshot);
+        assertEquals(button.isEnabled(),
                 INDICATES_IS_JOINABLE.matches(description.getText()),
                 "join button is enabled iff joinable text indicates is joinable");
     }
 
     @Override
     protected void assertValidBody(@Nonnull final WebElement body) {
-        assertAll(() -> assertIndicatesWhetherUserMayJoinGame(body),
-                () -> assertIndicatesWhetherUserIsPlayingGame(body),
-                () -> assertJoinButtonConsistentWithJoinableText(body),
-                () -> assertValidBodyText(body, body.getText()));
+        final var snapshot = PageSnapshot.take(body, ELEMENTS);
+        assertAll(() -> assertIndicatesWhetherUserMayJoinGame(snapshot),
+                () -> assertIndicatesWhetherUserIsPlayingGame(snapshot),
+                () -> assertJoinButtonConsistentWithJoinableText(snapshot),
+                () -> assertValidBodyText(snapshot));
     }
 
-    private void assertValidBodyText(final WebElement body,
-                                     final String bodyText) throws MultipleFailuresError {
+    private void assertValidBodyText(final PageSnapshot snapshot) throws MultipleFailuresError {
         final var universalConstraints = allOf(INDICATES_IS_A_GAME,
                 INDICATES_WHETHER_RECRUITING_PLAYERS,
                 INDICATES_JOINING_INFORMATION, includesScenarioTitle);
@@ -336,8 +355,8 @@ public final class GamePage extends Page {
                 : includesCreationTime;
         final var textConstraints = both(universalConstraints)
                 .and(optionalConstraints);
-        assertAll(() -> assertThat("Body text", bodyText, textConstraints),
-                () -> assertIndicatesWhetherRecruitingPlayers(body));
+        assertAll(() -> assertThat("Body text", snapshot.getBodyText(), textConstraints),
+                () -> assertIndicatesWhetherRecruitingPlayers(snapshot));
     }
 
     public void endRecruitement() {
@@ -353,27 +372,19 @@ public final class GamePage extends Page {
 
     public boolean isEndRecruitmentEnabled() {
         requireIsReady();
-        return isEnabled(getBody().findElement(END_RECRUITMENT_ELEMENT_LOCATOR));
+        return takeSnapshot().assertHasElement(END_RECRUITMENT_ELEMENT).isEnabled();
     }
 
     public boolean isStartingEnabled() {
         requireIsReady();
-        final var elements = getBody().findElements(START_BUTTON_LOCATOR);
-        if (elements.isEmpty()) {
-            return false;
-        } else {
-            return isEnabled(elements.get(0));
-        }
+        return takeSnapshot().getElement(START_BUTTON)
+                .map(PageSnapshot.ElementSnapshot::isEnabled).orElse(false);
     }
 
     public boolean isStoppingEnabled() {
         requireIsReady();
-        final var elements = getBody().findElements(STOP_BUTTON_LOCATOR);
-        if (elements.isEmpty()) {
-            return false;
-        } else {
-            return isEnabled(elements.get(0));
-        }
+        return takeSnapshot().getElement(STOP_BUTTON)
+                .map(PageSnapshot.ElementSnapshot::isEnabled).orElse(false);
     }
 
     @Override
@@ -390,6 +401,7 @@ public final class GamePage extends Page {
     }
 
     public ScenarioPage navigateToScenarioPage() {
+        final long start = System.nanoTime();
         if (scenarioPage == null) {
             throw new IllegalStateException("Unknown scenario page");
         }
@@ -397,7 +409,7 @@ public final class GamePage extends Page {
         final var link = getBody().findElement(SCENARIO_LINK_LOCATOR);
         link.click();
         scenarioPage.awaitIsReady();
-        return scenarioPage;
+        return navigatedTo(start, scenarioPage);
     }
 
     public void startGame() {
@@ -171,6 +171,7 @@ public final class HomePage extends Page {
     }
 
     public GamePage navigateToCurrentGamePage() {
+        final long start = System.nanoTime();
         final WebElement currentGameLink;
         try {
             awaitIsReady(HAS_CURRENT_GAME_LINK);
@@ -183,26 +184,29 @@ public final class HomePage extends Page {
         currentGameLink.click();
         final var gamePage = new GamePage(this);
         gamePage.awaitIsReady();
-        return gamePage;
+        return navigatedTo(start, gamePage);
     }
 
     public LoginPage navigateToLoginPage() {
+        final long start = System.nanoTime();
         requireIsReady();
         findLoginElement().click();
         final var loginPage = new LoginPage(this);
         loginPage.awaitIsReady();
-        return loginPage;
+        return navigatedTo(start, loginPage);
     }
 
     public ScenariosPage navigateToScenariosPage() {
+        final long start = System.nanoTime();
         requireIsReady();
         getBody().findElement(By.id("scenarios")).click();
         final var scenariosPage = new ScenariosPage(this);
         scenariosPage.awaitIsReady();
-        return scenariosPage;
+        return navigatedTo(start, scenariosPage);
     }
 
     public UsersPage navigateToUsersPage() {
+        final long start = System.nanoTime();
         final WebElement usersLink;
         try {
             requireIsReady();
@@ -214,6 +218,6 @@ public final class HomePage extends Page {
         usersLink.click();
         final var usersPage = new UsersPage(this);
         usersPage.awaitIsReady();
-        return usersPage;
+        return navigatedTo(start, usersPage);
     }
 }
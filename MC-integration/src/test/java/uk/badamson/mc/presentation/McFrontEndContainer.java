@@ -30,7 +30,7 @@ public final class McFrontEndContainer
 
     private static final int PORT = 80;
 
-    private static final DockerImageName IMAGE = DockerImageName.parse(
+    public static final DockerImageName IMAGE = DockerImageName.parse(
             "index.docker.io/benedictadamson/mc-front-end-srv:" + VERSION);
 
     public McFrontEndContainer() {
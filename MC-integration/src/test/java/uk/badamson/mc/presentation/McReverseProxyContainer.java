@@ -18,45 +18,157 @@ package uk.badamson.mc.presentation;
  * along with MC.  If not, see <https://www.gnu.org/licenses/>.
  */
 
+import com.github.dockerjava.api.exception.NotFoundException;
+import org.testcontainers.DockerClientFactory;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.RemoteDockerImage;
 import org.testcontainers.images.builder.ImageFromDockerfile;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.LazyFuture;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * <p>
  * A Testcontainers Docker providing an HTTP reverse proxy (ingress) for the MC
  * HTTP servers.
  * </p>
+ * <p>
+ * The images of the reverse proxies are tagged with a hash of their Docker build context
+ * and of the ID of the nginx base image,
+ * and are not deleted when the JVM exits,
+ * so they are built only when the context or the base image has changed.
+ * The {@code nginx:1} tag of the base image floats, so pulling a newer base image causes a rebuild.
+ * </p>
  */
 public final class McReverseProxyContainer
         extends GenericContainer<McReverseProxyContainer> {
 
     public static final int PORT = 80;
+    private static final String MOCK_BE_PORT_ENV = "MOCK_BE_PORT";
+    private static final String IMAGE_NAME = "mc-web-reverse-proxy";
+    private static final String DOCKERFILE_RESOURCE = "reverse-proxy.Dockerfile";
+    private static final DockerImageName BASE_IMAGE = DockerImageName.parse("nginx:1");
 
-    private static final ImageFromDockerfile REAL_BE_IMAGE = createImageWithConfiguration(
+    private static final Future<String> REAL_BE_IMAGE = createImageWithConfiguration(
             "reverse-proxy.rp.conf"
     );
 
-    private static final ImageFromDockerfile MOCK_BE_IMAGE = createImageWithConfiguration(
+    private static final Future<String> MOCK_BE_IMAGE = createImageWithConfiguration(
             "mock-be.rp.conf"
     );
 
 
-    private static ImageFromDockerfile createImageWithConfiguration(final String nginxConfigurationResourcePath) {
-        return new ImageFromDockerfile()
-                .withFileFromClasspath("Dockerfile", "reverse-proxy.Dockerfile")
-                .withFileFromClasspath("rp.conf", nginxConfigurationResourcePath);
+    private static Future<String> createImageWithConfiguration(final String nginxConfigurationResourcePath) {
+        return new LazyFuture<>() {
+            @Override
+            protected String resolve() {
+                final String baseImage = new RemoteDockerImage(BASE_IMAGE).get();
+                final String name = IMAGE_NAME + ":" + hashResources(getImageId(baseImage),
+                        DOCKERFILE_RESOURCE, nginxConfigurationResourcePath);
+                if (getImageId(name) != null) {
+                    return name;
+                }
+                return new ImageFromDockerfile(name, false)
+                        .withBuildArg("BASE_IMAGE", baseImage)
+                        .withFileFromClasspath("Dockerfile", DOCKERFILE_RESOURCE)
+                        .withFileFromClasspath("rp.conf", nginxConfigurationResourcePath)
+                        .get();
+            }
+        };
+    }
+
+    @Nonnull
+    private static String hashResources(@Nullable final String baseImageId, @Nonnull final String... resources) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        if (baseImageId != null) {
+            digest.update(baseImageId.getBytes(StandardCharsets.UTF_8));
+        }
+        final var classLoader = Thread.currentThread().getContextClassLoader();
+        for (final var resource : resources) {
+            try (InputStream stream = classLoader.getResourceAsStream(resource)) {
+                if (stream == null) {
+                    throw new IllegalStateException("resource " + resource + " not found");
+                }
+                digest.update(resource.getBytes(StandardCharsets.UTF_8));
+                digest.update(stream.readAllBytes());
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+    }
+
+    @Nullable
+    private static String getImageId(@Nonnull final String name) {
+        try {
+            return DockerClientFactory.instance().client().inspectImageCmd(name).exec().getId();
+        } catch (final NotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * <p>
+     * The images of all the kinds of reverse proxy.
+     * </p>
+     * <p>
+     * Getting the value of an image builds the image, if necessary.
+     * </p>
+     */
+    @Nonnull
+    public static List<Future<String>> getImages() {
+        return List.of(REAL_BE_IMAGE, MOCK_BE_IMAGE);
     }
 
     public static McReverseProxyContainer createWithRealBe() {
         return new McReverseProxyContainer(REAL_BE_IMAGE);
     }
 
+    /**
+     * <p>
+     * Create a reverse proxy for a {@linkplain uk.badamson.mc.MockMcBackEndContainer mock back-end}
+     * running on the host.
+     * </p>
+     * <p>
+     * The port of the mock back-end must be
+     * {@linkplain #withMockBackEndPort(int) set} before the container is started.
+     * </p>
+     */
     public static McReverseProxyContainer createWithMockBe() {
-        return new McReverseProxyContainer(MOCK_BE_IMAGE);
+        return new McReverseProxyContainer(MOCK_BE_IMAGE).withAccessToHost(true);
+    }
+
+    /**
+     * <p>
+     * Set the host port on which the mock back-end is listening.
+     * </p>
+     * <p>
+     * The port must be {@linkplain org.testcontainers.Testcontainers#exposeHostPorts(int...) exposed}
+     * to containers.
+     * </p>
+     */
+    public McReverseProxyContainer withMockBackEndPort(final int port) {
+        return withEnv(MOCK_BE_PORT_ENV, Integer.toString(port));
     }
 
-    private McReverseProxyContainer(final ImageFromDockerfile image) {
+    private McReverseProxyContainer(final Future<String> image) {
         super(image);
         addExposedPort(PORT);
         waitingFor(Wait.forListeningPort());
@@ -20,19 +20,30 @@ package uk.badamson.mc.presentation;
 
 import org.hamcrest.*;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.opentest4j.AssertionFailedError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import uk.badamson.mc.McContainers;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.net.URI;
 import java.time.Duration;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -48,9 +59,105 @@ import static org.junit.jupiter.api.Assertions.assertAll;
  */
 public abstract class Page {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(Page.class);
+
     private static final Duration WAIT_UNTIL_READY_TIMEOUT = Duration.ofSeconds(17);
     private static final Duration WAIT_UNTIL_READY_POLL_INTERVAL = Duration.ofMillis(317);
-    private static final Duration READY_QUERY_PAUSE = Duration.ofMillis(10);
+
+    /**
+     * <p>
+     * Whether to wait for pages to become ready by waiting for events in the browser,
+     * before falling back to polling.
+     * </p>
+     * <p>
+     * Set the {@code mc.page.readiness} system property to {@code poll} to use only polling.
+     * </p>
+     */
+    private static final boolean EVENT_DRIVEN_READINESS = !"poll".equalsIgnoreCase(
+            System.getProperty("mc.page.readiness", "event"));
+
+    /**
+     * <p>
+     * How long the DOM must be unchanged, after Angular has become stable,
+     * for the page to be considered settled.
+     * </p>
+     */
+    private static final Duration DOM_QUIET_PERIOD = Duration.ofMillis(50);
+
+    /**
+     * <p>
+     * The longest time to wait for the page to settle before falling back to polling.
+     * A small fraction of the {@linkplain #WAIT_UNTIL_READY_TIMEOUT overall timeout},
+     * because a page that never settles (because it has a pending interval timer, polls the server,
+     * or animates a spinner) would otherwise delay every wait until it is ready by this much.
+     * </p>
+     */
+    private static final Duration AWAIT_SETTLED_TIMEOUT = Duration.ofMillis(1500);
+
+    /*
+     * An asynchronous script that completes when the Angular application of the page is stable,
+     * and then the DOM has not changed for a quiet period.
+     * It completes with "settled" if that happened,
+     * or with another value if the page could not be awaited that way.
+     */
+    private static final String AWAIT_SETTLED_SCRIPT = """
+            var done = arguments[arguments.length - 1];
+            var quietMs = arguments[0];
+            var finished = false;
+            var observer = null;
+            var timer = null;
+            function finish(result) {
+              if (observer !== null) { observer.disconnect(); }
+              if (timer !== null) { clearTimeout(timer); }
+              if (!finished) { finished = true; done(result); }
+            }
+            setTimeout(function () { finish('timeout'); }, arguments[1]);
+            function awaitDomQuiet() {
+              if (finished) { return; }
+              observer = new MutationObserver(restart);
+              function restart() {
+                if (finished) { return; }
+                if (timer !== null) { clearTimeout(timer); }
+                timer = setTimeout(function () { finish('settled'); }, quietMs);
+              }
+              observer.observe(document, {subtree: true, childList: true, attributes: true, characterData: true});
+              restart();
+            }
+            function awaitAngularStable() {
+              if (typeof window.getAllAngularTestabilities !== 'function') { finish('no-angular'); return; }
+              var testabilities = window.getAllAngularTestabilities();
+              var pending = testabilities.length;
+              if (pending === 0) { awaitDomQuiet(); return; }
+              testabilities.forEach(function (t) {
+                t.whenStable(function () { if (--pending === 0) { awaitDomQuiet(); } });
+              });
+            }
+            if (document.readyState === 'complete') {
+              awaitAngularStable();
+            } else {
+              window.addEventListener('load', awaitAngularStable);
+            }
+            """;
+
+    private static final String GET_URL_AND_TITLE_SCRIPT = "return [window.location.href, document.title];";
+
+    private static final String NO_LATENCY_PROFILE = "none";
+
+    /*
+     * The latency profile of the mock back-end used by the test running on each thread,
+     * so times to ready can be reported for each profile.
+     */
+    private static final ThreadLocal<String> LATENCY_PROFILE = ThreadLocal.withInitial(() -> NO_LATENCY_PROFILE);
+
+    /*
+     * Times to ready, in milliseconds, indexed by page class and latency profile.
+     * The statistics objects are never modified once in the map; updates replace them.
+     */
+    private static final Map<String, LongSummaryStatistics> TIMES_TO_READY = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(Page::logTimesToReady, "Page-report"));
+    }
 
     public static final class NotReadyException extends IllegalStateException {
 
@@ -99,6 +206,33 @@ public abstract class Page {
         }
     }
 
+    /**
+     * <p>
+     * A matcher of a page body that examines a {@linkplain PageSnapshot snapshot} of the page,
+     * so it needs only one round trip to the browser.
+     * </p>
+     */
+    protected static abstract class SnapshotMatcher extends WebElementMatcher {
+
+        @Nonnull
+        private final String[] selectors;
+
+        /**
+         * @param selectors CSS selectors for the elements that the matcher examines.
+         */
+        protected SnapshotMatcher(@Nonnull final String... selectors) {
+            this.selectors = Objects.requireNonNull(selectors, "selectors").clone();
+        }
+
+        @Override
+        protected final boolean matchesSafely(final WebElement body, final Description mismatchDescription) {
+            return matchesSnapshot(PageSnapshot.take(body, selectors), mismatchDescription);
+        }
+
+        protected abstract boolean matchesSnapshot(@Nonnull PageSnapshot snapshot,
+                                                   @Nonnull Description mismatchDescription);
+    }
+
     /**
      * <p>
      * How error messages are expected to be marked up in pages.
@@ -169,6 +303,16 @@ public abstract class Page {
         return assertHasElement("Has element " + by, parent, by);
     }
 
+    /**
+     * <p>
+     * A CSS selector for the element that has a given ID.
+     * </p>
+     */
+    @Nonnull
+    protected static String selectorForId(@Nonnull final String id) {
+        return "#" + Objects.requireNonNull(id, "id");
+    }
+
     private static URI createUrl(final String path) {
         return McContainers.createIngressPrivateNetworkUriFromPath(path);
     }
@@ -326,8 +470,13 @@ public abstract class Page {
     protected final void awaitIsReady(
             @Nonnull final Matcher<WebElement> additionalBodyConstraints)
             throws IllegalStateException {
+        final var start = System.nanoTime();
+        if (isSettledAnd(driver -> isReady(driver, additionalBodyConstraints))) {
+            reportTimeToReady(start, "event");
+            return;
+        }
         try {
-            new WebDriverWait(webDriver, WAIT_UNTIL_READY_TIMEOUT, WAIT_UNTIL_READY_POLL_INTERVAL)
+            new WebDriverWait(webDriver, getRemainingWaitTime(start), WAIT_UNTIL_READY_POLL_INTERVAL)
                     .until(driver -> isReady(driver, additionalBodyConstraints));
         } catch (final TimeoutException e) {
             requireIsReady(); // throws NotReadyException, with good diagnostics,
@@ -336,17 +485,125 @@ public abstract class Page {
         } catch (final Exception e) {// give better diagnostics
             throw new NotReadyException(this, e);
         }
+        reportTimeToReady(start, "poll");
     }
 
     public final void awaitIsReadyAndErrorMessage() throws IllegalStateException {
+        final var start = System.nanoTime();
+        if (isSettledAnd(this::isReadyAndHasErrorMessage)) {
+            reportTimeToReady(start, "event");
+            return;
+        }
         try {
-            new WebDriverWait(webDriver, WAIT_UNTIL_READY_TIMEOUT, WAIT_UNTIL_READY_POLL_INTERVAL)
-                    .until(driver -> isReady(driver, isA(WebElement.class))
-                            && HAS_ERROR_ELEMENT
-                            .matches(driver.findElement(BODY_LOCATOR)));
+            new WebDriverWait(webDriver, getRemainingWaitTime(start), WAIT_UNTIL_READY_POLL_INTERVAL)
+                    .until(this::isReadyAndHasErrorMessage);
         } catch (final Exception e) {// give better diagnostics
             throw new NotReadyException(this, e);
         }
+        reportTimeToReady(start, "poll");
+    }
+
+    private boolean isReadyAndHasErrorMessage(@Nonnull final WebDriver driver) {
+        return isReady(driver, isA(WebElement.class))
+                && HAS_ERROR_ELEMENT.matches(driver.findElement(BODY_LOCATOR));
+    }
+
+    /**
+     * <p>
+     * Whether the page {@linkplain #awaitSettled() settled} and then satisfied a condition.
+     * </p>
+     * <p>
+     * The DOM can still be changing if the page did not really settle,
+     * so exceptions that polling would tolerate, such as for stale or missing elements,
+     * indicate that the caller should fall back to polling.
+     * </p>
+     */
+    private boolean isSettledAnd(@Nonnull final Predicate<WebDriver> condition) {
+        try {
+            return awaitSettled() && condition.test(webDriver);
+        } catch (final WebDriverException e) {
+            return false;
+        }
+    }
+
+    /*
+     * The time spent awaiting the page to settle counts against the overall timeout,
+     * but always allow at least one poll.
+     */
+    @Nonnull
+    private static Duration getRemainingWaitTime(final long startNanos) {
+        final var remaining = WAIT_UNTIL_READY_TIMEOUT.minusNanos(System.nanoTime() - startNanos);
+        return remaining.compareTo(WAIT_UNTIL_READY_POLL_INTERVAL) < 0 ? WAIT_UNTIL_READY_POLL_INTERVAL : remaining;
+    }
+
+    /**
+     * <p>
+     * Wait, using one asynchronous script, until the page has settled:
+     * Angular is stable and the DOM has stopped changing.
+     * </p>
+     *
+     * @return whether the page settled; if not, the caller should fall back to polling.
+     */
+    private boolean awaitSettled() {
+        if (!EVENT_DRIVEN_READINESS || !(webDriver instanceof JavascriptExecutor executor)) {
+            return false;
+        }
+        try {
+            final var result = executor.executeAsyncScript(AWAIT_SETTLED_SCRIPT,
+                    DOM_QUIET_PERIOD.toMillis(), AWAIT_SETTLED_TIMEOUT.toMillis());
+            return "settled".equals(result);
+        } catch (final WebDriverException e) {
+            return false;
+        }
+    }
+
+    private void reportTimeToReady(final long startNanos, @Nonnull final String method) {
+        PageTimings.record(PageTimings.AWAIT_IS_READY, getClass(), startNanos);
+        final var timeToReady = Duration.ofNanos(System.nanoTime() - startNanos);
+        final var profile = LATENCY_PROFILE.get();
+        LOGGER.info("{} ready in {} ms ({}, latency profile {})",
+                getClass().getSimpleName(), timeToReady.toMillis(), method, profile);
+        TIMES_TO_READY.compute(getClass().getSimpleName() + " [" + profile + "]", (key, statistics) -> {
+            final var result = new LongSummaryStatistics();
+            if (statistics != null) {
+                result.combine(statistics);
+            }
+            result.accept(timeToReady.toMillis());
+            return result;
+        });
+    }
+
+    /**
+     * <p>
+     * Set the description of the latency profile of the back-end,
+     * for reporting the times to ready of pages subsequently used by the current thread.
+     * </p>
+     *
+     * @param profile The description, or {@code null} to indicate that the back-end responds without delay.
+     */
+    public static void setLatencyProfile(@Nullable final String profile) {
+        LATENCY_PROFILE.set(profile == null ? NO_LATENCY_PROFILE : profile);
+    }
+
+    /**
+     * <p>
+     * Statistics of the times to ready, in milliseconds, of each class of page under each latency profile.
+     * </p>
+     */
+    @Nonnull
+    public static Map<String, LongSummaryStatistics> getTimesToReady() {
+        final Map<String, LongSummaryStatistics> result = new TreeMap<>();
+        TIMES_TO_READY.forEach((key, statistics) -> {
+            final var copy = new LongSummaryStatistics();
+            copy.combine(statistics);
+            result.put(key, copy);
+        });
+        return result;
+    }
+
+    private static void logTimesToReady() {
+        getTimesToReady().forEach((key, statistics) -> LOGGER.info("{} ready in mean {} ms, max {} ms, over {}",
+                key, Math.round(statistics.getAverage()), statistics.getMax(), statistics.getCount()));
     }
 
     private String createNotReadyMessage() {
@@ -371,7 +628,37 @@ public abstract class Page {
         if (path.isEmpty()) {
             throw new UnsupportedOperationException("No path to get");
         }
+        final var start = System.nanoTime();
         webDriver.get(createUrl(path.get()).toASCIIString());
+        PageTimings.record(PageTimings.GET, getClass(), start);
+    }
+
+    /**
+     * <p>
+     * Record the {@linkplain PageTimings timing} of navigating to a page.
+     * </p>
+     *
+     * @param startNanos The {@linkplain System#nanoTime() time} at which navigation started.
+     * @param page       The page navigated to, which is ready.
+     * @return the given page
+     */
+    @Nonnull
+    protected static <P extends Page> P navigatedTo(final long startNanos, @Nonnull final P page) {
+        PageTimings.record(PageTimings.NAVIGATE_TO, page.getClass(), startNanos);
+        return page;
+    }
+
+    /**
+     * <p>
+     * Take a snapshot of the current state of some elements of this page,
+     * using one round trip to the browser.
+     * </p>
+     *
+     * @param selectors CSS selectors for the elements of interest.
+     */
+    @Nonnull
+    protected final PageSnapshot takeSnapshot(@Nonnull final String... selectors) {
+        return PageSnapshot.take(webDriver, selectors);
     }
 
     @Nonnull
@@ -431,13 +718,17 @@ public abstract class Page {
 
     private void requireIsReady(@Nonnull WebDriver webDriver) throws NotReadyException {
         try {
-            assertValidPath(getPathOfUrl(webDriver.getCurrentUrl()));
-            Thread.sleep(READY_QUERY_PAUSE.toMillis());
-            assertValidTitle(webDriver.getTitle());
-            Thread.sleep(READY_QUERY_PAUSE.toMillis());
+            if (webDriver instanceof JavascriptExecutor executor) {
+                // One round trip for both the URL and the title
+                final var urlAndTitle = (List<?>) executor.executeScript(GET_URL_AND_TITLE_SCRIPT);
+                assertValidPath(getPathOfUrl(String.valueOf(urlAndTitle.get(0))));
+                assertValidTitle(String.valueOf(urlAndTitle.get(1)));
+            } else {
+                assertValidPath(getPathOfUrl(webDriver.getCurrentUrl()));
+                assertValidTitle(webDriver.getTitle());
+            }
             assertValidBody(webDriver.findElement(BODY_LOCATOR));
-            Thread.sleep(READY_QUERY_PAUSE.toMillis());
-        } catch (AssertionError | InterruptedException e) {
+        } catch (AssertionError e) {
             throw new NotReadyException(this, e);
         }
     }
@@ -0,0 +1,288 @@
+package uk.badamson.mc.presentation;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+import org.opentest4j.AssertionFailedError;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * <p>
+ * The state of the interesting elements of a page, at one point in time.
+ * </p>
+ * <p>
+ * A snapshot is taken using one script execution, so examining it does not
+ * require any further communication with the browser.
+ * That makes assertions about several elements much faster than
+ * finding each of the elements and getting its text separately.
+ * </p>
+ */
+@Immutable
+public final class PageSnapshot {
+
+    private static final String SNAPSHOT_SCRIPT = """
+            var result = {bodyText: document.body === null ? '' : document.body.innerText, elements: {}};
+            for (var i = 0; i < arguments.length; i++) {
+              var selector = arguments[i];
+              var element = document.querySelector(selector);
+              if (element === null) { continue; }
+              var items = [];
+              element.querySelectorAll('li').forEach(function (li) {
+                var link = li.querySelector('a');
+                items.push({text: li.innerText, href: link === null ? null : link.href});
+              });
+              result.elements[selector] = {
+                text: element.innerText,
+                enabled: !element.hasAttribute('disabled'),
+                links: element.querySelectorAll('a').length,
+                items: items
+              };
+            }
+            return result;
+            """;
+
+    @Nonnull
+    private final String bodyText;
+    @Nonnull
+    private final Map<String, ElementSnapshot> elements;
+
+    private PageSnapshot(@Nonnull final String bodyText, @Nonnull final Map<String, ElementSnapshot> elements) {
+        this.bodyText = bodyText;
+        this.elements = Map.copyOf(elements);
+    }
+
+    /**
+     * <p>
+     * Take a snapshot of the page currently displayed by a web driver.
+     * </p>
+     *
+     * @param webDriver The web driver; it must be able to execute scripts.
+     * @param selectors CSS selectors for the elements of interest.
+     *                  The snapshot records the first element that matches each selector.
+     */
+    @Nonnull
+    public static PageSnapshot take(@Nonnull final WebDriver webDriver, @Nonnull final String... selectors) {
+        Objects.requireNonNull(webDriver, "webDriver");
+        Objects.requireNonNull(selectors, "selectors");
+        if (!(webDriver instanceof JavascriptExecutor executor)) {
+            throw new IllegalArgumentException("web driver can not execute scripts");
+        }
+        final var result = (Map<?, ?>) executor.executeScript(SNAPSHOT_SCRIPT, (Object[]) selectors);
+        Objects.requireNonNull(result, "script result");
+        final var elements = new HashMap<String, ElementSnapshot>();
+        final var elementsResult = (Map<?, ?>) result.get("elements");
+        if (elementsResult != null) {
+            elementsResult.forEach((selector, element) ->
+                    elements.put(String.valueOf(selector), ElementSnapshot.create((Map<?, ?>) element)));
+        }
+        return new PageSnapshot(textOf(result.get("bodyText")), elements);
+    }
+
+    /**
+     * <p>
+     * Take a snapshot of the page that contains a given element.
+     * </p>
+     */
+    @Nonnull
+    public static PageSnapshot take(@Nonnull final WebElement element, @Nonnull final String... selectors) {
+        Objects.requireNonNull(element, "element");
+        if (!(element instanceof WrapsDriver wrapsDriver)) {
+            throw new IllegalArgumentException("element does not provide its web driver");
+        }
+        return take(wrapsDriver.getWrappedDriver(), selectors);
+    }
+
+    @Nonnull
+    private static String textOf(@Nullable final Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * <p>
+     * The visible text of the whole body of the page.
+     * </p>
+     */
+    @Nonnull
+    public String getBodyText() {
+        return bodyText;
+    }
+
+    /**
+     * <p>
+     * The state of the first element matching a selector, if there was such an element.
+     * </p>
+     *
+     * @param selector One of the CSS selectors used to take the snapshot.
+     */
+    @Nonnull
+    public Optional<ElementSnapshot> getElement(@Nonnull final String selector) {
+        Objects.requireNonNull(selector, "selector");
+        return Optional.ofNullable(elements.get(selector));
+    }
+
+    public boolean hasElement(@Nonnull final String selector) {
+        return getElement(selector).isPresent();
+    }
+
+    /**
+     * <p>
+     * Require that the page had an element matching a selector.
+     * </p>
+     *
+     * @throws AssertionFailedError if there was no such element.
+     */
+    @Nonnull
+    public ElementSnapshot assertHasElement(@Nonnull final String message, @Nonnull final String selector) {
+        Objects.requireNonNull(message, "message");
+        return getElement(selector).orElseThrow(() -> new AssertionFailedError(message));
+    }
+
+    @Nonnull
+    public ElementSnapshot assertHasElement(@Nonnull final String selector) {
+        return assertHasElement("Has element " + selector, selector);
+    }
+
+    /**
+     * <p>
+     * The state of one element of a page.
+     * </p>
+     */
+    @Immutable
+    public static final class ElementSnapshot {
+        @Nonnull
+        private final String text;
+        private final boolean enabled;
+        private final int numberOfLinks;
+        @Nonnull
+        private final List<ListItemSnapshot> listItems;
+
+        private ElementSnapshot(@Nonnull final String text, final boolean enabled, final int numberOfLinks,
+                                @Nonnull final List<ListItemSnapshot> listItems) {
+            this.text = text;
+            this.enabled = enabled;
+            this.numberOfLinks = numberOfLinks;
+            this.listItems = List.copyOf(listItems);
+        }
+
+        @Nonnull
+        private static ElementSnapshot create(@Nonnull final Map<?, ?> value) {
+            final var items = (List<?>) value.get("items");
+            final var links = (Number) value.get("links");
+            return new ElementSnapshot(
+                    textOf(value.get("text")),
+                    Boolean.TRUE.equals(value.get("enabled")),
+                    links == null ? 0 : links.intValue(),
+                    items == null ? List.of() : items.stream()
+                            .map(item -> ListItemSnapshot.create((Map<?, ?>) item)).toList());
+        }
+
+        /**
+         * <p>
+         * The visible text of the element, including its descendants.
+         * </p>
+         */
+        @Nonnull
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * <p>
+         * Whether the element is <i>enabled</i>: it does not have a {@code disabled} attribute.
+         * </p>
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * <p>
+         * The number of links ({@code a} elements) that the element contains.
+         * </p>
+         */
+        public int getNumberOfLinks() {
+            return numberOfLinks;
+        }
+
+        /**
+         * <p>
+         * The list items ({@code li} elements) that the element contains, in document order.
+         * </p>
+         */
+        @Nonnull
+        public List<ListItemSnapshot> getListItems() {
+            return listItems;
+        }
+    }
+
+    /**
+     * <p>
+     * The state of one list item of a page.
+     * </p>
+     */
+    @Immutable
+    public static final class ListItemSnapshot {
+        @Nonnull
+        private final String text;
+        @Nullable
+        private final String linkHref;
+
+        private ListItemSnapshot(@Nonnull final String text, @Nullable final String linkHref) {
+            this.text = text;
+            this.linkHref = linkHref;
+        }
+
+        @Nonnull
+        private static ListItemSnapshot create(@Nonnull final Map<?, ?> value) {
+            final var href = value.get("href");
+            return new ListItemSnapshot(textOf(value.get("text")), href == null ? null : href.toString());
+        }
+
+        @Nonnull
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * <p>
+         * The target of the first link in the list item, or null if it has no link.
+         * </p>
+         */
+        @Nullable
+        public String getLinkHref() {
+            return linkHref;
+        }
+
+        public boolean hasLink() {
+            return linkHref != null;
+        }
+    }
+}
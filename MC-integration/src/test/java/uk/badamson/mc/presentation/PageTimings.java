@@ -0,0 +1,289 @@
+package uk.badamson.mc.presentation;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * <p>
+ * Records how long page operations take: {@linkplain Page#get() getting} a page,
+ * navigating to a page, and {@linkplain Page#awaitIsReady() waiting} for a page to be ready.
+ * </p>
+ * <p>
+ * Typically, a specification has one of these, and makes it the {@linkplain #setCurrent(PageTimings) current}
+ * recorder of the thread running each feature.
+ * Features can require that the operations of a block of code are done within a
+ * {@linkplain #withBudget(String, double, Duration, int, Runnable) latency budget},
+ * and the specification can {@linkplain #writeReport(Path) write} the percentiles of the durations
+ * of all its operations to a file, so changes in performance can be found by comparing files.
+ * </p>
+ * <p>
+ * Operations are named by the kind of operation and the simple name of the page class,
+ * such as {@code "navigateTo GamePage"}.
+ * </p>
+ */
+public final class PageTimings {
+
+    public static final String GET = "get";
+    public static final String NAVIGATE_TO = "navigateTo";
+    public static final String AWAIT_IS_READY = "awaitIsReady";
+
+    private static final double[] REPORTED_PERCENTILES = {50.0, 90.0, 95.0, 99.0};
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ThreadLocal<PageTimings> CURRENT = new ThreadLocal<>();
+
+    /*
+     * The recorders collecting the samples of a budgeted block, for the thread running the block.
+     */
+    private static final ThreadLocal<PageTimings> BUDGETED = new ThreadLocal<>();
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> samples = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<BudgetResult> budgets = new ConcurrentLinkedQueue<>();
+
+    /**
+     * <p>
+     * The outcome of a {@linkplain #withBudget(String, double, Duration, int, Runnable) budgeted} block.
+     * </p>
+     */
+    public record BudgetResult(
+            @Nonnull String operation,
+            double percentile,
+            @Nonnull Duration limit,
+            @Nonnegative int count,
+            @Nonnull Duration actual) {
+
+        public boolean isMet() {
+            return actual.compareTo(limit) <= 0;
+        }
+
+        @Override
+        public String toString() {
+            return operation + " p" + percentile + " " + actual.toMillis() + " ms (budget " + limit.toMillis()
+                    + " ms, " + count + " samples)";
+        }
+    }
+
+    /**
+     * <p>
+     * Make a recorder the one to which page operations done by the current thread are reported.
+     * </p>
+     *
+     * @param timings The recorder, or {@code null} if page operations of the current thread are not to be recorded.
+     */
+    public static void setCurrent(@Nullable final PageTimings timings) {
+        if (timings == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(timings);
+        }
+    }
+
+    /**
+     * <p>
+     * Report that the current thread did a page operation.
+     * </p>
+     *
+     * @param kind       The kind of operation, such as {@link #NAVIGATE_TO}.
+     * @param page       The class of page operated on.
+     * @param startNanos The {@linkplain System#nanoTime() time} at which the operation started.
+     */
+    public static void record(
+            @Nonnull final String kind, @Nonnull final Class<? extends Page> page, final long startNanos) {
+        final long duration = System.nanoTime() - startNanos;
+        final var operation = kind + " " + page.getSimpleName();
+        final var current = CURRENT.get();
+        if (current != null) {
+            current.add(operation, duration);
+        }
+        final var budgeted = BUDGETED.get();
+        if (budgeted != null) {
+            budgeted.add(operation, duration);
+        }
+    }
+
+    private void add(@Nonnull final String operation, final long durationNanos) {
+        samples.computeIfAbsent(operation, o -> new ConcurrentLinkedQueue<>()).add(durationNanos);
+    }
+
+    /**
+     * <p>
+     * Run a block of code, and require that a percentile of the durations of an operation done by the block
+     * is within a limit.
+     * </p>
+     * <p>
+     * The operations of the block are also recorded in the usual manner.
+     * The outcome is included in the {@linkplain #writeReport(Path) report}.
+     * </p>
+     *
+     * @param operation  The name of the operation, such as {@code "navigateTo GamePage"}.
+     * @param percentile The percentile of the durations to check, such as 95.0.
+     * @param limit      The greatest permitted value of the percentile.
+     * @param repeats    The number of times to run the block.
+     * @throws IllegalArgumentException If {@code percentile} is not in the range (0, 100],
+     *                                  or {@code repeats} is not positive.
+     * @throws AssertionError           If the block did not do the operation,
+     *                                  or the percentile of the durations exceeded the limit.
+     */
+    @Nonnull
+    public BudgetResult withBudget(
+            @Nonnull final String operation,
+            final double percentile,
+            @Nonnull final Duration limit,
+            @Nonnegative final int repeats,
+            @Nonnull final Runnable block) {
+        Objects.requireNonNull(operation, "operation");
+        Objects.requireNonNull(limit, "limit");
+        Objects.requireNonNull(block, "block");
+        requireValidPercentile(percentile);
+        if (repeats <= 0) {
+            throw new IllegalArgumentException("repeats " + repeats);
+        }
+        final var blockTimings = new PageTimings();
+        final var outer = BUDGETED.get();
+        BUDGETED.set(blockTimings);
+        try {
+            for (int r = 0; r < repeats; ++r) {
+                block.run();
+            }
+        } finally {
+            if (outer == null) {
+                BUDGETED.remove();
+            } else {
+                BUDGETED.set(outer);
+                blockTimings.samples.forEach((o, durations) -> durations.forEach(d -> outer.add(o, d)));
+            }
+        }
+        final var durations = blockTimings.getSortedSamples(operation);
+        if (durations.isEmpty()) {
+            throw new AssertionError("Block did no " + operation + " operations");
+        }
+        final var result = new BudgetResult(operation, percentile, limit, durations.size(),
+                Duration.ofNanos(percentile(durations, percentile)));
+        budgets.add(result);
+        if (!result.isMet()) {
+            throw new AssertionError("Latency budget exceeded: " + result);
+        }
+        return result;
+    }
+
+    private static void requireValidPercentile(final double percentile) {
+        if (!(0.0 < percentile && percentile <= 100.0)) {
+            throw new IllegalArgumentException("percentile " + percentile);
+        }
+    }
+
+    @Nonnull
+    private List<Long> getSortedSamples(@Nonnull final String operation) {
+        final var queue = samples.get(operation);
+        final List<Long> result = queue == null ? new ArrayList<>() : new ArrayList<>(queue);
+        result.sort(null);
+        return result;
+    }
+
+    /*
+     * Nearest-rank percentile of a sorted, non-empty list.
+     */
+    private static long percentile(@Nonnull final List<Long> sorted, final double percentile) {
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    /**
+     * <p>
+     * A percentile of the recorded durations of an operation.
+     * </p>
+     *
+     * @return The percentile, or {@code null} if the operation has not been recorded.
+     * @throws IllegalArgumentException If {@code percentile} is not in the range (0, 100].
+     */
+    @Nullable
+    public Duration getPercentile(@Nonnull final String operation, final double percentile) {
+        Objects.requireNonNull(operation, "operation");
+        requireValidPercentile(percentile);
+        final var sorted = getSortedSamples(operation);
+        return sorted.isEmpty() ? null : Duration.ofNanos(percentile(sorted, percentile));
+    }
+
+    /**
+     * <p>
+     * Write the percentiles of the durations of all the operations recorded,
+     * and the outcomes of all the budgeted blocks, to a JSON file.
+     * </p>
+     * <p>
+     * Durations are in milliseconds. The operations are in alphabetical order,
+     * so reports of different runs can be compared line by line.
+     * </p>
+     *
+     * @throws UncheckedIOException If the file could not be written.
+     */
+    public void writeReport(@Nonnull final Path file) {
+        final var root = JsonNodeFactory.instance.objectNode();
+        final var operations = root.putObject("operations");
+        for (final var operation : new TreeMap<>(samples).keySet()) {
+            final var sorted = getSortedSamples(operation);
+            if (sorted.isEmpty()) {
+                continue;
+            }
+            final var node = operations.putObject(operation);
+            node.put("count", sorted.size());
+            for (final double p : REPORTED_PERCENTILES) {
+                node.put("p" + (int) p, toMillis(percentile(sorted, p)));
+            }
+            node.put("max", toMillis(sorted.get(sorted.size() - 1)));
+        }
+        final var budgetsNode = root.putArray("budgets");
+        for (final var budget : budgets) {
+            budgetsNode.addObject()
+                    .put("operation", budget.operation())
+                    .put("percentile", budget.percentile())
+                    .put("limit", budget.limit().toMillis())
+                    .put("count", budget.count())
+                    .put("actual", toMillis(budget.actual().toNanos()))
+                    .put("met", budget.isMet());
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), root);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static double toMillis(final long nanos) {
+        return Math.round(nanos / 1.0E4) / 100.0;
+    }
+}
@@ -42,9 +42,18 @@ public final class ScenarioPage extends Page {
 
     private static final String BASE = "/scenario/";
 
-    private static final By CHARACTERS_LIST_LOCATOR = By.id("characters");
-    private static final By GAMES_LIST_LOCATOR = By.id("games");
-    private static final By CREATE_GAME_LOCATOR = By.id("create-game");
+    private static final String CHARACTERS_LIST_ID = "characters";
+    private static final String GAMES_LIST_ID = "games";
+    private static final String CREATE_GAME_ID = "create-game";
+
+    private static final By GAMES_LIST_LOCATOR = By.id(GAMES_LIST_ID);
+    private static final By CREATE_GAME_LOCATOR = By.id(CREATE_GAME_ID);
+
+    private static final String CHARACTERS_LIST = selectorForId(CHARACTERS_LIST_ID);
+    private static final String GAMES_LIST = selectorForId(GAMES_LIST_ID);
+    private static final String CREATE_GAME = selectorForId(CREATE_GAME_ID);
+
+    private static final String[] ELEMENTS = {CHARACTERS_LIST, GAMES_LIST, CREATE_GAME};
 
     private final String scenarioTitle;
 
@@ -66,31 +75,33 @@ public final class ScenarioPage extends Page {
                 "scenarioTitle");
     }
 
-    private void assertDisplaysScenarioTitle(final WebElement body) {
-        assertThat("displays the scenario title", body.getText(),
-                containsString(scenarioTitle));
+    @Nonnull
+    private PageSnapshot takeSnapshot() {
+        return takeSnapshot(ELEMENTS);
     }
 
-    public void assertHasListOfCharacters() {
-        assertHasListOfCharacters(getBody());
+    private void assertDisplaysScenarioTitle(final PageSnapshot snapshot) {
+        assertThat("displays the scenario title", snapshot.getBodyText(),
+                containsString(scenarioTitle));
     }
 
-    private void assertHasListOfCharacters(final WebElement body) {
-        assertHasElement(body, CHARACTERS_LIST_LOCATOR);
+    public void assertHasListOfCharacters() {
+        takeSnapshot().assertHasElement(CHARACTERS_LIST);
     }
 
     public void assertHasListOfGames() {
-        assertHasListOfGames(getBody());
+        assertHasListOfGames(takeSnapshot());
     }
 
-    private void assertHasListOfGames(final WebElement body) {
-        assertHasElement(body, GAMES_LIST_LOCATOR);
+    private void assertHasListOfGames(final PageSnapshot snapshot) {
+        snapshot.assertHasElement(GAMES_LIST);
     }
 
     @Override
     protected void assertValidBody(@Nonnull final WebElement body) {
-        assertHasListOfGames(body);
-        assertDisplaysScenarioTitle(body);
+        final var snapshot = PageSnapshot.take(body, ELEMENTS);
+        assertHasListOfGames(snapshot);
+        assertDisplaysScenarioTitle(snapshot);
     }
 
     public GamePage createGame() {
@@ -127,7 +138,9 @@ public final class ScenarioPage extends Page {
     }
 
     public int getNumberOfGamesListed() {
-        return findGameElements().size();
+        requireIsReady();
+        return takeSnapshot().getElement(GAMES_LIST)
+                .map(games -> games.getListItems().size()).orElseThrow();
     }
 
     public String getScenarioTitle() {
@@ -136,12 +149,13 @@ public final class ScenarioPage extends Page {
 
     public boolean hasLinksToGames() {
         requireIsReady();
-        return !getBody().findElement(GAMES_LIST_LOCATOR)
-                .findElements(By.tagName("a")).isEmpty();
+        return takeSnapshot().getElement(GAMES_LIST)
+                .map(games -> games.getNumberOfLinks() > 0).orElseThrow();
     }
 
     public boolean isCreateGameButtonEnabled() {
-        return isEnabled(getBody().findElement(CREATE_GAME_LOCATOR));
+        return takeSnapshot().getElement(CREATE_GAME)
+                .map(PageSnapshot.ElementSnapshot::isEnabled).orElseThrow();
     }
 
     @Override
@@ -150,6 +164,7 @@ public final class ScenarioPage extends Page {
     }
 
     public GamePage navigateToGamePage(final UUID gameId) {
+        final long start = System.nanoTime();
         requireIsReady();
         final var gameElement = findGameElement(gameId);
         if (gameElement == null) {
@@ -160,7 +175,7 @@ public final class ScenarioPage extends Page {
         link.click();
         final var gamePage = new GamePage(this, creationTimeText);
         gamePage.awaitIsReady();
-        return gamePage;
+        return navigatedTo(start, gamePage);
     }
 
 }
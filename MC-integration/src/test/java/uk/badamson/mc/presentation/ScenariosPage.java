@@ -94,12 +94,13 @@ public final class ScenariosPage extends Page {
     }
 
     public ScenarioPage navigateToScenario(final int i) {
+        final long start = System.nanoTime();
         final var entry = findScenarioElements().get(i);
         final var title = entry.getText();
         final var link = entry.findElement(By.tagName("a"));
         link.click();
         final var scenarioPage = new ScenarioPage(this, title);
         scenarioPage.awaitIsReady();
-        return scenarioPage;
+        return navigatedTo(start, scenarioPage);
     }
 }
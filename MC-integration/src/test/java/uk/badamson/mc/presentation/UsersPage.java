@@ -47,6 +47,12 @@ public final class UsersPage extends Page {
     private static final By ADD_USER_LINK_LOCATOR = By
             .xpath("//a[@id='add-user']");
 
+    private static final String HEADING = "h2";
+    private static final String USER_LIST = "ul";
+    private static final String ADD_USER_LINK = "a#add-user";
+
+    private static final String[] ELEMENTS = {HEADING, USER_LIST, ADD_USER_LINK};
+
     /**
      * <p>
      * Construct a user page associated with a given home page.
@@ -59,35 +65,41 @@ public final class UsersPage extends Page {
         super(homePage);
     }
 
-    private void assertHasHeadingSayingUsers(final WebElement body) {
-        final var heading = assertHasElement(body, By.tagName("h2"));
+    @Nonnull
+    private PageSnapshot takeSnapshot() {
+        return takeSnapshot(ELEMENTS);
+    }
+
+    private void assertHasHeadingSayingUsers(final PageSnapshot snapshot) {
+        final var heading = snapshot.assertHasElement(HEADING);
         assertThat("Has a heading saying \"Users\"", heading.getText(),
                 containsString("Users"));
     }
 
     public void assertHasListOfUsers() {
-        assertHasListOfUsers(getBody());
+        assertHasListOfUsers(takeSnapshot());
     }
 
-    private void assertHasListOfUsers(final WebElement body) {
-        assertHasElement(body, USER_LIST_LOCATOR);
+    private PageSnapshot.ElementSnapshot assertHasListOfUsers(final PageSnapshot snapshot) {
+        return snapshot.assertHasElement(USER_LIST);
     }
 
     public void assertListOfUsersIncludes(final String name) {
         Objects.requireNonNull(name, "name");
-        final var list = assertHasElement(getBody(), USER_LIST_LOCATOR);
+        final var list = assertHasListOfUsers(takeSnapshot());
         assertThat(list.getText(), containsString(name));
     }
 
     public void assertListOfUsersNotEmpty() {
-        final var list = assertHasElement(getBody(), USER_LIST_LOCATOR);
-        assertThat(list.findElements(By.tagName("li")), not(empty()));
+        final var list = assertHasListOfUsers(takeSnapshot());
+        assertThat(list.getListItems(), not(empty()));
     }
 
     @Override
     protected void assertValidBody(@Nonnull final WebElement body) {
-        assertAll(() -> assertHasHeadingSayingUsers(body),
-                () -> assertHasListOfUsers(body));
+        final var snapshot = PageSnapshot.take(body, ELEMENTS);
+        assertAll(() -> assertHasHeadingSayingUsers(snapshot),
+                () -> assertHasListOfUsers(snapshot));
     }
 
     private List<WebElement> findUserListEntries() {
@@ -97,13 +109,13 @@ public final class UsersPage extends Page {
 
     public int getNumberOfUserLinks() {
         requireIsReady();
-        return (int) findUserListEntries().stream().filter(
-                        entry -> !entry.findElements(USER_LINK_LOCATOR).isEmpty())
+        return (int) assertHasListOfUsers(takeSnapshot()).getListItems().stream()
+                .filter(PageSnapshot.ListItemSnapshot::hasLink)
                 .count();
     }
 
     public boolean hasAddUserLink() {
-        return !getBody().findElements(ADD_USER_LINK_LOCATOR).isEmpty();
+        return takeSnapshot().hasElement(ADD_USER_LINK);
     }
 
     @Override
@@ -112,15 +124,17 @@ public final class UsersPage extends Page {
     }
 
     public AddUserPage navigateToAddUserPage() {
+        final long start = System.nanoTime();
         requireIsReady();
         final var link = getBody().findElement(ADD_USER_LINK_LOCATOR);
         link.click();
         final var addUserPage = new AddUserPage(this);
         addUserPage.awaitIsReady();
-        return addUserPage;
+        return navigatedTo(start, addUserPage);
     }
 
     public UserPage navigateToUserPage(final int index) {
+        final long start = System.nanoTime();
         if (index < 0) {
             throw new IllegalArgumentException("negative index");
         }
@@ -137,7 +151,7 @@ public final class UsersPage extends Page {
         link.click();
         final var userPage = new UserPage(this, displayName);
         userPage.awaitIsReady();
-        return userPage;
+        return navigatedTo(start, userPage);
     }
 
 }
@@ -18,7 +18,15 @@ package uk.badamson.mc.repository;
  * along with MC.  If not, see <https://www.gnu.org/licenses/>.
  */
 
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.MongoCredential;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.wait.strategy.Wait;
 import org.testcontainers.containers.wait.strategy.WaitAllStrategy;
@@ -26,14 +34,24 @@ import org.testcontainers.containers.wait.strategy.WaitStrategy;
 import org.testcontainers.utility.DockerImageName;
 import uk.badamson.mc.SutVersions;
 
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
 public final class McDatabaseContainer
         extends GenericContainer<McDatabaseContainer> {
 
     private static final String VERSION = SutVersions.MC_WEB_VERSION;
 
-    private static final DockerImageName IMAGE = DockerImageName
+    public static final DockerImageName IMAGE = DockerImageName
             .parse("index.docker.io/benedictadamson/mc-database:" + VERSION);
 
     private static final int PORT = 27017;
@@ -44,19 +62,66 @@ public final class McDatabaseContainer
 
     private static final String ROOT_USER = "admin";
 
+    private static final String MC_DB = "mc";
+
+    private static final String INIT_INFO_COLLECTION = "initinfo";
+
+    /*
+     * The database holding the saved snapshot; separate from the MC database, so it survives resets.
+     */
+    private static final String SAVED_SNAPSHOT_DB = "mc-snapshot";
+
+    /*
+     * The document that the init-mc-db script of the MC-database image inserts.
+     */
+    private static final Document INIT_INFO = new Document("creator", "MC-database init-mc-db");
+
     private static final Duration STARTUP_TIME = Duration.ofSeconds(45);
 
+    private static final String DATA_DIRECTORY = "/data/db";
+
+    /**
+     * <p>
+     * The fraction of the container memory used for the in-memory file-system
+     * holding the data directory, when using {@linkplain #withEphemeralStorage(long) ephemeral storage}.
+     * Pages of a tmpfs are charged to the memory of the container.
+     * </p>
+     */
+    private static final double TMPFS_FRACTION = 0.5;
+
+    /**
+     * <p>
+     * The fraction of the container memory used for the WiredTiger cache,
+     * when using {@linkplain #withEphemeralStorage(long) ephemeral storage}.
+     * </p>
+     */
+    private static final double WIRED_TIGER_CACHE_FRACTION = 0.25;
+
+    /*
+     * The smallest cache size that mongod accepts.
+     */
+    private static final double MIN_WIRED_TIGER_CACHE_GB = 0.25;
+
+    private static final double BYTES_PER_GB = 1024.0 * 1024.0 * 1024.0;
+
     private static final WaitStrategy WAIT_STRATEGY = new WaitAllStrategy()
             .withStrategy(Wait.forListeningPort())
             .withStartupTimeout(STARTUP_TIME);
 
+    @Nonnull
+    private final MongoCredential rootCredential;
+
+    @Nullable
+    private MongoClient client;
+    private volatile boolean reused;
+
     @SuppressWarnings("resource")
     public McDatabaseContainer(final String rootPassword,
                                final String userPassword) {
         super(IMAGE);
         MongoCredential.createCredential(NORMAL_USER,
                 AUTHENTICATION_DB, userPassword.toCharArray());
-        MongoCredential.createCredential(ROOT_USER,
+        rootCredential = MongoCredential.createCredential(ROOT_USER,
                 AUTHENTICATION_DB, rootPassword.toCharArray());
         addExposedPort(PORT);
         withEnv("MONGO_INITDB_ROOT_PASSWORD", rootPassword);
@@ -66,4 +131,235 @@ public final class McDatabaseContainer
         addExposedPort(PORT);
     }
 
+    /**
+     * <p>
+     * Configure this container to use fast, ephemeral storage, suitable for tests
+     * that create large amounts of data.
+     * </p>
+     * <ul>
+     * <li>The data directory is on an in-memory file-system (tmpfs).</li>
+     * <li>The container memory is limited, and the WiredTiger cache is sized as a fraction of that memory,
+     * rather than a fraction of the memory of the host.</li>
+     * <li>Journaling, periodic checkpoints and diagnostic data collection are disabled.</li>
+     * </ul>
+     * <p>
+     * All the data is lost when the container stops, and would be lost if mongod crashed.
+     * The developer docker-compose ({@code MC_DB_EPHEMERAL}) and minikube
+     * ({@code database.ephemeral}) deployments use the same settings.
+     * </p>
+     *
+     * @param memory The memory limit of the container, in bytes.
+     * @return this
+     */
+    @Nonnull
+    public McDatabaseContainer withEphemeralStorage(@Nonnegative final long memory) {
+        if (memory <= 0) {
+            throw new IllegalArgumentException("memory " + memory);
+        }
+        final var tmpfsSize = (long) (memory * TMPFS_FRACTION);
+        final var cacheSizeGb = Math.max(MIN_WIRED_TIGER_CACHE_GB,
+                memory * WIRED_TIGER_CACHE_FRACTION / BYTES_PER_GB);
+        withTmpFs(Map.of(DATA_DIRECTORY, "rw,mode=1777,size=" + tmpfsSize));
+        withCreateContainerCmdModifier(cmd -> Objects.requireNonNull(cmd.getHostConfig())
+                .withMemory(memory));
+        withCommand("--bind_ip", "0.0.0.0",
+                "--wiredTigerCacheSizeGB", String.format(Locale.ROOT, "%.2f", cacheSizeGb),
+                "--nojournal",
+                "--syncdelay", "0",
+                "--setParameter", "diagnosticDataCollectionEnabled=false");
+        return this;
+    }
+
+    @Nonnull
+    private MongoDatabase getMcDatabase() {
+        return getDatabase(MC_DB);
+    }
+
+    @Nonnull
+    private synchronized MongoDatabase getDatabase(@Nonnull final String name) {
+        if (client == null) {
+            client = MongoClients.create(MongoClientSettings.builder()
+                    .applyToClusterSettings(cluster -> cluster.hosts(
+                            List.of(new ServerAddress(getHost(), getMappedPort(PORT)))))
+                    .credential(rootCredential)
+                    .build());
+        }
+        return client.getDatabase(name);
+    }
+
+    @Nonnull
+    private List<String> getMcCollectionNames(@Nonnull final MongoDatabase database) {
+        final List<String> names = new ArrayList<>();
+        for (final var name : database.listCollectionNames()) {
+            if (!name.startsWith("system.")) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private void truncateMcCollections(@Nonnull final MongoDatabase database) {
+        /* Truncate rather than drop, so the indexes created by the back-end are retained. */
+        for (final var name : getMcCollectionNames(database)) {
+            database.getCollection(name).deleteMany(new Document());
+        }
+    }
+
+    /**
+     * <p>
+     * Put the MC database into the state it has just after initialisation of the container,
+     * by the {@code init-mc-db} script.
+     * </p>
+     * <p>
+     * This is very much faster than creating a new container.
+     * </p>
+     */
+    public void reset() {
+        final var database = getMcDatabase();
+        truncateMcCollections(database);
+        database.getCollection(INIT_INFO_COLLECTION).insertOne(new Document(INIT_INFO));
+    }
+
+    /**
+     * <p>
+     * Record the current content of the MC database, so it can be {@linkplain #restore(Snapshot) restored} later.
+     * </p>
+     */
+    @Nonnull
+    public Snapshot takeSnapshot() {
+        final var database = getMcDatabase();
+        final Map<String, List<Document>> collections = new HashMap<>();
+        for (final var name : getMcCollectionNames(database)) {
+            collections.put(name, database.getCollection(name).find().into(new ArrayList<>()));
+        }
+        return new Snapshot(collections);
+    }
+
+    /**
+     * <p>
+     * Put the MC database into the state recorded in a {@linkplain #takeSnapshot() snapshot}.
+     * </p>
+     * <p>
+     * Collections that did not exist when the snapshot was taken are emptied, rather than dropped.
+     * The documents are restored using bulk writes.
+     * </p>
+     */
+    public void restore(@Nonnull final Snapshot snapshot) {
+        Objects.requireNonNull(snapshot, "snapshot");
+        final var database = getMcDatabase();
+        truncateMcCollections(database);
+        final var options = new InsertManyOptions().ordered(false);
+        snapshot.collections.forEach((name, documents) -> {
+            if (!documents.isEmpty()) {
+                database.getCollection(name).insertMany(documents, options);
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Save a snapshot in the database server, so it can be {@linkplain #loadSavedSnapshot() loaded}
+     * by a later test run that {@linkplain #isReused() reuses} this container.
+     * </p>
+     * <p>
+     * Replaces any snapshot already saved.
+     * </p>
+     */
+    public void saveSnapshot(@Nonnull final Snapshot snapshot) {
+        Objects.requireNonNull(snapshot, "snapshot");
+        final var database = getDatabase(SAVED_SNAPSHOT_DB);
+        database.drop();
+        final var options = new InsertManyOptions().ordered(false);
+        snapshot.collections.forEach((name, documents) -> {
+            if (!documents.isEmpty()) {
+                database.getCollection(name).insertMany(documents, options);
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Load the snapshot {@linkplain #saveSnapshot(Snapshot) saved} in the database server.
+     * </p>
+     *
+     * @return the snapshot, or {@code null} if no snapshot has been saved.
+     */
+    @Nullable
+    public Snapshot loadSavedSnapshot() {
+        final var database = getDatabase(SAVED_SNAPSHOT_DB);
+        final Map<String, List<Document>> collections = new HashMap<>();
+        for (final var name : getMcCollectionNames(database)) {
+            collections.put(name, database.getCollection(name).find().into(new ArrayList<>()));
+        }
+        return collections.isEmpty() ? null : new Snapshot(collections);
+    }
+
+    /**
+     * <p>
+     * Whether the database server responds to commands.
+     * </p>
+     */
+    public boolean isHealthy() {
+        try {
+            getMcDatabase().runCommand(new Document("ping", 1));
+            return true;
+        } catch (final RuntimeException e) {
+            return false;
+        }
+    }
+
+    @Override
+    protected void containerIsStarted(final InspectContainerResponse containerInfo, final boolean reused) {
+        super.containerIsStarted(containerInfo, reused);
+        this.reused = reused;
+    }
+
+    /**
+     * <p>
+     * Whether the last {@linkplain #start() start} of this container
+     * {@linkplain #withReuse(boolean) reused} a container that was already running.
+     * </p>
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    @Override
+    public void stop() {
+        closeClient();
+        super.stop();
+    }
+
+    private synchronized void closeClient() {
+        if (client != null) {
+            client.close();
+            client = null;
+        }
+    }
+
+    /**
+     * <p>
+     * The content of the MC database at one point in time.
+     * </p>
+     */
+    @Immutable
+    public static final class Snapshot {
+
+        private final Map<String, List<Document>> collections;
+
+        private Snapshot(@Nonnull final Map<String, List<Document>> collections) {
+            final Map<String, List<Document>> copy = new HashMap<>();
+            collections.forEach((name, documents) -> copy.put(name, List.copyOf(documents)));
+            this.collections = Map.copyOf(copy);
+        }
+
+        /**
+         * <p>
+         * The total number of documents in all the collections.
+         * </p>
+         */
+        public int getNumberOfDocuments() {
+            return collections.values().stream().mapToInt(List::size).sum();
+        }
+    }
 }
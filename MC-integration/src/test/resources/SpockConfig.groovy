@@ -0,0 +1,31 @@
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Run features concurrently if there is a pool of several browsers (system property mc.browsers),
+ * with one feature per browser.
+ */
+def browsers = Integer.getInteger('mc.browsers', 1)
+
+runner {
+    parallel {
+        enabled browsers > 1
+        fixed(Math.max(1, browsers))
+    }
+}
@@ -0,0 +1,305 @@
+package uk.badamson.mc.load;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.badamson.mc.Authority;
+import uk.badamson.mc.BasicUserDetails;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A load generator that drives the game lifecycle of an MC installation using many simulated players.
+ * </p>
+ * <p>
+ * Each player logs in, lists the scenarios, creates a game of one of them, joins that game,
+ * starts it and stops it, and then logs out,
+ * pausing for a think time between operations.
+ * Players arrive according to a {@linkplain LoadProfile load profile}.
+ * Each player runs on its own thread, which is a virtual thread if the Java runtime provides them.
+ * Each player uses a different user, because a user may play only one game at a time.
+ * </p>
+ * <p>
+ * The installation is identified by a base URI, so the load can be applied through an ingress,
+ * or directly to a back-end.
+ * </p>
+ */
+public final class LoadEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadEngine.class);
+
+    private static final AtomicInteger N_THREADS = new AtomicInteger(0);
+    private static final Set<Authority> PLAYER_AUTHORITIES = Set.of(Authority.ROLE_PLAYER, Authority.ROLE_MANAGE_GAMES);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofMinutes(5);
+
+    @Nonnull
+    private final URI baseUri;
+    @Nonnull
+    private final LoadProfile profile;
+    @Nonnull
+    private final HttpClient client;
+    @Nonnull
+    private final long[] arrivals;
+
+    /**
+     * @param baseUri The URI of the MC installation, such as {@code http://localhost:8080/}.
+     * @param profile The shape of the load to apply.
+     */
+    public LoadEngine(@Nonnull final URI baseUri, @Nonnull final LoadProfile profile) {
+        this.baseUri = Objects.requireNonNull(baseUri, "baseUri");
+        this.profile = Objects.requireNonNull(profile, "profile");
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.arrivals = createArrivalSchedule(profile);
+    }
+
+    /**
+     * <p>
+     * Create an executor that runs each task in a new virtual thread,
+     * or, if the Java runtime does not provide virtual threads, in a pooled daemon platform thread.
+     * </p>
+     * <p>
+     * Virtual threads are looked up reflectively, so this code also runs on Java versions before 21.
+     * </p>
+     */
+    @Nonnull
+    static ExecutorService createPlayerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException | UnsupportedOperationException e) {
+            LOGGER.info("Virtual threads not available; using platform threads for players");
+            return Executors.newCachedThreadPool(runnable -> {
+                final var thread = new Thread(runnable, "LoadPlayer-" + N_THREADS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * <p>
+     * Create the arrival times of the players, as offsets from the start of the run, in nanoseconds,
+     * with exponentially distributed gaps between arrivals.
+     * </p>
+     */
+    @Nonnull
+    private static long[] createArrivalSchedule(@Nonnull final LoadProfile profile) {
+        final var random = ThreadLocalRandom.current();
+        final double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / profile.arrivalRate();
+        final long end = profile.duration().toNanos();
+        final List<Long> arrivals = new ArrayList<>();
+        double time = 0.0;
+        while (arrivals.size() < profile.maxPlayers()) {
+            time += -Math.log(1.0 - random.nextDouble()) * meanGapNanos;
+            if (end <= time) {
+                break;
+            }
+            arrivals.add((long) time);
+        }
+        return arrivals.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * <p>
+     * The details of users suitable for being simulated players in a load run.
+     * </p>
+     * <p>
+     * The users must be added to the installation before the run.
+     * The names include a random run identifier, so users of different runs do not clash.
+     * </p>
+     *
+     * @param n The number of users.
+     */
+    @Nonnull
+    public static List<BasicUserDetails> createPlayerDetails(@Nonnegative final int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n " + n);
+        }
+        final var run = UUID.randomUUID().toString().substring(0, 8);
+        final List<BasicUserDetails> players = new ArrayList<>(n);
+        for (int p = 0; p < n; ++p) {
+            players.add(new BasicUserDetails("load-" + run + "-" + p, "password" + p,
+                    PLAYER_AUTHORITIES, true, true, true, true));
+        }
+        return players;
+    }
+
+    /**
+     * <p>
+     * Add users to the installation, logged in as the administrator.
+     * </p>
+     */
+    public void addUsers(
+            @Nonnull final BasicUserDetails administrator,
+            @Nonnull final List<? extends BasicUserDetails> users
+    ) {
+        Objects.requireNonNull(administrator, "administrator");
+        Objects.requireNonNull(users, "users");
+        final var session = new PlayerSession(client, baseUri, administrator);
+        session.login();
+        try {
+            users.forEach(session::addUser);
+        } finally {
+            session.logout();
+        }
+    }
+
+    /**
+     * <p>
+     * The number of players that will arrive during a run,
+     * and hence the number of users that {@link #run(List)} needs.
+     * </p>
+     * <p>
+     * The random arrival times are chosen when this engine is created.
+     * </p>
+     */
+    @Nonnegative
+    public int getNumberOfPlayers() {
+        return arrivals.length;
+    }
+
+    /**
+     * <p>
+     * Apply the load, and wait for all the players to finish.
+     * </p>
+     *
+     * @param users The users to use as players, which must already exist,
+     *              and must have the {@linkplain Authority#ROLE_PLAYER player}
+     *              and {@linkplain Authority#ROLE_MANAGE_GAMES manage games} authorities.
+     *              The run ends early if there are fewer users than arriving players.
+     */
+    @Nonnull
+    public LoadReport run(@Nonnull final List<? extends BasicUserDetails> users) {
+        Objects.requireNonNull(users, "users");
+        final var report = new LoadReport();
+        final int nPlayers = Math.min(arrivals.length, users.size());
+        if (nPlayers < arrivals.length) {
+            LOGGER.warn("Only {} users for {} arriving players", users.size(), arrivals.length);
+        }
+        final var executor = createPlayerExecutor();
+        final long start = System.nanoTime();
+        try {
+            for (int p = 0; p < nPlayers; ++p) {
+                final long scheduled = start + arrivals[p];
+                for (long wait = scheduled - System.nanoTime(); 0 < wait; wait = scheduled - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                final var user = users.get(p);
+                executor.execute(() -> play(user, scheduled, report));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS)) {
+                LOGGER.warn("Players still running {} after the last arrival", SHUTDOWN_TIMEOUT);
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        return report;
+    }
+
+    private void play(
+            @Nonnull final BasicUserDetails user, final long scheduledStart, @Nonnull final LoadReport report) {
+        report.recordArrivalLag(System.nanoTime() - scheduledStart);
+        final var session = new PlayerSession(client, baseUri, user);
+        boolean completed = false;
+        try {
+            performAction(report, Operation.LOGIN, session::login);
+            think();
+            final var scenarios = perform(report, Operation.LIST_SCENARIOS, session::getScenarios);
+            if (scenarios.isEmpty()) {
+                throw new IllegalStateException("No scenarios");
+            }
+            think();
+            final var scenario = scenarios.get(ThreadLocalRandom.current().nextInt(scenarios.size()));
+            final var game = perform(report, Operation.CREATE_GAME, () -> session.createGame(scenario));
+            think();
+            performAction(report, Operation.JOIN_GAME, () -> session.joinGame(game));
+            think();
+            performAction(report, Operation.START_GAME, () -> session.startGame(game));
+            think();
+            performAction(report, Operation.STOP_GAME, () -> session.stopGame(game));
+            think();
+            performAction(report, Operation.LOGOUT, session::logout);
+            completed = true;
+        } catch (final RuntimeException e) {
+            LOGGER.debug("Player {} abandoned", user.getUsername(), e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            report.recordPlayerFinished(completed);
+        }
+    }
+
+    private void think() throws InterruptedException {
+        final long mean = profile.meanThinkTime().toNanos();
+        if (0 < mean) {
+            final long pause = (long) (-Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * mean);
+            TimeUnit.NANOSECONDS.sleep(pause);
+        }
+    }
+
+    private static void performAction(
+            @Nonnull final LoadReport report, @Nonnull final Operation operation, @Nonnull final Runnable action) {
+        perform(report, operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static <T> T perform(
+            @Nonnull final LoadReport report,
+            @Nonnull final Operation operation,
+            @Nonnull final Supplier<T> action) {
+        final long start = System.nanoTime();
+        try {
+            final var result = action.get();
+            report.recordLatency(operation, System.nanoTime() - start);
+            return result;
+        } catch (final RuntimeException e) {
+            report.recordFailure(operation);
+            throw e;
+        }
+    }
+}
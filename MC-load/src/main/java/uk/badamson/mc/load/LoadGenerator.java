@@ -0,0 +1,78 @@
+package uk.badamson.mc.load;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.badamson.mc.User;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * <p>
+ * Command-line entry point for applying a {@linkplain LoadEngine load} to any MC installation.
+ * </p>
+ * <p>
+ * The arguments are the base URI of the installation and, optionally,
+ * a directory in which to write the latency histograms.
+ * The password of the administrator, needed to add the users for the players,
+ * is given by the {@code MC_ADMINISTRATOR_PASSWORD} environment variable,
+ * so it does not appear in process listings.
+ * The {@linkplain LoadProfile#fromSystemProperties() load profile} is given by system properties.
+ * </p>
+ */
+public final class LoadGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final String ADMINISTRATOR_PASSWORD_VARIABLE = "MC_ADMINISTRATOR_PASSWORD";
+
+    private LoadGenerator() {
+        throw new AssertionError("Class should not be instantiated");
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1 || 2 < args.length) {
+            System.err.println("Usage: LoadGenerator base-uri [histogram-directory]");
+            System.exit(2);
+        }
+        final var administratorPassword = System.getenv(ADMINISTRATOR_PASSWORD_VARIABLE);
+        if (administratorPassword == null) {
+            System.err.println(ADMINISTRATOR_PASSWORD_VARIABLE + " is not set");
+            System.exit(2);
+        }
+        final var profile = LoadProfile.fromSystemProperties();
+        final var engine = new LoadEngine(URI.create(args[0]), profile);
+
+        final var players = LoadEngine.createPlayerDetails(engine.getNumberOfPlayers());
+        LOGGER.info("Adding {} users", players.size());
+        engine.addUsers(User.createAdministrator(administratorPassword), players);
+        LOGGER.info("Applying load {}", profile);
+        final var report = engine.run(players);
+
+        report.writeSummary(System.out);
+        if (args.length == 2) {
+            report.writeHistograms(Path.of(args[1]));
+        }
+        System.exit(report.getTotalFailures() == 0 ? 0 : 1);
+    }
+}
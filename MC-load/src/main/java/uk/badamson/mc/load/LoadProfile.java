@@ -0,0 +1,83 @@
+package uk.badamson.mc.load;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * <p>
+ * The shape of the load that a {@link LoadEngine} puts on an MC installation.
+ * </p>
+ * <p>
+ * The load is open-loop: players arrive at random (Poisson) times at a given mean rate,
+ * whether or not earlier players have finished,
+ * so a slow installation accumulates players rather than receiving fewer requests.
+ * Each player pauses for a random (exponentially distributed) think time between operations.
+ * </p>
+ *
+ * @param arrivalRate   The mean number of players arriving per second.
+ * @param duration      How long players continue to arrive.
+ * @param meanThinkTime The mean pause of a player between operations.
+ * @param maxPlayers    The maximum number of players to arrive, which bounds the number of users needed.
+ */
+public record LoadProfile(
+        double arrivalRate,
+        @Nonnull Duration duration,
+        @Nonnull Duration meanThinkTime,
+        @Nonnegative int maxPlayers
+) {
+
+    public LoadProfile {
+        Objects.requireNonNull(duration, "duration");
+        Objects.requireNonNull(meanThinkTime, "meanThinkTime");
+        if (!(0.0 < arrivalRate) || Double.isInfinite(arrivalRate)) {
+            throw new IllegalArgumentException("arrivalRate " + arrivalRate);
+        }
+        if (duration.isNegative() || meanThinkTime.isNegative()) {
+            throw new IllegalArgumentException("negative duration");
+        }
+        if (maxPlayers < 0) {
+            throw new IllegalArgumentException("maxPlayers " + maxPlayers);
+        }
+    }
+
+    /**
+     * <p>
+     * The profile given by system properties, with defaults for a short, light load.
+     * </p>
+     * <ul>
+     *     <li>{@code mc.load.rate}: the {@linkplain #arrivalRate() arrival rate}, default 2 per second.</li>
+     *     <li>{@code mc.load.duration}: the {@linkplain #duration() duration}, in seconds, default 60.</li>
+     *     <li>{@code mc.load.think}: the {@linkplain #meanThinkTime() mean think time}, in milliseconds, default 500.</li>
+     *     <li>{@code mc.load.players}: the {@linkplain #maxPlayers() maximum number of players}, default 1000.</li>
+     * </ul>
+     */
+    @Nonnull
+    public static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Double.parseDouble(System.getProperty("mc.load.rate", "2")),
+                Duration.ofSeconds(Long.getLong("mc.load.duration", 60L)),
+                Duration.ofMillis(Long.getLong("mc.load.think", 500L)),
+                Integer.getInteger("mc.load.players", 1000));
+    }
+}
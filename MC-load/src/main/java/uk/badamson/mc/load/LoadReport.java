@@ -0,0 +1,189 @@
+package uk.badamson.mc.load;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * The latencies and failures of the operations performed during a {@linkplain LoadEngine load} run.
+ * </p>
+ * <p>
+ * Latencies are recorded in HdrHistograms, in microseconds, so percentiles are accurate
+ * to three significant figures however long the tail.
+ * The report also records the <i>arrival lag</i> of each player: how late the player started,
+ * relative to its scheduled arrival time.
+ * A large arrival lag indicates that the load generator itself could not keep up,
+ * so the requested load was not applied.
+ * </p>
+ * <p>
+ * Recording is safe for many threads.
+ * </p>
+ */
+public final class LoadReport {
+
+    private static final int SIGNIFICANT_FIGURES = 3;
+    private static final double MICROSECONDS_PER_MILLISECOND = 1000.0;
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> failures = new EnumMap<>(Operation.class);
+    private final Histogram arrivalLag = new ConcurrentHistogram(SIGNIFICANT_FIGURES);
+    private final AtomicLong completedPlayers = new AtomicLong(0);
+    private final AtomicLong abandonedPlayers = new AtomicLong(0);
+
+    LoadReport() {
+        for (final var operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(SIGNIFICANT_FIGURES));
+            failures.put(operation, new AtomicLong(0));
+        }
+    }
+
+    private static long toMicroseconds(final long nanoseconds) {
+        return Math.max(0L, nanoseconds / 1000L);
+    }
+
+    void recordLatency(@Nonnull final Operation operation, final long nanoseconds) {
+        latencies.get(operation).recordValue(toMicroseconds(nanoseconds));
+    }
+
+    void recordFailure(@Nonnull final Operation operation) {
+        failures.get(operation).incrementAndGet();
+    }
+
+    void recordArrivalLag(final long nanoseconds) {
+        arrivalLag.recordValue(toMicroseconds(nanoseconds));
+    }
+
+    void recordPlayerFinished(final boolean completed) {
+        (completed ? completedPlayers : abandonedPlayers).incrementAndGet();
+    }
+
+    /**
+     * <p>
+     * The latencies, in microseconds, of the successful performances of an operation.
+     * </p>
+     */
+    @Nonnull
+    public Histogram getLatencies(@Nonnull final Operation operation) {
+        Objects.requireNonNull(operation, "operation");
+        return latencies.get(operation).copy();
+    }
+
+    public long getFailures(@Nonnull final Operation operation) {
+        Objects.requireNonNull(operation, "operation");
+        return failures.get(operation).get();
+    }
+
+    public long getTotalFailures() {
+        return failures.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    /**
+     * <p>
+     * How late the players started, in microseconds.
+     * </p>
+     */
+    @Nonnull
+    public Histogram getArrivalLag() {
+        return arrivalLag.copy();
+    }
+
+    /**
+     * <p>
+     * The number of players that performed all their operations.
+     * </p>
+     */
+    public long getCompletedPlayers() {
+        return completedPlayers.get();
+    }
+
+    /**
+     * <p>
+     * The number of players that gave up after an operation failed.
+     * </p>
+     */
+    public long getAbandonedPlayers() {
+        return abandonedPlayers.get();
+    }
+
+    /**
+     * <p>
+     * Write a summary table, with one row per operation, giving latencies in milliseconds.
+     * </p>
+     */
+    public void writeSummary(@Nonnull final PrintStream out) {
+        Objects.requireNonNull(out, "out");
+        out.printf("players: %d completed, %d abandoned%n", getCompletedPlayers(), getAbandonedPlayers());
+        out.printf("%-15s %8s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "failures", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (final var operation : Operation.values()) {
+            writeRow(out, operation.name(), latencies.get(operation), getFailures(operation));
+        }
+        writeRow(out, "(arrival lag)", arrivalLag, 0L);
+    }
+
+    private static void writeRow(
+            @Nonnull final PrintStream out, @Nonnull final String name, @Nonnull final Histogram histogram,
+            final long failures) {
+        out.printf("%-15s %8d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                name, histogram.getTotalCount(), failures,
+                histogram.getValueAtPercentile(50.0) / MICROSECONDS_PER_MILLISECOND,
+                histogram.getValueAtPercentile(90.0) / MICROSECONDS_PER_MILLISECOND,
+                histogram.getValueAtPercentile(99.0) / MICROSECONDS_PER_MILLISECOND,
+                histogram.getValueAtPercentile(99.9) / MICROSECONDS_PER_MILLISECOND,
+                histogram.getMaxValue() / MICROSECONDS_PER_MILLISECOND);
+    }
+
+    /**
+     * <p>
+     * Write the full percentile distribution of the latencies of each operation,
+     * in milliseconds, as {@code .hgrm} files that HdrHistogram plotting tools can read.
+     * </p>
+     *
+     * @param directory The directory in which to write the files; created if necessary.
+     */
+    public void writeHistograms(@Nonnull final Path directory) throws IOException {
+        Objects.requireNonNull(directory, "directory");
+        Files.createDirectories(directory);
+        for (final var operation : Operation.values()) {
+            writeHistogram(directory.resolve(operation.name() + ".hgrm"), latencies.get(operation));
+        }
+        writeHistogram(directory.resolve("ARRIVAL_LAG.hgrm"), arrivalLag);
+    }
+
+    private static void writeHistogram(@Nonnull final Path file, @Nonnull final Histogram histogram)
+            throws IOException {
+        try (var out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(out, MICROSECONDS_PER_MILLISECOND);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package uk.badamson.mc.load;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+/**
+ * <p>
+ * An operation that a {@linkplain LoadEngine simulated player} performs,
+ * for which latency is reported separately.
+ * </p>
+ */
+public enum Operation {
+    /**
+     * <p>
+     * Get the current user, with HTTP Basic authentication, which creates a session.
+     * </p>
+     */
+    LOGIN,
+    LIST_SCENARIOS,
+    CREATE_GAME,
+    JOIN_GAME,
+    START_GAME,
+    STOP_GAME,
+    LOGOUT
+}
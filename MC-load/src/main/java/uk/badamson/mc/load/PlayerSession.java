@@ -0,0 +1,210 @@
+package uk.badamson.mc.load;
+/*
+ * © Copyright Benedict Adamson 2023.
+ *
+ * This file is part of MC.
+ *
+ * MC is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MC is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with MC.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.badamson.mc.BasicUserDetails;
+import uk.badamson.mc.rest.Paths;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * The HTTP session of one user of an MC installation.
+ * </p>
+ * <p>
+ * The session cookie and XSRF token are managed per session, rather than by the shared {@link HttpClient},
+ * so many sessions can share one client, and hence one pool of connections.
+ * Each operation throws an {@link IllegalStateException} if the installation does not respond as expected.
+ * </p>
+ */
+final class PlayerSession {
+
+    private static final String XSRF_TOKEN_COOKIE_NAME = "XSRF-TOKEN";
+    private static final String SESSION_COOKIE_NAME = "JSESSIONID";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_FOUND = 302;
+
+    @Nonnull
+    private final HttpClient client;
+    @Nonnull
+    private final URI baseUri;
+    @Nonnull
+    private final BasicUserDetails user;
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+
+    PlayerSession(@Nonnull final HttpClient client, @Nonnull final URI baseUri, @Nonnull final BasicUserDetails user) {
+        this.client = Objects.requireNonNull(client, "client");
+        this.baseUri = Objects.requireNonNull(baseUri, "baseUri");
+        this.user = Objects.requireNonNull(user, "user");
+    }
+
+    @Nonnull
+    private String getBasicAuthorization() {
+        final var credentials = user.getUsername() + ":" + user.getPassword();
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nonnull
+    private HttpResponse<String> send(@Nonnull final HttpRequest.Builder request) {
+        request.timeout(REQUEST_TIMEOUT).header("Authorization", getBasicAuthorization());
+        if (!cookies.isEmpty()) {
+            request.header("Cookie", cookies.entrySet().stream()
+                    .map(c -> c.getKey() + "=" + c.getValue())
+                    .collect(Collectors.joining("; ")));
+        }
+        final var xsrfToken = cookies.get(XSRF_TOKEN_COOKIE_NAME);
+        if (xsrfToken != null) {
+            request.header("X-XSRF-TOKEN", xsrfToken);
+        }
+        final HttpResponse<String> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        for (final var setCookie : response.headers().allValues("Set-Cookie")) {
+            final var nameValue = setCookie.split(";", 2)[0];
+            final int equals = nameValue.indexOf('=');
+            if (0 < equals) {
+                cookies.put(nameValue.substring(0, equals).trim(), nameValue.substring(equals + 1).trim());
+            }
+        }
+        return response;
+    }
+
+    @Nonnull
+    private HttpResponse<String> get(@Nonnull final String path, final int expectedStatus) {
+        return requireStatus(expectedStatus, send(HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Accept", "application/json")
+                .GET()));
+    }
+
+    @Nonnull
+    private HttpResponse<String> post(
+            @Nonnull final String path, @Nullable final String jsonBody, final int expectedStatus) {
+        final var request = HttpRequest.newBuilder(baseUri.resolve(path));
+        if (jsonBody == null) {
+            request.POST(HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8));
+        }
+        return requireStatus(expectedStatus, send(request));
+    }
+
+    @Nonnull
+    private static HttpResponse<String> requireStatus(final int expected, @Nonnull final HttpResponse<String> response) {
+        if (response.statusCode() != expected) {
+            throw new IllegalStateException(response.request().method() + " " + response.uri()
+                    + ": unexpected response status " + response.statusCode() + " (expected " + expected + ")");
+        }
+        return response;
+    }
+
+    @Nonnull
+    private static String getLocationPath(@Nonnull final HttpResponse<String> response) {
+        final var location = response.headers().firstValue("Location")
+                .orElseThrow(() -> new IllegalStateException("Response has no Location header"));
+        return URI.create(location).getPath();
+    }
+
+    void login() {
+        get(Paths.SELF_PATH, HTTP_OK);
+        if (!cookies.containsKey(SESSION_COOKIE_NAME) || !cookies.containsKey(XSRF_TOKEN_COOKIE_NAME)) {
+            throw new IllegalStateException("Cookies missing from response " + cookies.keySet());
+        }
+    }
+
+    @Nonnull
+    List<UUID> getScenarios() {
+        final var body = get(Paths.SCENARIOS_PATH, HTTP_OK).body();
+        final List<UUID> scenarios = new ArrayList<>();
+        try {
+            for (final var scenario : OBJECT_MAPPER.readTree(body)) {
+                scenarios.add(UUID.fromString(scenario.get("id").asText()));
+            }
+        } catch (final IOException | RuntimeException e) {
+            throw new IllegalStateException("Invalid scenarios " + body, e);
+        }
+        return scenarios;
+    }
+
+    /**
+     * @return The path of the created game.
+     */
+    @Nonnull
+    String createGame(@Nonnull final UUID scenario) {
+        return getLocationPath(post(Paths.createPathForGamesOfScenario(scenario), null, HTTP_FOUND));
+    }
+
+    void joinGame(@Nonnull final String gamePath) {
+        post(gamePath + "?join", null, HTTP_FOUND);
+    }
+
+    void startGame(@Nonnull final String gamePath) {
+        post(gamePath + "?start", null, HTTP_FOUND);
+    }
+
+    void stopGame(@Nonnull final String gamePath) {
+        post(gamePath + "?stop", null, HTTP_FOUND);
+    }
+
+    void addUser(@Nonnull final BasicUserDetails userDetails) {
+        final String body;
+        try {
+            body = OBJECT_MAPPER.writeValueAsString(userDetails);
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("can not encode user as JSON", e);
+        }
+        post(Paths.USERS_PATH, body, HTTP_FOUND);
+    }
+
+    void logout() {
+        final var response = send(HttpRequest.newBuilder(baseUri.resolve("/logout"))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Logout failed with status " + response.statusCode());
+        }
+        cookies.clear();
+    }
+}